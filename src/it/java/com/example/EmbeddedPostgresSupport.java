@@ -0,0 +1,59 @@
+package com.example;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+// Один встроенный PostgreSQL на все интеграционные тесты: сервер поднимается при первом обращении
+// и останавливается вместе с JVM (EmbeddedPostgres сам регистрирует shutdown hook).
+// Контекст не переиспользуется другими классами: иначе класс получил бы схему, которую после создания контекста
+// очистил или заполнил другой класс (миллион пользователей UserSearchIT, сброшенная последовательность при
+// выделенном Hibernate блоке идентификаторов)
+@Import(EmbeddedPostgresSupport.CleanMigration.class)
+@DirtiesContext
+public abstract class EmbeddedPostgresSupport {
+
+    private static EmbeddedPostgres postgres;
+
+    private static synchronized EmbeddedPostgres postgres() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.builder().start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return postgres;
+    }
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url",
+                () -> postgres().getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true");
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.flyway.clean-disabled", () -> "false");
+    }
+
+    // Каждый новый контекст получает пустую схему, созданную теми же миграциями, что и в production;
+    // Hibernate (ddl-auto: validate) заодно проверяет, что миграции совпадают с сущностями
+    @TestConfiguration(proxyBeanMethods = false)
+    static class CleanMigration {
+
+        @Bean
+        FlywayMigrationStrategy cleanMigrationStrategy() {
+            return flyway -> {
+                flyway.clean();
+                flyway.migrate();
+            };
+        }
+    }
+}
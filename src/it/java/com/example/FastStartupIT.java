@@ -0,0 +1,56 @@
+package com.example;
+
+import com.example.DTOs.UserDto;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Профиль fast-startup: сервис запускается без миграций и проверки схемы, схему заранее создает отдельный шаг
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("fast-startup")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class FastStartupIT extends EmbeddedPostgresSupport {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    ConfigurableApplicationContext context;
+
+    @Autowired
+    DataSource dataSource;
+
+    @BeforeAll
+    public void migrate() {
+        Flyway flyway = Flyway.configure().dataSource(dataSource).cleanDisabled(false).load();
+        flyway.clean();
+        flyway.migrate();
+    }
+
+    @Test
+    @DisplayName("Сервис работает со схемой из шага миграции, документация API создается при первом обращении")
+    public void fastStartupTest() {
+        assertThat(context.getBeanFactory().containsSingleton("openAPIConfig")).isFalse();
+
+        UserDto created = restTemplate.postForObject("/users/create",
+                new UserDto(null, "Vasya", "fast-startup@gmail.com", 20), UserDto.class);
+        assertThat(restTemplate.getForObject("/users/{id}", UserDto.class, created.getId()).getEmail())
+                .isEqualTo("fast-startup@gmail.com");
+
+        assertThat(restTemplate.getForEntity("/v3/api-docs", String.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(context.getBeanFactory().containsSingleton("openAPIConfig")).isTrue();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example;
+
+import com.example.DTOs.UserDto;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Миграции поверх схемы, которую создавал Hibernate прежних версий (id через IDENTITY): как и в production,
+// Flyway начинает с baseline версии 0. Профиль fast-startup, чтобы миграции выполнил тест, а не приложение
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("fast-startup")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class LegacySchemaMigrationIT extends EmbeddedPostgresSupport {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    DataSource dataSource;
+
+    @BeforeAll
+    public void migrateLegacySchema() {
+        Flyway.configure().dataSource(dataSource).cleanDisabled(false).load().clean();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users_spring (id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "age integer NOT NULL, created_at date, email varchar(255) CONSTRAINT uk_users_spring_email UNIQUE, " +
+                "name varchar(255))");
+        for (int i = 1; i <= 3; i++) {
+            jdbcTemplate.update("INSERT INTO users_spring (age, created_at, email, name) VALUES (20, current_date, ?, ?)",
+                    "legacy" + i + "@gmail.com", "Legacy " + i);
+        }
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).baselineVersion("0").load().migrate();
+    }
+
+    @Test
+    @DisplayName("Новые пользователи получают id после id, выданных IDENTITY до миграции")
+    public void createTest_afterLegacyIds() {
+        ResponseEntity<UserDto> created = restTemplate.postForEntity("/users/create",
+                new UserDto(null, "Vasya", "after-legacy@gmail.com", 20), UserDto.class);
+
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(created.getBody().getId()).isGreaterThan(3L);
+        assertThat(restTemplate.getForObject("/users/{id}", UserDto.class, 1L).getEmail())
+                .isEqualTo("legacy1@gmail.com");
+    }
+}
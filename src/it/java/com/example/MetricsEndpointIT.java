@@ -0,0 +1,40 @@
+package com.example;
+
+import com.example.DTOs.UserDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class MetricsEndpointIT extends EmbeddedPostgresSupport {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Test
+    @DisplayName("Метрики контроллера, сервиса, Hibernate, JDBC и пула соединений доступны для Prometheus")
+    public void prometheusEndpointTest() {
+        ResponseEntity<UserDto> created = restTemplate.postForEntity("/users/create",
+                new UserDto(null, "Vasya", "metrics@gmail.com", 20), UserDto.class);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        restTemplate.getForEntity("/users/{id}", String.class, created.getBody().getId());
+
+        String scrape = restTemplate.getForObject("/actuator/prometheus", String.class);
+
+        assertThat(scrape)
+                .contains("http_server_requests_seconds_bucket{", "uri=\"/users/{id}\"")
+                .contains("user_service_seconds_bucket{", "method=\"findUserById\"")
+                .contains("hibernate_statements_total")
+                .contains("jdbc_query_seconds_bucket")
+                .contains("hikaricp_connections_acquire_seconds_bucket");
+    }
+}
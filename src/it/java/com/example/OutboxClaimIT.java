@@ -0,0 +1,63 @@
+package com.example;
+
+import com.example.models.OutboxEvent;
+import com.example.repositories.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// OutboxRelay занимает пачку короткой транзакцией; занятые события не отдаются повторно, пока их не освободят
+// или не истечет срок. Фоновый OutboxRelay в тесте не срабатывает после первого (пустого) запуска
+@SpringBootTest(properties = "outbox.relay.poll-interval=1h")
+public class OutboxClaimIT extends EmbeddedPostgresSupport {
+
+    @Autowired
+    OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    public void setUp() {
+        outboxEventRepository.deleteAllInBatch();
+        ids = outboxEventRepository.saveAll(List.of(new OutboxEvent("actions", "1", "CREATE first@gmail.com"),
+                        new OutboxEvent("actions", "2", "CREATE second@gmail.com"),
+                        new OutboxEvent("actions", "3", "CREATE third@gmail.com")))
+                .stream().map(OutboxEvent::getId).sorted().toList();
+    }
+
+    private List<Long> claim(int limit, long claimSeconds) {
+        return transactionTemplate.execute(status -> outboxEventRepository.claimNextBatch(limit, claimSeconds))
+                .stream().map(OutboxEvent::getId).toList();
+    }
+
+    @Test
+    @DisplayName("Занятые события пропускаются до освобождения, пачки идут в порядке id")
+    public void claimTest_releasedEventsClaimedAgain() {
+        assertThat(claim(2, 60)).containsExactly(ids.get(0), ids.get(1));
+        assertThat(claim(10, 60)).containsExactly(ids.get(2));
+        assertThat(claim(10, 60)).isEmpty();
+
+        transactionTemplate.executeWithoutResult(status ->
+                outboxEventRepository.releaseClaims(List.of(ids.get(0), ids.get(1))));
+        assertThat(claim(10, 60)).containsExactly(ids.get(0), ids.get(1));
+    }
+
+    @Test
+    @DisplayName("Пачка, занятая остановившимся экземпляром, доступна после истечения срока")
+    public void claimTest_expiredClaim() {
+        assertThat(claim(10, 0)).containsExactlyElementsOf(ids);
+        assertThat(claim(10, 60)).containsExactlyElementsOf(ids);
+        assertThat(claim(10, 60)).isEmpty();
+    }
+}
@@ -0,0 +1,152 @@
+package com.example;
+
+import com.example.DTOs.UserDto;
+import com.example.datasource.ReadReplicas;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+// Вместо реплики - второй встроенный PostgreSQL с той же схемой, но без репликации: по тому, какие строки
+// видны в ответе, понятно, с какого сервера выполнено чтение
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "users.read-replicas.enabled=true",
+        "users.read-replicas.max-lag=500ms",
+        "users.read-replicas.check-interval=100ms"
+})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ReadReplicaRoutingIT extends EmbeddedPostgresSupport {
+
+    private static EmbeddedPostgres replica;
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    ReadReplicas readReplicas;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private static synchronized EmbeddedPostgres replica() {
+        if (replica == null) {
+            try {
+                replica = EmbeddedPostgres.builder().start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Flyway.configure().dataSource(replica.getPostgresDatabase()).load().migrate();
+        }
+        return replica;
+    }
+
+    @DynamicPropertySource
+    static void replicaProperties(DynamicPropertyRegistry registry) {
+        registry.add("users.read-replicas.endpoints[0].url", () -> replica().getJdbcUrl("postgres", "postgres"));
+    }
+
+    @AfterAll
+    static void stopReplica() throws IOException {
+        replica.close();
+    }
+
+    private double reads(String target, String reason) {
+        return meterRegistry.get("users.db.reads").tag("target", target).tag("reason", reason).counter().count();
+    }
+
+    private String search(String namePrefix) {
+        return restTemplate.getForObject("/users/search?name={name}", String.class, namePrefix);
+    }
+
+    private void awaitReplicaAvailable() {
+        await().atMost(Duration.ofSeconds(10)).until(() -> readReplicas.getReplicas().getFirst().isAvailable());
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Чтение идет на реплику, запись - на основной сервер")
+    public void searchTest_readsFromReplica() {
+        awaitReplicaAvailable();
+        new JdbcTemplate(replica.getPostgresDatabase()).update("INSERT INTO users_spring (id, name, email, age, version) " +
+                "VALUES (1000000, 'OnlyOnReplica', 'replica@gmail.com', 30, 0)");
+        double replicaReads = reads("replica-1", "balanced");
+
+        assertThat(search("OnlyOnReplica")).contains("replica@gmail.com");
+        assertThat(reads("replica-1", "balanced")).isGreaterThan(replicaReads);
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Клиент видит свою запись сразу, а после окна чтения своих записей снова читает с реплики")
+    public void searchTest_readYourWrites() {
+        awaitReplicaAvailable();
+        ResponseEntity<UserDto> created = restTemplate.postForEntity("/users/create",
+                new UserDto(null, "OnlyOnPrimary", "primary@gmail.com", 20), UserDto.class);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+        assertThat(search("OnlyOnPrimary")).contains("primary@gmail.com");
+        assertThat(reads("primary", "read_your_writes")).isPositive();
+
+        // Без репликации строка на реплику не попадает
+        await().pollDelay(Duration.ofMillis(700)).atMost(Duration.ofSeconds(5))
+                .until(() -> !search("OnlyOnPrimary").contains("primary@gmail.com"));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Удаленный пользователь, прочитанный с отстающей реплики, не остается в кэше")
+    public void findUserByIdTest_replicaReadNotCached() {
+        awaitReplicaAvailable();
+        UserDto created = restTemplate.postForObject("/users/create",
+                new UserDto(null, "Deleted", "deleted@gmail.com", 40), UserDto.class);
+        JdbcTemplate replicaJdbc = new JdbcTemplate(replica.getPostgresDatabase());
+        replicaJdbc.update("INSERT INTO users_spring (id, name, email, age, version) VALUES (?, ?, ?, ?, 0)",
+                created.getId(), created.getName(), created.getEmail(), created.getAge());
+        restTemplate.delete("/users/delete/{id}", created.getId());
+
+        // После окна чтения своих записей реплика, еще не получившая удаление, отдает пользователя
+        await().pollDelay(Duration.ofMillis(700)).atMost(Duration.ofSeconds(5))
+                .until(() -> restTemplate.getForEntity("/users/{id}", String.class, created.getId())
+                        .getStatusCode().is2xxSuccessful());
+        assertThat(restTemplate.getForEntity("/users/{id}", String.class, created.getId()).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+
+        // Реплика догнала основной сервер - удаление видно сразу, а не после истечения записи в кэше
+        replicaJdbc.update("DELETE FROM users_spring WHERE id = ?", created.getId());
+        assertThat(restTemplate.getForEntity("/users/{id}", String.class, created.getId()).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Недоступная реплика исключается, чтение переходит на основной сервер")
+    public void searchTest_fallbackToPrimary() throws IOException {
+        awaitReplicaAvailable();
+        replica.close();
+        await().atMost(Duration.ofSeconds(10)).until(() -> !readReplicas.getReplicas().getFirst().isAvailable());
+
+        assertThat(search("OnlyOnPrimary")).contains("primary@gmail.com");
+        assertThat(reads("primary", "no_replica")).isPositive();
+    }
+}
@@ -0,0 +1,189 @@
+package com.example;
+
+import com.example.DTOs.UserDto;
+import com.example.DTOs.UserEvent;
+import com.example.DTOs.UserImportReport;
+import com.example.services.UserEventCodec;
+import com.example.services.UserService;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// События импорта остаются в outbox: фоновый OutboxRelay не срабатывает после первого (пустого) запуска
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"outbox.relay.poll-interval=1h", "users.batch.chunk-size=2"})
+public class UserBulkCopyIT extends EmbeddedPostgresSupport {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    UserEventCodec userEventCodec;
+
+    private UserImportReport importUsers(MediaType contentType, String body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        ResponseEntity<UserImportReport> response = restTemplate.postForEntity("/users/import",
+                new HttpEntity<>(body, headers), UserImportReport.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response.getBody();
+    }
+
+    private static List<Long> rejectedLines(UserImportReport report) {
+        return report.rejectedRows().stream().map(UserImportReport.RejectedRow::line).toList();
+    }
+
+    @Test
+    @DisplayName("Импорт CSV: проверка строк, повторы email в файле и в таблице, дата создания из файла")
+    public void importCsvTest() {
+        String prefix = "csv" + System.nanoTime();
+        userService.create(new UserDto(null, "Existing", prefix + "-existing@gmail.com", 30));
+        StringBuilder csv = new StringBuilder("name,email,age,created_at\n")
+                .append("\"Vasya \"\"the first\"\"\",").append(prefix).append("-1@gmail.com,20,2020-05-01\n")
+                .append("Petya,").append(prefix).append("-2@gmail.com,13,\n")
+                .append("Existing,").append(prefix).append("-existing@gmail.com,30,\n")
+                .append("Vasya again,").append(prefix).append("-1@gmail.com,21,\n")
+                .append("Kolya,not-an-email,25,\n");
+        // Больше одного блока идентификаторов
+        for (int i = 0; i < 120; i++) {
+            csv.append("User ").append(i).append(',').append(prefix).append("-bulk").append(i).append("@gmail.com,")
+                    .append(20 + i % 50).append(",\n");
+        }
+
+        UserImportReport report = importUsers(new MediaType("text", "csv"), csv.toString());
+
+        assertThat(report.imported()).isEqualTo(121);
+        assertThat(report.rejected()).isEqualTo(4);
+        assertThat(rejectedLines(report)).containsExactly(3L, 4L, 5L, 6L);
+        assertThat(report.rejectedRows().get(0).violations()).singleElement()
+                .satisfies(violation -> assertThat(violation.getFieldName()).isEqualTo("age"));
+        Map<String, Object> vasya = jdbcTemplate.queryForMap(
+                "SELECT name, age, created_at FROM users_spring WHERE email = ?", prefix + "-1@gmail.com");
+        assertThat(vasya.get("name")).isEqualTo("Vasya \"the first\"");
+        assertThat(vasya.get("age")).isEqualTo(20);
+        assertThat(((java.sql.Date) vasya.get("created_at")).toLocalDate()).isEqualTo(LocalDate.of(2020, 5, 1));
+
+        // Идентификаторы, выделенные импортом, не пересекаются с теми, что Hibernate выдает после него
+        List<UserDto> created = userService.createAll(IntStream.range(0, 60)
+                .mapToObj(i -> new UserDto(null, "After " + i, prefix + "-after" + i + "@gmail.com", 20))
+                .toList());
+        assertThat(created).hasSize(60);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM users_spring WHERE email LIKE ?",
+                Long.class, prefix + "%")).isEqualTo(1 + 121 + 60);
+    }
+
+    @Test
+    @DisplayName("Выгрузка CSV и NDJSON через COPY; выгруженный CSV загружается обратно без изменений")
+    public void exportTest() throws Exception {
+        String prefix = "export" + System.nanoTime();
+        UserDto user = userService.create(new UserDto(null, "Back\\slash \"quoted\", comma", prefix + "@gmail.com", 42));
+
+        ResponseEntity<String> csv = restTemplate.getForEntity("/users/export?format=csv", String.class);
+        assertThat(csv.getHeaders().getContentType().isCompatibleWith(new MediaType("text", "csv"))).isTrue();
+        assertThat(csv.getBody()).startsWith("id,name,email,age,created_at\n")
+                .contains(user.getId() + ",\"Back\\slash \"\"quoted\"\", comma\"," + prefix + "@gmail.com,42,");
+
+        // Таблица общая для всех IT (UserSearchIT добавляет миллион пользователей), поэтому проверяются только
+        // строки этого теста
+        String ndjson = restTemplate.getForObject("/users/export?format=ndjson", String.class);
+        List<String> exported = ndjson.lines().filter(line -> line.contains(prefix)).toList();
+        assertThat(exported).hasSize(1);
+        JsonNode node = objectMapper.readTree(exported.getFirst());
+        assertThat(node.get("id").asLong()).isEqualTo(user.getId());
+        assertThat(node.get("name").asText()).isEqualTo("Back\\slash \"quoted\", comma");
+        assertThat(node.get("createdAt").asText()).isEqualTo(LocalDate.now().toString());
+
+        String header = csv.getBody().substring(0, csv.getBody().indexOf('\n') + 1);
+        String line = csv.getBody().lines().filter(row -> row.startsWith(user.getId() + ","))
+                .findFirst().orElseThrow();
+        // Email уже есть в таблице
+        UserImportReport duplicate = importUsers(new MediaType("text", "csv"), header + line + "\n");
+        assertThat(duplicate.imported()).isZero();
+        assertThat(duplicate.rejected()).isEqualTo(1);
+
+        userService.delete(user.getId());
+        UserImportReport report = importUsers(new MediaType("text", "csv"), header + line + "\n");
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT name FROM users_spring WHERE email = ?", String.class,
+                prefix + "@gmail.com")).isEqualTo("Back\\slash \"quoted\", comma");
+    }
+
+    @Test
+    @DisplayName("Импорт NDJSON; нарушение формата отменяет весь импорт")
+    public void importNdjsonTest() {
+        String prefix = "ndjson" + System.nanoTime();
+        String ndjson = "{\"name\":\"Vasya\",\"email\":\"" + prefix + "-1@gmail.com\",\"age\":20}\n" +
+                "{\"name\":\"Petya\",\"email\":\"" + prefix + "-2@gmail.com\",\"age\":\"20\"}\n";
+
+        UserImportReport report = importUsers(MediaType.APPLICATION_NDJSON, ndjson);
+
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(rejectedLines(report)).containsExactly(2L);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+        String malformed = "{\"name\":\"Kolya\",\"email\":\"" + prefix + "-3@gmail.com\",\"age\":20}\n{\"name\":";
+        ResponseEntity<String> response = restTemplate.postForEntity("/users/import",
+                new HttpEntity<>(malformed, headers), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM users_spring WHERE email = ?",
+                Long.class, prefix + "-3@gmail.com")).isZero();
+    }
+
+    @Test
+    @DisplayName("Импорт пишет в outbox CREATE_BATCH на порцию и UserEvent на каждого добавленного пользователя")
+    public void importTest_outboxEvents() {
+        String prefix = "events" + System.nanoTime();
+        String csv = "name,email,age\n" +
+                "Vasya," + prefix + "-1@gmail.com,20\n" +
+                "Petya," + prefix + "-2@gmail.com,21\n" +
+                "Petya again," + prefix + "-2@gmail.com,22\n" +
+                "Kolya," + prefix + "-3@gmail.com,22\n";
+
+        assertThat(importUsers(new MediaType("text", "csv"), csv).imported()).isEqualTo(3);
+
+        List<UserDto> imported = jdbcTemplate.query(
+                "SELECT id, name, email, age, version FROM users_spring WHERE email LIKE ? ORDER BY email",
+                (resultSet, rowNum) -> new UserDto(resultSet.getLong("id"), resultSet.getString("name"),
+                        resultSet.getString("email"), resultSet.getInt("age"), resultSet.getLong("version")),
+                prefix + "%");
+        List<UserEvent> events = jdbcTemplate.query("SELECT payload FROM outbox_events " +
+                        "WHERE topic = 'user-events' AND message_key IN (?, ?, ?) ORDER BY message_key",
+                (resultSet, rowNum) -> userEventCodec.decode(resultSet.getBytes("payload")),
+                imported.stream().map(user -> String.valueOf(user.getId())).sorted().toArray());
+        assertThat(events).containsExactlyInAnyOrderElementsOf(imported.stream().map(UserEvent::created).toList());
+        List<String> actions = jdbcTemplate.queryForList("SELECT convert_from(payload, 'UTF8') FROM outbox_events " +
+                "WHERE topic = 'actions' AND convert_from(payload, 'UTF8') LIKE ?", String.class, "%" + prefix + "%");
+        assertThat(actions).hasSize(2).allMatch(action -> action.startsWith("CREATE_BATCH "));
+        assertThat(String.join(",", actions)).contains(prefix + "-1@gmail.com", prefix + "-2@gmail.com",
+                prefix + "-3@gmail.com");
+    }
+}
@@ -0,0 +1,183 @@
+package com.example;
+
+import com.example.DTOs.UserChange;
+import com.example.DTOs.UserChanges;
+import com.example.DTOs.UserDto;
+import com.example.services.UserChangeFeed;
+import com.example.services.UserService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class UserChangeFeedIT extends EmbeddedPostgresSupport {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    UserChangeFeed userChangeFeed;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    DataSource dataSource;
+
+    private ResponseEntity<UserChanges> changes(String since, Integer limit) {
+        UriComponentsBuilder uri = UriComponentsBuilder.fromPath("/users/changes");
+        if (since != null) {
+            uri.queryParam("since", since);
+        }
+        if (limit != null) {
+            uri.queryParam("limit", limit);
+        }
+        return restTemplate.getForEntity(uri.toUriString(), UserChanges.class);
+    }
+
+    // Все доступные изменения после since: порции по limit, пока hasMore
+    private UserChanges drain(String since, int limit) {
+        List<UserChange> all = new ArrayList<>();
+        UserChanges page;
+        do {
+            ResponseEntity<UserChanges> response = changes(since, limit);
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            page = response.getBody();
+            all.addAll(page.changes());
+            since = page.next();
+        } while (page.hasMore());
+        return new UserChanges(all, since, false);
+    }
+
+    private static Map<Long, UserChange> byId(UserChanges changes) {
+        Map<Long, UserChange> byId = new HashMap<>();
+        for (UserChange change : changes.changes()) {
+            assertThat(byId.put(change.id(), change)).as("пользователь %d повторяется", change.id()).isNull();
+        }
+        return byId;
+    }
+
+    @Test
+    @DisplayName("Лента отдает последнее состояние пользователей и удаления по всем путям записи")
+    public void changesTest() {
+        String start = drain(null, 1000).next();
+        String prefix = "feed" + System.nanoTime();
+        UserDto created = userService.create(new UserDto(null, "Vasya", prefix + "-1@gmail.com", 20));
+        List<UserDto> batch = userService.createAll(List.of(
+                new UserDto(null, "Petya", prefix + "-2@gmail.com", 21),
+                new UserDto(null, "Kolya", prefix + "-3@gmail.com", 22)));
+        userService.update(created.getId(), new UserDto(null, "Vasya update", null, 30), null);
+        userService.updateAll(List.of(new UserDto(batch.get(0).getId(), null, null, 31)));
+        userService.delete(batch.get(1).getId());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType("text", "csv"));
+        restTemplate.postForEntity("/users/import", new HttpEntity<>("name,email,age\nImported," + prefix
+                + "-4@gmail.com,40\n", headers), String.class);
+        long importedId = jdbcTemplate.queryForObject("SELECT id FROM users_spring WHERE email = ?", Long.class,
+                prefix + "-4@gmail.com");
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            Map<Long, UserChange> changes = byId(drain(start, 2));
+            assertThat(changes.get(created.getId())).satisfies(change -> {
+                assertThat(change.type()).isEqualTo(UserChange.Type.UPSERT);
+                assertThat(change.version()).isEqualTo(1);
+                assertThat(change.user().getName()).isEqualTo("Vasya update");
+                assertThat(change.user().getAge()).isEqualTo(30);
+            });
+            assertThat(changes.get(batch.get(0).getId()).user().getAge()).isEqualTo(31);
+            assertThat(changes.get(batch.get(1).getId())).satisfies(change -> {
+                assertThat(change.type()).isEqualTo(UserChange.Type.DELETE);
+                assertThat(change.user()).isNull();
+            });
+            assertThat(changes.get(importedId).user().getEmail()).isEqualTo(prefix + "-4@gmail.com");
+        });
+
+        // После всех изменений лента пуста, метка не меняется
+        UserChanges caughtUp = drain(start, 1000);
+        UserChanges empty = changes(caughtUp.next(), null).getBody();
+        assertThat(empty.changes()).isEmpty();
+        assertThat(empty.next()).isEqualTo(caughtUp.next());
+    }
+
+    @Test
+    @DisplayName("Лента не проходит мимо изменения незавершенной транзакции с меньшим номером")
+    public void uncommittedChangeTest() throws Exception {
+        String prefix = "uncommitted" + System.nanoTime();
+        UserDto first = userService.create(new UserDto(null, "First", prefix + "-1@gmail.com", 20));
+        UserDto second = userService.create(new UserDto(null, "Second", prefix + "-2@gmail.com", 20));
+        String[] token = new String[1];
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            token[0] = drain(null, 1000).next();
+            assertThat(byId(drain(null, 1000))).containsKey(second.getId());
+        });
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE users_spring SET age = 30, version = version + 1 WHERE id = ?")) {
+                statement.setLong(1, first.getId());
+                statement.executeUpdate();
+            }
+            userService.update(second.getId(), new UserDto(null, null, null, 40), null);
+
+            for (int i = 0; i < 3; i++) {
+                assertThat(drain(token[0], 1000).changes()).isEmpty();
+            }
+            connection.commit();
+        }
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            Map<Long, UserChange> changes = byId(drain(token[0], 1000));
+            assertThat(changes.get(first.getId()).user().getAge()).isEqualTo(30);
+            assertThat(changes.get(second.getId()).user().getAge()).isEqualTo(40);
+        });
+    }
+
+    @Test
+    @DisplayName("Метка старше удаленных записей об удалениях - 410, некорректная метка - 400")
+    public void expiredTokenTest() {
+        UserDto user = userService.create(new UserDto(null, "Deleted", "expired" + System.nanoTime() + "@gmail.com", 20));
+        String[] token = new String[1];
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            UserChanges changes = drain(null, 1000);
+            token[0] = changes.next();
+            assertThat(byId(changes)).containsKey(user.getId());
+        });
+        userService.delete(user.getId());
+        jdbcTemplate.update("UPDATE users_spring_tombstones SET deleted_at = now() - interval '30 days' WHERE id = ?",
+                user.getId());
+
+        userChangeFeed.purgeTombstones();
+
+        assertThat(restTemplate.getForEntity("/users/changes?since={since}", String.class, token[0]).getStatusCode())
+                .isEqualTo(HttpStatus.GONE);
+        assertThat(changes(null, null).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(restTemplate.getForEntity("/users/changes?since=not.a.token", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example;
+
+import com.example.DTOs.UserDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class UserConditionalRequestIT extends EmbeddedPostgresSupport {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    private ResponseEntity<String> exchange(HttpMethod method, long id, String header, String etag, Object body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(header, etag);
+        String path = method == HttpMethod.GET ? "/users/{id}" : "/users/update/{id}";
+        return restTemplate.exchange(path, method, new HttpEntity<>(body, headers), String.class, id);
+    }
+
+    @Test
+    @DisplayName("ETag меняется после обновления, устаревший If-Match отклоняется")
+    public void conditionalRequestsTest() {
+        UserDto created = restTemplate.postForObject("/users/create",
+                new UserDto(null, "Vasya", "conditional@gmail.com", 20), UserDto.class);
+        long id = created.getId();
+        String etag = restTemplate.getForEntity("/users/{id}", String.class, id).getHeaders().getETag();
+        assertThat(etag).isEqualTo("\"" + id + ".0\"");
+
+        assertThat(exchange(HttpMethod.GET, id, HttpHeaders.IF_NONE_MATCH, etag, null).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        UserDto update = new UserDto(null, "Vasya update", null, 21);
+        ResponseEntity<String> updated = exchange(HttpMethod.PUT, id, HttpHeaders.IF_MATCH, etag, update);
+        assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(updated.getHeaders().getETag()).isEqualTo("\"" + id + ".1\"");
+
+        assertThat(exchange(HttpMethod.PUT, id, HttpHeaders.IF_MATCH, etag, update).getStatusCode())
+                .isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(exchange(HttpMethod.GET, id, HttpHeaders.IF_NONE_MATCH, etag, null).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example;
+
+import com.example.DTOs.UserDto;
+import com.example.services.DuplicateEmailException;
+import com.example.services.UserEmailFilter;
+import com.example.services.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class UserEmailUniquenessIT extends EmbeddedPostgresSupport {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    UserEmailFilter emailFilter;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void awaitWarmUp() {
+        await().atMost(Duration.ofSeconds(30)).until(emailFilter::isWarmedUp);
+    }
+
+    @Test
+    @DisplayName("Повторная регистрация с тем же email - 409 с ошибкой в поле email")
+    public void createTest_duplicateEmail() {
+        String email = "duplicate" + System.nanoTime() + "@gmail.com";
+        UserDto user = new UserDto(null, "Vasya", email, 20);
+        assertThat(restTemplate.postForEntity("/users/create", user, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.CREATED);
+
+        ResponseEntity<String> response = restTemplate.postForEntity("/users/create", user, String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody()).contains("\"fieldName\":\"email\"");
+    }
+
+    @Test
+    @DisplayName("Email, которого нет в фильтре, останавливает ограничение БД с той же ошибкой")
+    public void createTest_constraintFallback() {
+        String email = "unseen" + System.nanoTime() + "@gmail.com";
+        // Запись в обход сервиса: фильтр о ней не знает
+        jdbcTemplate.update("INSERT INTO users_spring (id, name, email, age, version) " +
+                "VALUES (-nextval('users_spring_seq'), ?, ?, ?, 0)", "Unseen", email, 30);
+        assertThat(emailFilter.mightContain(email)).isFalse();
+
+        assertThatThrownBy(() -> userService.create(new UserDto(null, "Vasya", email, 20)))
+                .isInstanceOf(DuplicateEmailException.class);
+        UserDto other = userService.create(new UserDto(null, "Dima", "other" + System.nanoTime() + "@gmail.com", 25));
+        assertThatThrownBy(() -> userService.update(other.getId(), new UserDto(null, null, email, 25), null))
+                .isInstanceOf(DuplicateEmailException.class);
+    }
+
+    @Test
+    @DisplayName("После удаления пользователя email снова свободен")
+    public void deleteTest_releasesEmail() {
+        String email = "released" + System.nanoTime() + "@gmail.com";
+        UserDto user = userService.create(new UserDto(null, "Vasya", email, 20));
+
+        userService.delete(user.getId());
+
+        assertThat(emailFilter.mightContain(email)).isFalse();
+        assertThat(userService.create(new UserDto(null, "Vasya", email, 20)).getEmail()).isEqualTo(email);
+    }
+}
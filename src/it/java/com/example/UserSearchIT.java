@@ -0,0 +1,100 @@
+package com.example;
+
+import com.example.models.User;
+import com.example.repositories.UserRepository;
+import com.example.repositories.UserSpecifications;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Планы запросов проверяются на 1 000 000 пользователей после ANALYZE: на маленькой таблице
+// PostgreSQL выбирает последовательное чтение независимо от индексов.
+// Условия в EXPLAIN записаны в той же форме, которую строит UserSpecifications
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class UserSearchIT extends EmbeddedPostgresSupport {
+
+    private static final int USERS = 1_000_000;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @BeforeAll
+    public void loadUsers() {
+        jdbcTemplate.update("""
+                INSERT INTO users_spring (id, name, email, age, created_at, version)
+                SELECT nextval('users_spring_seq'), 'User' || g, 'user' || g || '@domain' || (g % 1000) || '.com',
+                       g % 100, current_date, 0
+                FROM generate_series(1, ?) g""", USERS);
+        jdbcTemplate.execute("ANALYZE users_spring");
+    }
+
+    private String explain(String where, String orderBy) {
+        return explain(where + " ORDER BY " + orderBy + " OFFSET 0 ROWS FETCH FIRST 51 ROWS ONLY");
+    }
+
+    private String explain(String query) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN SELECT * FROM users_spring u WHERE " + query,
+                String.class));
+    }
+
+    @Test
+    @DisplayName("Поиск по префиксу имени использует индекс по lower(name)")
+    public void nameStartsWithTest_usesPrefixIndex() {
+        String plan = explain("lower(u.name) LIKE 'user12345%' ESCAPE '\\'", "u.name, u.id");
+
+        assertThat(plan).doesNotContain("Seq Scan").contains("idx_users_spring_name_prefix");
+        List<User> users = userRepository.findAll(UserSpecifications.nameStartsWith("USER12345"), Sort.by("id"));
+        assertThat(users).hasSize(11).allMatch(user -> user.getName().startsWith("User12345"));
+    }
+
+    @Test
+    @DisplayName("Поиск по домену почты использует триграммный индекс по lower(email)")
+    public void emailDomainIsTest_usesTrigramIndex() {
+        String where = "lower(u.email) LIKE '%@domain5.com' ESCAPE '\\'";
+
+        assertThat(explain(where, "u.id")).doesNotContain("Seq Scan");
+        // Со страницей, отсортированной по id, планировщик в зависимости от выборки ANALYZE может обойти первичный
+        // ключ с фильтром, поэтому использование индекса проверяется на запросе без сортировки
+        assertThat(explain(where)).doesNotContain("Seq Scan").contains("idx_users_spring_email_trgm");
+        List<User> users = userRepository.findAll(UserSpecifications.emailDomainIs("Domain5.com"));
+        assertThat(users).hasSize(USERS / 1000).allMatch(user -> user.getEmail().endsWith("@domain5.com"));
+    }
+
+    @Test
+    @DisplayName("Поиск по диапазону возраста использует индекс по age")
+    public void ageBetweenTest_usesAgeIndex() {
+        String plan = explain("u.age >= 42 AND u.age <= 43", "u.age, u.id");
+
+        assertThat(plan).doesNotContain("Seq Scan").contains("idx_users_spring_age");
+        long count = userRepository.count(UserSpecifications.ageAtLeast(42).and(UserSpecifications.ageAtMost(43)));
+        assertThat(count).isEqualTo(USERS / 50);
+    }
+
+    @Test
+    @DisplayName("Комбинация фильтров не приводит к последовательному чтению")
+    public void combinedFiltersTest_noSeqScan() {
+        String plan = explain("lower(u.email) LIKE '%@domain5.com' ESCAPE '\\' AND u.age >= 5 AND u.age <= 5",
+                "u.id");
+
+        assertThat(plan).doesNotContain("Seq Scan");
+        long count = userRepository.count(UserSpecifications.emailDomainIs("domain5.com")
+                .and(UserSpecifications.ageAtLeast(5)).and(UserSpecifications.ageAtMost(5)));
+        assertThat(count).isEqualTo(USERS / 1000);
+    }
+}
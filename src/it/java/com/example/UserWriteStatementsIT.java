@@ -0,0 +1,115 @@
+package com.example;
+
+import com.example.DTOs.UserDto;
+import com.example.services.UserService;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Каждое изменение пользователя - один запрос к users_spring (плюс запись события в outbox)
+@SpringBootTest
+public class UserWriteStatementsIT extends EmbeddedPostgresSupport {
+
+    @TestConfiguration
+    static class StatementRecorderConfiguration {
+
+        @Bean
+        StatementRecorder statementRecorder() {
+            return new StatementRecorder();
+        }
+    }
+
+    static class StatementRecorder implements QueryExecutionListener {
+
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            queryInfoList.forEach(queryInfo -> statements.add(queryInfo.getQuery().toLowerCase(Locale.ROOT)));
+        }
+
+        List<String> usersStatements() {
+            return statements.stream().filter(statement -> statement.contains("users_spring")).toList();
+        }
+    }
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    StatementRecorder statementRecorder;
+
+    private long userId;
+
+    private String email;
+
+    @BeforeEach
+    public void createUser() {
+        email = "statements" + System.nanoTime() + "@gmail.com";
+        userId = userService.create(new UserDto(null, "Vasya", email, 20)).getId();
+        statementRecorder.statements.clear();
+    }
+
+    @Test
+    @DisplayName("Обновление - один UPDATE ... RETURNING, прежний email читается в том же запросе")
+    public void updateTest_singleStatement() {
+        UserDto updated = userService.update(userId, new UserDto(null, "Vasya update", null, 21), 0L);
+
+        assertThat(updated.getVersion()).isEqualTo(1L);
+        assertThat(statementRecorder.usersStatements())
+                .singleElement()
+                .satisfies(statement -> assertThat(statement).contains("update users_spring").contains("returning"));
+    }
+
+    @Test
+    @DisplayName("Обновление с новым email - тот же один запрос к users_spring")
+    public void updateTest_singleStatement_changedEmail() {
+        String newEmail = "changed" + System.nanoTime() + "@gmail.com";
+        UserDto updated = userService.update(userId, new UserDto(null, "Vasya update", newEmail, 21), 0L);
+
+        assertThat(updated.getEmail()).isEqualTo(newEmail);
+        assertThat(statementRecorder.usersStatements())
+                .singleElement()
+                .satisfies(statement -> assertThat(statement).contains("update users_spring").contains("returning"));
+    }
+
+    @Test
+    @DisplayName("Обновление с прежним email - тот же один запрос к users_spring")
+    public void updateTest_singleStatement_unchangedEmail() {
+        UserDto updated = userService.update(userId, new UserDto(null, "Vasya update", email, 21), 0L);
+
+        assertThat(updated.getEmail()).isEqualTo(email);
+        assertThat(statementRecorder.usersStatements())
+                .singleElement()
+                .satisfies(statement -> assertThat(statement).contains("update users_spring").contains("returning"));
+    }
+
+    @Test
+    @DisplayName("Удаление - один DELETE ... RETURNING без SELECT")
+    public void deleteTest_singleStatement() {
+        userService.delete(userId);
+
+        assertThat(statementRecorder.usersStatements())
+                .singleElement()
+                .satisfies(statement -> assertThat(statement).startsWith("delete from users_spring").contains("returning"));
+        assertThat(statementRecorder.statements).anyMatch(statement -> statement.startsWith("insert into outbox_events"));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.benchmarks;
+
+import com.example.DTOs.UserDto;
+import com.example.models.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        LocalDate createdAt = LocalDate.now();
+        for (long id = 1; id <= count; id++) {
+            users.add(new User(id, "user_" + id, "user_" + id + "@example.com", 14 + (int) (id % 60), createdAt, 0));
+        }
+        return users;
+    }
+
+    static List<UserDto> userDtos(int count) {
+        List<UserDto> userDtos = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            userDtos.add(new UserDto(id, "user_" + id, "user_" + id + "@example.com", 14 + (int) (id % 60)));
+        }
+        return userDtos;
+    }
+}
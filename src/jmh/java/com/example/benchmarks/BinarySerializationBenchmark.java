@@ -0,0 +1,97 @@
+package com.example.benchmarks;
+
+import com.example.DTOs.UserDto;
+import com.example.DTOs.UserEvent;
+import com.example.serialization.UserBinaryFormat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JSON против UserBinaryFormat для списка пользователей (ответ /users/all) и одного события user-events.
+// Размер сообщений выводится в setUp, время - результатом бенчмарка
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BinarySerializationBenchmark {
+
+    private static final TypeReference<List<UserDto>> USER_LIST = new TypeReference<>() {
+    };
+
+    @Param({"50", "1000", "10000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+
+    private List<UserDto> users;
+
+    private UserEvent event;
+
+    private byte[] usersJson;
+
+    private byte[] usersBinary;
+
+    private byte[] eventJson;
+
+    private byte[] eventBinary;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        users = BenchmarkData.userDtos(size);
+        event = UserEvent.updated(users.getFirst(), new UserDto(null, "user_1", null, 15));
+        usersJson = objectMapper.writeValueAsBytes(users);
+        usersBinary = UserBinaryFormat.writeUsers(users);
+        eventJson = objectMapper.writeValueAsBytes(event);
+        eventBinary = UserBinaryFormat.writeEvent(event);
+        System.out.printf("%n%d пользователей: JSON %d байт, binary %d байт; событие: JSON %d байт, binary %d байт%n",
+                size, usersJson.length, usersBinary.length, eventJson.length, eventBinary.length);
+    }
+
+    @Benchmark
+    public byte[] writeUsersJson() throws IOException {
+        return objectMapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] writeUsersBinary() {
+        return UserBinaryFormat.writeUsers(users);
+    }
+
+    @Benchmark
+    public List<UserDto> readUsersJson() throws IOException {
+        return objectMapper.readValue(usersJson, USER_LIST);
+    }
+
+    @Benchmark
+    public List<UserDto> readUsersBinary() {
+        return UserBinaryFormat.readUsers(usersBinary);
+    }
+
+    @Benchmark
+    public byte[] writeEventJson() throws IOException {
+        return objectMapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public byte[] writeEventBinary() {
+        return UserBinaryFormat.writeEvent(event);
+    }
+
+    @Benchmark
+    public UserEvent readEventJson() throws IOException {
+        return objectMapper.readValue(eventJson, UserEvent.class);
+    }
+
+    @Benchmark
+    public UserEvent readEventBinary() {
+        return UserBinaryFormat.readEvent(eventBinary);
+    }
+}
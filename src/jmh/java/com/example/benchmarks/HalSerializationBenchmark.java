@@ -0,0 +1,56 @@
+package com.example.benchmarks;
+
+import com.example.DTOs.UserDto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Сериализация ответа GET /users/all (CollectionModel<EntityModel<UserDto>>) в HAL JSON
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HalSerializationBenchmark {
+
+    @Param({"50", "1000", "10000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+
+    private CollectionModel<EntityModel<UserDto>> collectionModel;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new Jackson2HalModule());
+        objectMapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        List<EntityModel<UserDto>> models = BenchmarkData.userDtos(size).stream()
+                .map(userDto -> EntityModel.of(userDto, Link.of("http://localhost/users/" + userDto.getId())))
+                .toList();
+        collectionModel = CollectionModel.of(models, Link.of("http://localhost/users/all", "all-users"));
+    }
+
+    @Benchmark
+    public void serialize() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), collectionModel);
+    }
+
+    @Benchmark
+    public byte[] serializeToBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(collectionModel);
+    }
+}
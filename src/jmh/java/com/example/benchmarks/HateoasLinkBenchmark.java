@@ -0,0 +1,77 @@
+package com.example.benchmarks;
+
+import com.example.DTOs.UserDto;
+import com.example.controllers.UserController;
+import com.example.controllers.UserLinks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+// Стоимость построения ссылок через linkTo(methodOn(...)) в сравнении с UserLinks
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HateoasLinkBenchmark {
+
+    @Param({"50", "1000"})
+    private int pageSize;
+
+    private final UserLinks userLinks = new UserLinks();
+
+    private List<UserDto> page;
+
+    @Setup
+    public void setUp() {
+        page = BenchmarkData.userDtos(pageSize);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/all");
+        request.setServerName("users.example.com");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public EntityModel<UserDto> singleEntityModel() {
+        UserDto userDto = page.getFirst();
+        Link selfLink = linkTo(methodOn(UserController.class).findUserById(userDto.getId())).withSelfRel();
+        Link allUsersLink = linkTo(methodOn(UserController.class).findAllUsers(null, null, false)).withRel("all-users");
+        return EntityModel.of(userDto, selfLink, allUsersLink);
+    }
+
+    @Benchmark
+    public EntityModel<UserDto> singleEntityModel_userLinks() {
+        return userLinks.toModel(page.getFirst());
+    }
+
+    @Benchmark
+    public List<EntityModel<UserDto>> pageOfEntityModels_userLinks() {
+        return userLinks.toModels(page);
+    }
+
+    @Benchmark
+    public List<EntityModel<UserDto>> pageOfEntityModels() {
+        List<EntityModel<UserDto>> models = new ArrayList<>(page.size());
+        for (UserDto userDto : page) {
+            models.add(EntityModel.of(userDto,
+                    linkTo(methodOn(UserController.class).findUserById(userDto.getId())).withSelfRel()));
+        }
+        return models;
+    }
+}
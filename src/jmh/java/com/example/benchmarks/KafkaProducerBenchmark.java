@@ -0,0 +1,54 @@
+package com.example.benchmarks;
+
+import com.example.services.KafkaProducerService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Накладные расходы KafkaProducerService.send (шаблон, метрики, сериализация) без сети:
+// брокер заменен MockProducer, который подтверждает отправку сразу
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KafkaProducerBenchmark {
+
+    private static final int HISTORY_LIMIT = 10_000;
+
+    private MockProducer<String, byte[]> producer;
+
+    private KafkaProducerService kafkaProducerService;
+
+    private long userId;
+
+    @Setup
+    public void setUp() {
+        // KafkaTemplate закрывает producer после каждой отправки, поэтому close() здесь ничего не делает
+        producer = new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer()) {
+            @Override
+            public void close(Duration timeout) {
+            }
+        };
+        kafkaProducerService = new KafkaProducerService(new KafkaTemplate<>(() -> producer), new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public CompletableFuture<SendResult<String, byte[]>> send() {
+        // MockProducer хранит все отправленные записи, история очищается, чтобы не измерять рост кучи
+        if (++userId % HISTORY_LIMIT == 0) {
+            producer.clear();
+        }
+        return kafkaProducerService.send("actions", Long.toString(userId), "CREATE user_" + userId + "@example.com");
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.benchmarks;
+
+import com.example.DTOs.UserDto;
+import com.example.mappers.UserMapper;
+import com.example.models.User;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Преобразование страницы/выгрузки сущностей в DTO (UserService -> UserMapper.toDtoList)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class UserDtoListBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private final UserMapper userMapper = new UserMapper();
+
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        users = BenchmarkData.users(size);
+    }
+
+    @Benchmark
+    public UserDto toDto() {
+        return userMapper.toDto(users.get(size / 2));
+    }
+
+    @Benchmark
+    public List<UserDto> toDtoList() {
+        return userMapper.toDtoList(users);
+    }
+}
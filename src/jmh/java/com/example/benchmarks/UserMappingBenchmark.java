@@ -0,0 +1,69 @@
+package com.example.benchmarks;
+
+import com.example.DTOs.UserDto;
+import com.example.mappers.UserMapper;
+import com.example.models.User;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.BeanUtils;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Сравнение UserMapper с прежним преобразованием через BeanUtils.copyProperties
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UserMappingBenchmark {
+
+    private final UserMapper userMapper = new UserMapper();
+
+    private User user;
+
+    private UserDto userDto;
+
+    @Setup
+    public void setUp() {
+        user = new User(1L, "Vasya", "vasya@gmail.com", 20, LocalDate.now(), 0);
+        userDto = new UserDto(null, "Vasya update", "vasya@gmail.com", 21);
+    }
+
+    @Benchmark
+    public UserDto toDto_beanUtils() {
+        UserDto result = new UserDto();
+        BeanUtils.copyProperties(user, result);
+        return result;
+    }
+
+    @Benchmark
+    public UserDto toDto_mapper() {
+        return userMapper.toDto(user);
+    }
+
+    @Benchmark
+    public User toEntity_beanUtils() {
+        User result = new User();
+        BeanUtils.copyProperties(userDto, result, "id");
+        return result;
+    }
+
+    @Benchmark
+    public User toEntity_mapper() {
+        return userMapper.toEntity(userDto);
+    }
+
+    @Benchmark
+    public User update_beanUtils() {
+        BeanUtils.copyProperties(userDto, user, "id");
+        return user;
+    }
+
+    @Benchmark
+    public User update_mapper() {
+        userMapper.updateEntity(userDto, user);
+        return user;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// Параметры EndToEndLoadTest, аргументы вида --name=value:
+// --rate=500 --warmup=10s --duration=30s --workloads=read-heavy,write-heavy,list-heavy --seed-users=10000
+// --max-in-flight=2000 --label=baseline --output=target/e2e-loadtest-result.json
+// Пороги для проверки релиза (необязательные): --max-error-rate=0.001 --max-p99=250ms
+record EndToEndConfig(double rate, Duration warmup, Duration duration, List<Workload> workloads, int seedUsers,
+                      int maxInFlight, String label, Path output, Double maxErrorRate, Duration maxP99) {
+
+    static EndToEndConfig fromArgs(String[] args) {
+        Map<String, String> options = LoadTestConfig.parseOptions(args);
+        String maxErrorRate = options.get("max-error-rate");
+        String maxP99 = options.get("max-p99");
+        return new EndToEndConfig(
+                Double.parseDouble(options.getOrDefault("rate", "500")),
+                LoadTestConfig.parseDuration(options.getOrDefault("warmup", "10s")),
+                LoadTestConfig.parseDuration(options.getOrDefault("duration", "30s")),
+                Arrays.stream(options.getOrDefault("workloads", "read-heavy,write-heavy,list-heavy").split(","))
+                        .map(String::trim)
+                        .map(Workload::of)
+                        .toList(),
+                Integer.parseInt(options.getOrDefault("seed-users", "10000")),
+                Integer.parseInt(options.getOrDefault("max-in-flight", "2000")),
+                options.getOrDefault("label", "default"),
+                Path.of(options.getOrDefault("output", "target/e2e-loadtest-result.json")),
+                maxErrorRate == null ? null : Double.parseDouble(maxErrorRate),
+                maxP99 == null ? null : LoadTestConfig.parseDuration(maxP99));
+    }
+}
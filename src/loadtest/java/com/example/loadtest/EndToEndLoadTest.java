@@ -0,0 +1,260 @@
+package com.example.loadtest;
+
+import com.example.Module4SpringApplication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+
+// Нагрузочный тест всего сервиса без внешнего окружения: встроенный PostgreSQL, брокер kafka в том же процессе
+// и приложение целиком (контроллеры, кэш, outbox, отправка в kafka). До теста загружаются seed-users
+// пользователей, затем каждая смесь запросов (Workload) подается с постоянной скоростью rate запросов в секунду
+// независимо от ответов (open loop): задержка считается от запланированного момента отправки, поэтому очередь
+// перед медленным сервисом входит в перцентили. Итог - JSON по смесям и методам; при заданных порогах
+// (--max-error-rate, --max-p99) их нарушение завершает процесс с кодом 1, и сборка падает:
+// mvn -Ploadtest -DskipTests verify -Dloadtest.main=com.example.loadtest.EndToEndLoadTest
+//     -Dloadtest.args="--rate=500 --duration=30s --max-error-rate=0.001 --max-p99=250ms"
+// Генератор нагрузки работает в одном процессе с сервисом, поэтому результаты сравнимы только между
+// запусками на одной машине
+public class EndToEndLoadTest {
+
+    private final EndToEndConfig config;
+
+    private final URI target;
+
+    private final ObjectMapper objectMapper;
+
+    private final HttpClient httpClient;
+
+    private UserData data;
+
+    EndToEndLoadTest(EndToEndConfig config, URI target, ObjectMapper objectMapper) {
+        this.config = config;
+        this.target = target;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        EndToEndConfig config = EndToEndConfig.fromArgs(args);
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        Map<String, Object> report;
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            EmbeddedKafkaBroker kafka = new EmbeddedKafkaKraftBroker(1, 3, "actions", "user-events");
+            kafka.afterPropertiesSet();
+            try (ConfigurableApplicationContext application = startApplication(postgres, kafka)) {
+                int port = application.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+                report = new EndToEndLoadTest(config, URI.create("http://localhost:" + port), objectMapper).run();
+            } finally {
+                kafka.destroy();
+            }
+        }
+        Files.createDirectories(config.output().toAbsolutePath().getParent());
+        objectMapper.writeValue(config.output().toFile(), report);
+        System.out.println(objectMapper.writeValueAsString(report));
+        // Потоки клиентов kafka и пулов могут пережить закрытие контекста
+        System.exit(Boolean.TRUE.equals(((Map<?, ?>) report.get("gates")).get("passed")) ? 0 : 1);
+    }
+
+    // Ограничение нагрузки отключено: все запросы идут с одного адреса. docker compose не нужен - окружение
+    // поднято в этом процессе
+    private static ConfigurableApplicationContext startApplication(EmbeddedPostgres postgres,
+                                                                   EmbeddedKafkaBroker kafka) {
+        return new SpringApplicationBuilder(Module4SpringApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true",
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--spring.kafka.bootstrap-servers=" + kafka.getBrokersAsString(),
+                "--users.rate-limit.enabled=false",
+                "--spring.docker.compose.enabled=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN");
+    }
+
+    Map<String, Object> run() throws Exception {
+        data = seed();
+        Map<String, Object> workloads = new LinkedHashMap<>();
+        List<String> violations = new ArrayList<>();
+        for (Workload workload : config.workloads()) {
+            System.out.printf("Смесь %s: %.0f запросов/с, %d с%n", workload.label(), config.rate(),
+                    config.duration().toSeconds());
+            workloads.put(workload.label(), runWorkload(workload, violations));
+        }
+        Map<String, Object> gates = new LinkedHashMap<>();
+        gates.put("maxErrorRate", config.maxErrorRate());
+        gates.put("maxP99Millis", config.maxP99() == null ? null : config.maxP99().toMillis());
+        gates.put("passed", violations.isEmpty());
+        gates.put("violations", violations);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", config.label());
+        report.put("target", target.toString());
+        report.put("ratePerSecond", config.rate());
+        report.put("warmupSeconds", config.warmup().toMillis() / 1000.0);
+        report.put("durationSeconds", config.duration().toMillis() / 1000.0);
+        report.put("seedUsers", config.seedUsers());
+        report.put("workloads", workloads);
+        report.put("gates", gates);
+        return report;
+    }
+
+    // Пользователи загружаются через COPY (POST /users/import), их id берутся из выгрузки. Последние 10% -
+    // запас для удалений в начале теста, пока тест еще не создал своих пользователей
+    private UserData seed() throws IOException, InterruptedException {
+        StringBuilder csv = new StringBuilder("name,email,age\n");
+        for (int i = 1; i <= config.seedUsers(); i++) {
+            csv.append("User").append(i).append(',')
+                    .append("seed-").append(i).append('@').append(UserData.DOMAINS[i % UserData.DOMAINS.length])
+                    .append(',').append(14 + i % 60).append('\n');
+        }
+        HttpResponse<String> imported = httpClient.send(HttpRequest.newBuilder(target.resolve("/users/import"))
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (imported.statusCode() != 200) {
+            throw new IllegalStateException("Не удалось загрузить пользователей: " + imported.statusCode() + " "
+                    + imported.body());
+        }
+        HttpResponse<String> exported = httpClient.send(HttpRequest.newBuilder(target.resolve("/users/export?format=csv"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        long[] ids = exported.body().lines()
+                .skip(1)
+                .mapToLong(line -> Long.parseLong(line.substring(0, line.indexOf(','))))
+                .toArray();
+        int stable = Math.max(1, ids.length - ids.length / 10);
+        return new UserData(Arrays.copyOf(ids, stable), Arrays.copyOfRange(ids, stable, ids.length));
+    }
+
+    private Map<String, Object> runWorkload(Workload workload, List<String> violations) {
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+        double intervalNanos = 1e9 / config.rate();
+        long start = System.nanoTime();
+        long measuredFrom = start + config.warmup().toNanos();
+        long end = measuredFrom + config.duration().toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long scheduled = start + (long) (i * intervalNanos);
+                if (scheduled >= end) {
+                    break;
+                }
+                long delay = scheduled - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                Operation operation = workload.next();
+                boolean measured = scheduled >= measuredFrom;
+                if (!inFlight.tryAcquire()) {
+                    if (measured) {
+                        stats.get(operation).dropped();
+                    }
+                    continue;
+                }
+                executor.submit(() -> {
+                    try {
+                        execute(operation, scheduled, measured ? stats : null);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        return report(workload, stats, violations);
+    }
+
+    // Удаление, когда удалять некого, заменяется созданием пользователя
+    private void execute(Operation operation, long scheduled, Map<Operation, OperationStats> stats) {
+        HttpRequest request = operation.request(target, data);
+        if (request == null) {
+            operation = Operation.CREATE;
+            request = operation.request(target, data);
+        }
+        int status = 0;
+        try {
+            if (operation.needsBody()) {
+                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                status = response.statusCode();
+                if (status < 300) {
+                    operation.onCreated(response.body(), data, objectMapper);
+                }
+            } else {
+                status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            }
+        } catch (IOException e) {
+            // Нет ответа (или тело ответа не разобрать) - ошибка
+            status = 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (stats != null) {
+            stats.get(operation).record(System.nanoTime() - scheduled, status);
+        }
+    }
+
+    private Map<String, Object> report(Workload workload, Map<Operation, OperationStats> stats,
+                                       List<String> violations) {
+        double seconds = config.duration().toMillis() / 1000.0;
+        Histogram total = new Histogram(OperationStats.MAX_LATENCY_MICROS, 3);
+        long requests = 0;
+        long errors = 0;
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operationStats = entry.getValue();
+            if (operationStats.requests() == 0) {
+                continue;
+            }
+            Histogram histogram = operationStats.histogram();
+            total.add(histogram);
+            requests += operationStats.requests();
+            errors += operationStats.errors();
+            endpoints.put(entry.getKey().endpoint(), operationStats.report(histogram, seconds));
+        }
+        double errorRate = OperationStats.errorRate(requests, errors);
+        if (config.maxErrorRate() != null && errorRate > config.maxErrorRate()) {
+            violations.add(workload.label() + ": доля ошибок " + errorRate + " больше " + config.maxErrorRate());
+        }
+        double p99Millis = total.getValueAtPercentile(99) / 1000.0;
+        if (config.maxP99() != null && p99Millis > config.maxP99().toMillis()) {
+            violations.add(workload.label() + ": p99 " + p99Millis + " мс больше " + config.maxP99().toMillis() + " мс");
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("requests", requests);
+        report.put("throughputPerSecond", total.getTotalCount() / seconds);
+        report.put("errorRate", errorRate);
+        report.put("latencyMillis", OperationStats.latencyMillis(total));
+        report.put("endpoints", endpoints);
+        return report;
+    }
+}
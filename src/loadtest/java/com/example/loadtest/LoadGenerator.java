@@ -0,0 +1,119 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Нагрузка с фиксированным числом одновременных клиентов (closed loop) на GET /users/{id}:
+// каждый клиент - виртуальный поток, задержки пишутся в HdrHistogram, итог - JSON с пропускной способностью,
+// перцентилями задержки и долей ошибок. Запуск против уже поднятого сервиса:
+// mvn -Ploadtest -DskipTests verify -Dloadtest.args="--target=http://localhost:8080 --label=platform-threads"
+public class LoadGenerator {
+
+    private final LoadTestConfig config;
+
+    private final HttpClient httpClient;
+
+    private final Recorder recorder = new Recorder(TimeUnit.MINUTES.toMicros(1), 3);
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private volatile boolean recording;
+
+    public LoadGenerator(LoadTestConfig config) {
+        this.config = config;
+        this.httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromArgs(args);
+        Map<String, Object> report = new LoadGenerator(config).run();
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        Files.createDirectories(config.output().toAbsolutePath().getParent());
+        objectMapper.writeValue(config.output().toFile(), report);
+        System.out.println(objectMapper.writeValueAsString(report));
+    }
+
+    public Map<String, Object> run() throws InterruptedException {
+        long deadline = System.nanoTime() + config.warmup().plus(config.duration()).toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < config.concurrency(); i++) {
+                clients.submit(() -> client(deadline));
+            }
+            Thread.sleep(config.warmup().toMillis());
+            recorder.reset();
+            requests.reset();
+            errors.reset();
+            recording = true;
+        }
+        return report(recorder.getIntervalHistogram());
+    }
+
+    private void client(long deadline) {
+        while (System.nanoTime() < deadline) {
+            long userId = ThreadLocalRandom.current().nextLong(1, config.maxUserId() + 1);
+            HttpRequest request = HttpRequest.newBuilder(config.target().resolve(URI.create("/users/" + userId)))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            long start = System.nanoTime();
+            boolean failed;
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                failed = response.statusCode() >= 500 || response.statusCode() == 429;
+            } catch (IOException e) {
+                failed = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (recording) {
+                recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                requests.increment();
+                if (failed) {
+                    errors.increment();
+                }
+            }
+        }
+    }
+
+    private Map<String, Object> report(Histogram histogram) {
+        double seconds = config.duration().toMillis() / 1000.0;
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("p50", histogram.getValueAtPercentile(50) / 1000.0);
+        latency.put("p99", histogram.getValueAtPercentile(99) / 1000.0);
+        latency.put("p999", histogram.getValueAtPercentile(99.9) / 1000.0);
+        latency.put("max", histogram.getMaxValue() / 1000.0);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", config.label());
+        report.put("target", config.target().toString());
+        report.put("concurrency", config.concurrency());
+        report.put("durationSeconds", seconds);
+        report.put("requests", requests.sum());
+        report.put("throughputPerSecond", requests.sum() / seconds);
+        report.put("errorRate", requests.sum() == 0 ? 0.0 : (double) errors.sum() / requests.sum());
+        report.put("latencyMillis", latency);
+        return report;
+    }
+}
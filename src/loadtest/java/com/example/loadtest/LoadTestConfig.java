@@ -0,0 +1,49 @@
+package com.example.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// Параметры запуска передаются аргументами вида --name=value, например:
+// --target=http://localhost:8080 --concurrency=500 --duration=60s --label=virtual-threads
+record LoadTestConfig(URI target, int concurrency, Duration warmup, Duration duration,
+                      long maxUserId, String label, Path output) {
+
+    static LoadTestConfig fromArgs(String[] args) {
+        Map<String, String> options = parseOptions(args);
+        return new LoadTestConfig(
+                URI.create(options.getOrDefault("target", "http://localhost:8080")),
+                Integer.parseInt(options.getOrDefault("concurrency", "200")),
+                parseDuration(options.getOrDefault("warmup", "10s")),
+                parseDuration(options.getOrDefault("duration", "30s")),
+                Long.parseLong(options.getOrDefault("max-user-id", "1000")),
+                options.getOrDefault("label", "default"),
+                Path.of(options.getOrDefault("output", "target/loadtest-result.json")));
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Ожидается аргумент вида --name=value: " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.parse(value);
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Запросы к каждому методу /users. request возвращает null, если выполнить операцию нечем (некого удалять)
+enum Operation {
+
+    API_INFO("GET /users") {
+        @Override
+        HttpRequest request(URI target, UserData data) {
+            return get(target, "/users");
+        }
+    },
+
+    CREATE("POST /users/create") {
+        @Override
+        HttpRequest request(URI target, UserData data) {
+            return json(target, "/users/create", "POST", userJson(null, data.newEmail()));
+        }
+
+        @Override
+        boolean needsBody() {
+            return true;
+        }
+    },
+
+    GET_BY_ID("GET /users/{id}") {
+        @Override
+        HttpRequest request(URI target, UserData data) {
+            return get(target, "/users/" + data.stableId());
+        }
+    },
+
+    GET_PAGE("GET /users/all") {
+        @Override
+        HttpRequest request(URI target, UserData data) {
+            return get(target, "/users/all?size=50&after=" + (data.stableId() - 1));
+        }
+    },
+
+    STREAM_ALL("GET /users/all/stream") {
+        @Override
+        HttpRequest request(URI target, UserData data) {
+            return get(target, "/users/all/stream?format=ndjson");
+        }
+    },
+
+    SEARCH("GET /users/search") {
+        @Override
+        HttpRequest request(URI target, UserData data) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int minAge = 14 + random.nextInt(50);
+            return switch (random.nextInt(3)) {
+                case 0 -> get(target, "/users/search?size=50&name=user" + random.nextInt(1, 100));
+                case 1 -> get(target, "/users/search?size=50&sort=-age,name&emailDomain="
+                        + UserData.DOMAINS[random.nextInt(UserData.DOMAINS.length)] + "&minAge=" + minAge);
+                default -> get(target, "/users/search?size=50&minAge=" + minAge + "&maxAge=" + (minAge + 5)
+                        + "&page=" + random.nextInt(5));
+            };
+        }
+    },
+
+    UPDATE("PUT /users/update/{id}") {
+        @Override
+        HttpRequest request(URI target, UserData data) {
+            return json(target, "/users/update/" + data.stableId(), "PUT", userJson(null, null));
+        }
+    },
+
+    DELETE("DELETE /users/delete/{id}") {
+        @Override
+        HttpRequest request(URI target, UserData data) {
+            Long id = data.pollDeletable();
+            return id == null ? null : HttpRequest.newBuilder(target.resolve("/users/delete/" + id))
+                    .timeout(TIMEOUT)
+                    .DELETE()
+                    .build();
+        }
+    },
+
+    BATCH_CREATE("POST /users/batch") {
+        @Override
+        HttpRequest request(URI target, UserData data) {
+            StringJoiner users = new StringJoiner(",", "[", "]");
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                users.add(userJson(null, data.newEmail()));
+            }
+            return json(target, "/users/batch", "POST", users.toString());
+        }
+
+        @Override
+        boolean needsBody() {
+            return true;
+        }
+    },
+
+    BATCH_UPDATE("PUT /users/batch") {
+        @Override
+        HttpRequest request(URI target, UserData data) {
+            StringJoiner users = new StringJoiner(",", "[", "]");
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                users.add(userJson(data.stableId(), null));
+            }
+            return json(target, "/users/batch", "PUT", users.toString());
+        }
+    },
+
+    BATCH_DELETE("DELETE /users/batch") {
+        @Override
+        HttpRequest request(URI target, UserData data) {
+            List<Long> ids = new ArrayList<>(BATCH_SIZE);
+            Long id;
+            while (ids.size() < BATCH_SIZE && (id = data.pollDeletable()) != null) {
+                ids.add(id);
+            }
+            return ids.isEmpty() ? null : json(target, "/users/batch", "DELETE", ids.toString());
+        }
+    },
+
+    EXPORT("GET /users/export") {
+        @Override
+        HttpRequest request(URI target, UserData data) {
+            return get(target, "/users/export?format=csv");
+        }
+    },
+
+    IMPORT("POST /users/import") {
+        @Override
+        HttpRequest request(URI target, UserData data) {
+            StringBuilder csv = new StringBuilder("name,email,age\n");
+            for (int i = 0; i < IMPORT_SIZE; i++) {
+                csv.append("Imported").append(',').append(data.newEmail()).append(',').append(20 + i % 40).append('\n');
+            }
+            return HttpRequest.newBuilder(target.resolve("/users/import"))
+                    .timeout(TIMEOUT)
+                    .header("Content-Type", "text/csv")
+                    .POST(HttpRequest.BodyPublishers.ofString(csv.toString()))
+                    .build();
+        }
+    };
+
+    static final int BATCH_SIZE = 10;
+
+    static final int IMPORT_SIZE = 100;
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final String endpoint;
+
+    Operation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+
+    abstract HttpRequest request(URI target, UserData data);
+
+    // Тело ответа нужно только операциям, которые создают пользователей: их id пополняют запас для удаления
+    boolean needsBody() {
+        return false;
+    }
+
+    void onCreated(String body, UserData data, ObjectMapper objectMapper) throws IOException {
+        for (JsonNode id : objectMapper.readTree(body).findValues("id")) {
+            data.addDeletable(id.asLong());
+        }
+    }
+
+    private static HttpRequest get(URI target, String path) {
+        return HttpRequest.newBuilder(target.resolve(path))
+                .timeout(TIMEOUT)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+    }
+
+    private static HttpRequest json(URI target, String path, String method, String body) {
+        return HttpRequest.newBuilder(target.resolve(path))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    // Имена вида User<число>: по их началу ищет SEARCH
+    private static String userJson(Long id, String email) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder json = new StringBuilder("{");
+        if (id != null) {
+            json.append("\"id\":").append(id).append(',');
+        }
+        json.append("\"name\":\"User").append(random.nextInt(100_000)).append('"');
+        if (email != null) {
+            json.append(",\"email\":\"").append(email).append('"');
+        }
+        return json.append(",\"age\":").append(14 + random.nextInt(60)).append('}').toString();
+    }
+}
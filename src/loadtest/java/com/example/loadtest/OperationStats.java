@@ -0,0 +1,80 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Результаты одной операции за измеряемый интервал: задержки (мкс) и ответы по кодам статуса.
+// Ошибка - нет ответа, 5xx или 429; остальные коды (например, 409 при одновременном изменении) видны в statuses
+final class OperationStats {
+
+    static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Recorder recorder = new Recorder(MAX_LATENCY_MICROS, 3);
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+
+    void record(long latencyNanos, int status) {
+        recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        requests.increment();
+        statuses.computeIfAbsent(status == 0 ? "no_response" : Integer.toString(status), s -> new LongAdder())
+                .increment();
+        if (status == 0 || status >= 500 || status == 429) {
+            errors.increment();
+        }
+    }
+
+    // Запрос не отправлен: уже выполняется max-in-flight запросов, сервис не успевает за заданной скоростью
+    void dropped() {
+        requests.increment();
+        errors.increment();
+        statuses.computeIfAbsent("dropped", s -> new LongAdder()).increment();
+    }
+
+    long requests() {
+        return requests.sum();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    Histogram histogram() {
+        return recorder.getIntervalHistogram();
+    }
+
+    Map<String, Object> report(Histogram histogram, double seconds) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("requests", requests());
+        report.put("throughputPerSecond", histogram.getTotalCount() / seconds);
+        report.put("errorRate", errorRate(requests(), errors()));
+        Map<String, Long> byStatus = new TreeMap<>();
+        statuses.forEach((status, count) -> byStatus.put(status, count.sum()));
+        report.put("statuses", byStatus);
+        report.put("latencyMillis", latencyMillis(histogram));
+        return report;
+    }
+
+    static double errorRate(long requests, long errors) {
+        return requests == 0 ? 0.0 : (double) errors / requests;
+    }
+
+    static Map<String, Object> latencyMillis(Histogram histogram) {
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("p50", histogram.getValueAtPercentile(50) / 1000.0);
+        latency.put("p99", histogram.getValueAtPercentile(99) / 1000.0);
+        latency.put("p999", histogram.getValueAtPercentile(99.9) / 1000.0);
+        latency.put("max", histogram.getMaxValue() / 1000.0);
+        return latency;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Время от запуска процесса сервиса до первого успешного ответа (time-to-first-request). Сервис запускается
+// runs раз подряд с заданными параметрами JVM, после первого ответа процесс останавливается. Пример сравнения
+// обычного запуска и запуска с AOT и архивом CDS (jar распакован и архив создан так же, как в Dockerfile):
+// mvn -Ploadtest -DskipTests verify -Dloadtest.main=com.example.loadtest.StartupBenchmark
+//     -Dloadtest.args='--jar=application/module4-Spring-0.0.1-SNAPSHOT.jar --label=aot-cds
+//     "--jvm-args=-XX:SharedArchiveFile=application/user-service.jsa -Dspring.aot.enabled=true"'
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Ожидается аргумент вида --name=value: " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        Path jar = Path.of(options.getOrDefault("jar", "target/module4-Spring-0.0.1-SNAPSHOT.jar"));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        int port = Integer.parseInt(options.getOrDefault("port", "8080"));
+        List<String> jvmArgs = split(options.getOrDefault("jvm-args", ""));
+        List<String> appArgs = split(options.getOrDefault("app-args", "--spring.profiles.active=fast-startup"));
+        URI probe = URI.create("http://localhost:" + port + options.getOrDefault("path", "/users"));
+        Path output = Path.of(options.getOrDefault("output", "target/startup-result.json"));
+
+        List<Double> millis = new ArrayList<>(runs);
+        for (int i = 0; i < runs; i++) {
+            List<String> command = new ArrayList<>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(jvmArgs);
+            command.add("-jar");
+            command.add(jar.toString());
+            command.add("--server.port=" + port);
+            command.addAll(appArgs);
+            millis.add(timeToFirstRequest(command, probe));
+            System.out.printf("Запуск %d: %.0f мс%n", i + 1, millis.getLast());
+        }
+
+        List<Double> sorted = millis.stream().sorted().toList();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", options.getOrDefault("label", "default"));
+        report.put("jvmArgs", jvmArgs);
+        report.put("appArgs", appArgs);
+        report.put("runs", runs);
+        report.put("timeToFirstRequestMillis", Map.of(
+                "min", sorted.getFirst(),
+                "median", sorted.get(sorted.size() / 2),
+                "max", sorted.getLast()));
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        objectMapper.writeValue(output.toFile(), report);
+        System.out.println(objectMapper.writeValueAsString(report));
+    }
+
+    private static List<String> split(String value) {
+        return value.isBlank() ? List.of() : Arrays.asList(value.trim().split("\\s+"));
+    }
+
+    private static double timeToFirstRequest(List<String> command, URI probe) throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest request = HttpRequest.newBuilder(probe).timeout(Duration.ofSeconds(5)).GET().build();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            long deadline = start + TimeUnit.MINUTES.toNanos(2);
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Сервис завершился при запуске с кодом " + process.exitValue());
+                }
+                try {
+                    if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return (System.nanoTime() - start) / 1e6;
+                    }
+                } catch (IOException e) {
+                    // Порт еще не открыт или контекст еще не готов принимать запросы
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("Сервис не ответил за 2 минуты: " + probe);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.loadtest;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Пользователи, с которыми работают запросы. Чтение и обновление идут по загруженным до теста пользователям,
+// которые никогда не удаляются; удаляются только созданные тестом (и запас, загруженный для первых удалений)
+final class UserData {
+
+    static final String[] DOMAINS = {"gmail.com", "yandex.ru", "mail.ru", "example.com"};
+
+    private final long[] stableIds;
+
+    private final ConcurrentLinkedQueue<Long> deletableIds = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong emails = new AtomicLong();
+
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    UserData(long[] stableIds, long[] deletableIds) {
+        this.stableIds = stableIds;
+        for (long id : deletableIds) {
+            this.deletableIds.add(id);
+        }
+    }
+
+    long stableId() {
+        return stableIds[ThreadLocalRandom.current().nextInt(stableIds.length)];
+    }
+
+    Long pollDeletable() {
+        return deletableIds.poll();
+    }
+
+    void addDeletable(long id) {
+        deletableIds.add(id);
+    }
+
+    // Email, которого еще нет в БД
+    String newEmail() {
+        long number = emails.incrementAndGet();
+        return "e2e-" + runId + "-" + number + "@" + DOMAINS[(int) (number % DOMAINS.length)];
+    }
+}
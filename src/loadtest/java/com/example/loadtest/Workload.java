@@ -0,0 +1,81 @@
+package com.example.loadtest;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Смеси запросов: операция выбирается случайно пропорционально весу. Вместе смеси покрывают все методы /users
+enum Workload {
+
+    READ_HEAVY("read-heavy", Map.of(
+            Operation.GET_BY_ID, 70,
+            Operation.GET_PAGE, 8,
+            Operation.SEARCH, 8,
+            Operation.API_INFO, 2,
+            Operation.CREATE, 5,
+            Operation.UPDATE, 5,
+            Operation.DELETE, 2)),
+
+    WRITE_HEAVY("write-heavy", Map.of(
+            Operation.CREATE, 30,
+            Operation.UPDATE, 25,
+            Operation.DELETE, 10,
+            Operation.BATCH_CREATE, 8,
+            Operation.BATCH_UPDATE, 8,
+            Operation.BATCH_DELETE, 4,
+            Operation.IMPORT, 1,
+            Operation.GET_BY_ID, 14)),
+
+    LIST_HEAVY("list-heavy", Map.of(
+            Operation.GET_PAGE, 40,
+            Operation.SEARCH, 40,
+            Operation.STREAM_ALL, 1,
+            Operation.EXPORT, 1,
+            Operation.API_INFO, 3,
+            Operation.GET_BY_ID, 15));
+
+    private final String label;
+
+    private final Operation[] operations;
+
+    private final int[] cumulativeWeights;
+
+    Workload(String label, Map<Operation, Integer> weights) {
+        this.label = label;
+        // EnumMap - чтобы порядок операций (и выбор при одинаковом случайном числе) не зависел от Map.of
+        Map<Operation, Integer> ordered = new EnumMap<>(weights);
+        this.operations = ordered.keySet().toArray(Operation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += ordered.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    static Workload of(String label) {
+        return Arrays.stream(values())
+                .filter(workload -> workload.label.equals(label))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Неизвестная смесь запросов: " + label));
+    }
+
+    String label() {
+        return label;
+    }
+
+    Operation[] operations() {
+        return operations.clone();
+    }
+
+    Operation next() {
+        int value = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException();
+    }
+}
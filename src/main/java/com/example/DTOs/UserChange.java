@@ -0,0 +1,30 @@
+package com.example.DTOs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Изменение пользователя: текущее состояние или удаление")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserChange(
+        @Schema(description = "UPSERT - пользователь создан или изменен, DELETE - удален")
+        Type type,
+        @Schema(description = "Идентификатор пользователя")
+        long id,
+        @Schema(description = "Версия пользователя (для DELETE - последняя версия до удаления)")
+        long version,
+        @Schema(description = "Состояние пользователя после изменения (только для UPSERT)")
+        UserDto user) {
+
+    public enum Type {
+        UPSERT, DELETE
+    }
+
+    public static UserChange upsert(UserDto user) {
+        return new UserChange(Type.UPSERT, user.getId(), user.getVersion(), user);
+    }
+
+    public static UserChange deleted(long id, long version) {
+        return new UserChange(Type.DELETE, id, version, null);
+    }
+}
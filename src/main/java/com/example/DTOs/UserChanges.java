@@ -0,0 +1,16 @@
+package com.example.DTOs;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Порция ленты изменений пользователей")
+public record UserChanges(
+        @Schema(description = "Изменения по порядку; пользователь, изменявшийся несколько раз, входит один раз " +
+                "с последним состоянием")
+        List<UserChange> changes,
+        @Schema(description = "Метка для следующего запроса (since)")
+        String next,
+        @Schema(description = "Есть ли уже доступные изменения после этой порции")
+        boolean hasMore) {
+}
@@ -1,10 +1,15 @@
 package com.example.DTOs;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.groups.Default;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -15,7 +20,13 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor @NoArgsConstructor
 public class UserDto {
 
-    @Schema(description = "Идентификатор пользователя (должен быть null, иначе будет проигнорировано)")
+    // Группа проверок для пакетного обновления, где идентификатор передается в теле запроса
+    public interface Existing extends Default {
+    }
+
+    @Schema(description = "Идентификатор пользователя (должен быть null, иначе будет проигнорировано; " +
+            "обязателен при пакетном обновлении)")
+    @NotNull(groups = Existing.class, message = "id обязателен при пакетном обновлении")
     private Long id;
 
     @Schema(description = "Имя пользователя", example = "example_user_name")
@@ -30,4 +41,14 @@ public class UserDto {
     @Min(value = 14, message = "минимальный возраст - 14")
     private int age;
 
+    @Schema(description = "Версия пользователя (заполняется сервером, совпадает с ETag)",
+            accessMode = Schema.AccessMode.READ_ONLY)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long version;
+
+    public UserDto(Long id, String name, String email, int age) {
+        this(id, name, email, age, null);
+    }
+
 }
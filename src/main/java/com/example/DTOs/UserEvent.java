@@ -0,0 +1,42 @@
+package com.example.DTOs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Событие об изменении пользователя в topic user-events (ключ - id пользователя).
+// Для CREATE и UPDATE содержит состояние пользователя после изменения, changedFields - переданные поля;
+// для DELETE заполнены только userId и version (последняя версия удаленного пользователя)
+public record UserEvent(long userId, Op op, long version, String name, String email, Integer age,
+                        List<String> changedFields) {
+
+    public enum Op {
+        CREATE, UPDATE, DELETE
+    }
+
+    public static UserEvent created(UserDto user) {
+        return new UserEvent(user.getId(), Op.CREATE, user.getVersion(), user.getName(), user.getEmail(),
+                user.getAge(), List.of("name", "email", "age"));
+    }
+
+    // Частичное обновление: null в request означает, что поле не передавалось
+    public static UserEvent updated(UserDto user, UserDto request) {
+        List<String> changedFields = new ArrayList<>(3);
+        if (request.getName() != null) {
+            changedFields.add("name");
+        }
+        if (request.getEmail() != null) {
+            changedFields.add("email");
+        }
+        changedFields.add("age");
+        return new UserEvent(user.getId(), Op.UPDATE, user.getVersion(), user.getName(), user.getEmail(),
+                user.getAge(), changedFields);
+    }
+
+    public static UserEvent deleted(long userId, long version) {
+        return new UserEvent(userId, Op.DELETE, version, null, null, null, List.of());
+    }
+
+    public UserDto toUserDto() {
+        return new UserDto(userId, name, email, age == null ? 0 : age, version);
+    }
+}
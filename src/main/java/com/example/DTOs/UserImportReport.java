@@ -0,0 +1,22 @@
+package com.example.DTOs;
+
+import com.example.controllers.ValidationResponse.Violation;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Результат импорта пользователей")
+public record UserImportReport(
+        @Schema(description = "Число добавленных пользователей")
+        long imported,
+        @Schema(description = "Число отклоненных строк")
+        long rejected,
+        @Schema(description = "Отклоненные строки по порядку (не больше " + UserImportReport.MAX_REJECTED_ROWS + ")")
+        List<RejectedRow> rejectedRows) {
+
+    public static final int MAX_REJECTED_ROWS = 1000;
+
+    public record RejectedRow(long line, List<Violation> violations) {
+    }
+}
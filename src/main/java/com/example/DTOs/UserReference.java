@@ -0,0 +1,22 @@
+package com.example.DTOs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import org.springframework.hateoas.server.core.Relation;
+
+// Элемент компактного списка (compact=true): только id и версия, под тем же именем коллекции, что и полный список
+@Schema(description = "Ссылка на пользователя в компактном списке")
+@Relation(collectionRelation = "userDtoList")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserReference(
+        @Schema(description = "Идентификатор пользователя")
+        Long id,
+        @Schema(description = "Версия пользователя (совпадает с ETag)")
+        Long version) {
+
+    public static UserReference of(UserDto user) {
+        return new UserReference(user.getId(), user.getVersion());
+    }
+}
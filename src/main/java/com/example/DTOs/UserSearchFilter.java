@@ -0,0 +1,5 @@
+package com.example.DTOs;
+
+// Пустые (null) поля не участвуют в поиске, заполненные объединяются через AND
+public record UserSearchFilter(String namePrefix, String emailDomain, Integer minAge, Integer maxAge) {
+}
@@ -0,0 +1,108 @@
+package com.example.bulk;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Потоковое чтение CSV (RFC 4180): поля через запятую, значения в кавычках могут содержать запятые, переводы строк
+// и удвоенные кавычки. Пустое значение без кавычек - null (как в COPY ... FORMAT csv), "" - пустая строка.
+// В памяти держится только текущая запись, ее длина ограничена maxRecordLength
+public class CsvRecordReader {
+
+    private static final int NONE = -2;
+
+    private final Reader reader;
+
+    private final int maxRecordLength;
+
+    private long line = 1;
+
+    private long recordLine;
+
+    private int recordLength;
+
+    private int peeked = NONE;
+
+    public CsvRecordReader(Reader reader, int maxRecordLength) {
+        this.reader = reader;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    // Номер строки, с которой началась последняя прочитанная запись (с 1)
+    public long recordLine() {
+        return recordLine;
+    }
+
+    // null - конец данных
+    public List<String> next() throws IOException {
+        recordLine = line;
+        recordLength = 0;
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (c == '"' && !quoted && field.isEmpty()) {
+                quoted = true;
+                while (true) {
+                    c = read();
+                    if (c == -1) {
+                        throw new IllegalArgumentException("строка " + recordLine + ": не закрыта кавычка");
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            break;
+                        }
+                    }
+                    field.append((char) c);
+                }
+                continue;
+            }
+            if (c == ',') {
+                fields.add(value(field, quoted));
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '\n' || c == '\r' || c == -1) {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        peeked = next;
+                    }
+                }
+                fields.add(value(field, quoted));
+                return fields;
+            } else if (quoted) {
+                throw new IllegalArgumentException("строка " + recordLine + ": после закрывающей кавычки ожидается запятая");
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private static String value(StringBuilder field, boolean quoted) {
+        return quoted || !field.isEmpty() ? field.toString() : null;
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (peeked != NONE) {
+            c = peeked;
+            peeked = NONE;
+            return c;
+        }
+        c = reader.read();
+        if (c == '\n') {
+            line++;
+        }
+        if (c != -1 && ++recordLength > maxRecordLength) {
+            throw new IllegalArgumentException("строка " + recordLine + ": запись длиннее " + maxRecordLength + " символов");
+        }
+        return c;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.bulk;
+
+import com.example.DTOs.UserDto;
+import com.example.controllers.ValidationResponse.Violation;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Строка файла импорта; violations - ошибки разбора полей (проверки UserDto выполняет UserCopyService)
+public record ImportedUser(long line, String name, String email, Integer age, LocalDate createdAt,
+                           List<Violation> violations) {
+
+    public UserDto toUserDto() {
+        return new UserDto(null, name, email, age == null ? 0 : age);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.bulk;
+
+import org.springframework.http.MediaType;
+
+public enum UserBulkFormat {
+
+    CSV(new MediaType("text", "csv")),
+    NDJSON(MediaType.APPLICATION_NDJSON);
+
+    private final MediaType mediaType;
+
+    UserBulkFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public static UserBulkFormat of(MediaType contentType) {
+        for (UserBulkFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(contentType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("неподдерживаемый формат импорта: " + contentType);
+    }
+}
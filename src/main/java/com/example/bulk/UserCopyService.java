@@ -0,0 +1,300 @@
+package com.example.bulk;
+
+import com.example.DTOs.UserDto;
+import com.example.DTOs.UserEvent;
+import com.example.DTOs.UserImportReport;
+import com.example.configuration.UserBatchProperties;
+import com.example.controllers.ValidationResponse.Violation;
+import com.example.models.OutboxEvent;
+import com.example.models.User;
+import com.example.repositories.OutboxEventRepository;
+import com.example.services.UserEmailFilter;
+import com.example.services.UserEventCodec;
+import com.example.services.UserService;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.observation.annotation.Observed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Массовая выгрузка и загрузка пользователей через протокол COPY драйвера PostgreSQL: данные идут между телом
+// HTTP-запроса и БД потоком через буферы фиксированного размера, без сущностей JPA и без загрузки файла в память.
+// Импорт не затрагивает существующих пользователей (кэш остается верным), а о добавленных пишет в outbox в той же
+// транзакции те же события, что и пакетное создание через API: действие CREATE_BATCH на порцию и UserEvent на каждого
+@Observed(name = "user.bulk")
+@Service
+public class UserCopyService {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final int MAX_COLUMN_LENGTH = 255;
+
+    private static final String CSV_EXPORT = "COPY (SELECT id, name, email, age, created_at FROM users_spring " +
+            "ORDER BY id) TO STDOUT WITH (FORMAT csv, HEADER true)";
+
+    // JSON строит сам PostgreSQL. Текстовый формат COPY удвоил бы обратные косые черты, а в csv с такими QUOTE
+    // и DELIMITER строка выводится как есть: json_build_object экранирует все управляющие символы
+    private static final String NDJSON_EXPORT = "COPY (SELECT json_build_object('id', id, 'name', name, " +
+            "'email', email, 'age', age, 'createdAt', created_at) FROM users_spring ORDER BY id) " +
+            "TO STDOUT WITH (FORMAT csv, QUOTE e'\\x01', DELIMITER e'\\x02')";
+
+    // Промежуточная таблица живет до конца транзакции импорта
+    private static final String CREATE_STAGING = "CREATE TEMP TABLE users_import (line bigint NOT NULL, " +
+            "name varchar(255), email varchar(255), age integer NOT NULL, created_at date) ON COMMIT DROP";
+
+    private static final String COPY_STAGING = "COPY users_import (line, name, email, age, created_at) " +
+            "FROM STDIN WITH (FORMAT csv)";
+
+    private static final int BLOCK = User.ID_ALLOCATION_SIZE;
+
+    // Идентификаторы выделяются из users_spring_seq так же, как у Hibernate (оптимизатор pooled): значение
+    // последовательности - верхняя граница блока из BLOCK идентификаторов. Блоков берется на один больше нужного,
+    // потому что первое значение новой последовательности (1) блока не образует.
+    // Строки вставляются в порядке файла, поэтому при повторе email в файле остается первая строка; запрос
+    // возвращает номера строк, которые не вставлены из-за уже существующего email, и (с line = NULL) вставленных
+    // пользователей для фильтра UserEmailFilter и событий
+    private static final String MERGE = "WITH staged AS MATERIALIZED (" +
+            "SELECT line, name, email, age, created_at, row_number() OVER (ORDER BY line) - 1 AS rn " +
+            "FROM users_import), " +
+            "blocks AS MATERIALIZED (" +
+            "SELECT row_number() OVER (ORDER BY hi) - 1 AS block, hi FROM (" +
+            "SELECT nextval('users_spring_seq') AS hi " +
+            "FROM generate_series(0, ((SELECT count(*) FROM users_import) + " + (BLOCK - 1) + ") / " + BLOCK + ")" +
+            ") AS allocated WHERE hi >= " + BLOCK + "), " +
+            "numbered AS MATERIALIZED (" +
+            "SELECT s.*, b.hi - " + (BLOCK - 1) + " + s.rn % " + BLOCK + " AS id " +
+            "FROM staged s JOIN blocks b ON b.block = s.rn / " + BLOCK + "), " +
+            "inserted AS (" +
+            "INSERT INTO users_spring (id, name, email, age, created_at, version) " +
+            "SELECT id, name, email, age, coalesce(created_at, current_date), 0 FROM numbered ORDER BY line " +
+            "ON CONFLICT (email) DO NOTHING RETURNING id, name, email, age) " +
+            "SELECT line, NULL AS id, NULL AS name, NULL AS email, NULL AS age FROM numbered n " +
+            "WHERE NOT EXISTS (SELECT 1 FROM inserted i WHERE i.id = n.id) " +
+            "UNION ALL SELECT NULL, id, name, email, age FROM inserted ORDER BY line";
+
+    private static final Violation DUPLICATE_EMAIL =
+            new Violation("email", "пользователь с таким email уже есть или email повторяется выше в файле");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final UserEmailFilter emailFilter;
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    private final UserEventCodec userEventCodec;
+
+    private final EntityManager entityManager;
+
+    private final UserBatchProperties batchProperties;
+
+    @Autowired
+    public UserCopyService(JdbcTemplate jdbcTemplate, Validator validator, ObjectMapper objectMapper,
+                           UserEmailFilter emailFilter, OutboxEventRepository outboxEventRepository,
+                           UserEventCodec userEventCodec, EntityManager entityManager,
+                           UserBatchProperties batchProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.emailFilter = emailFilter;
+        this.outboxEventRepository = outboxEventRepository;
+        this.userEventCodec = userEventCodec;
+        this.entityManager = entityManager;
+        this.batchProperties = batchProperties;
+    }
+
+    @Transactional(readOnly = true)
+    public long export(UserBulkFormat format, OutputStream outputStream) {
+        String sql = format == UserBulkFormat.CSV ? CSV_EXPORT : NDJSON_EXPORT;
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, outputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Строки проверяются по мере чтения; прошедшие проверку копируются в промежуточную таблицу, откуда одним
+    // запросом переносятся в users_spring. Нарушение формата файла (IllegalArgumentException) отменяет весь импорт
+    @Transactional
+    public UserImportReport importUsers(UserBulkFormat format, InputStream inputStream) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8),
+                COPY_BUFFER_SIZE);
+        UserImportReader users = format == UserBulkFormat.CSV ? UserImportReader.csv(reader)
+                : UserImportReader.ndjson(reader, objectMapper);
+        Rejections rejections = new Rejections();
+        jdbcTemplate.execute(CREATE_STAGING);
+        long staged = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> copyIn(connection, users, rejections));
+        long duplicates = staged == 0 ? 0 : merge(rejections);
+        return rejections.report(staged - duplicates);
+    }
+
+    private long copyIn(Connection connection, UserImportReader users, Rejections rejections) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        long staged = 0;
+        try (Writer writer = new OutputStreamWriter(new PGCopyOutputStream(pgConnection, COPY_STAGING, COPY_BUFFER_SIZE),
+                StandardCharsets.UTF_8)) {
+            for (ImportedUser user = users.next(); user != null; user = users.next()) {
+                List<Violation> violations = validate(user);
+                if (violations.isEmpty()) {
+                    writeRow(writer, user);
+                    staged++;
+                } else {
+                    rejections.add(user.line(), violations);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return staged;
+    }
+
+    // Добавленные пользователи читаются из результата курсором, события пишутся порциями по chunk-size
+    // в той же транзакции, и ни результат, ни события не накапливаются в памяти целиком
+    private long merge(Rejections rejections) {
+        long[] duplicates = {0};
+        List<UserDto> chunk = new ArrayList<>(batchProperties.chunkSize());
+        PreparedStatementCreator statement = connection -> {
+            PreparedStatement preparedStatement = connection.prepareStatement(MERGE);
+            preparedStatement.setFetchSize(1000);
+            return preparedStatement;
+        };
+        jdbcTemplate.query(statement, resultSet -> {
+            long line = resultSet.getLong("line");
+            if (resultSet.wasNull()) {
+                UserDto user = new UserDto(resultSet.getLong("id"), resultSet.getString("name"),
+                        resultSet.getString("email"), resultSet.getInt("age"), 0L);
+                emailFilter.add(user.getEmail());
+                chunk.add(user);
+                if (chunk.size() == batchProperties.chunkSize()) {
+                    publishCreated(chunk);
+                }
+            } else {
+                rejections.add(line, List.of(DUPLICATE_EMAIL));
+                duplicates[0]++;
+            }
+        });
+        if (!chunk.isEmpty()) {
+            publishCreated(chunk);
+        }
+        return duplicates[0];
+    }
+
+    private void publishCreated(List<UserDto> chunk) {
+        List<OutboxEvent> events = new ArrayList<>(chunk.size() + 1);
+        events.add(new OutboxEvent(UserService.ACTIONS_TOPIC, null, "CREATE_BATCH " +
+                chunk.stream().map(UserDto::getEmail).collect(Collectors.joining(","))));
+        chunk.forEach(user -> events.add(new OutboxEvent(UserService.USER_EVENTS_TOPIC, String.valueOf(user.getId()),
+                userEventCodec.encode(UserEvent.created(user)))));
+        outboxEventRepository.saveAll(events);
+        entityManager.flush();
+        entityManager.clear();
+        chunk.clear();
+    }
+
+    // Те же проверки, что и при создании пользователя через API, плюс ограничения колонок users_spring.
+    // Поле с ошибкой разбора повторно не проверяется
+    private List<Violation> validate(ImportedUser user) {
+        List<Violation> violations = new ArrayList<>(user.violations());
+        Set<String> invalidFields = violations.stream().map(Violation::getFieldName).collect(Collectors.toSet());
+        validator.validate(user.toUserDto()).stream()
+                .filter(violation -> !invalidFields.contains(violation.getPropertyPath().toString()))
+                .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .forEach(violation -> violations.add(toViolation(violation)));
+        checkColumn("name", user.name(), violations);
+        checkColumn("email", user.email(), violations);
+        return violations;
+    }
+
+    private static Violation toViolation(ConstraintViolation<?> violation) {
+        return new Violation(violation.getPropertyPath().toString(), violation.getMessage());
+    }
+
+    private static void checkColumn(String field, String value, List<Violation> violations) {
+        if (value == null) {
+            return;
+        }
+        if (value.length() > MAX_COLUMN_LENGTH) {
+            violations.add(new Violation(field, "длина не должна превышать " + MAX_COLUMN_LENGTH + " символов"));
+        } else if (value.indexOf('\0') >= 0) {
+            violations.add(new Violation(field, "недопустимый символ с кодом 0"));
+        }
+    }
+
+    private static void writeRow(Writer writer, ImportedUser user) throws IOException {
+        writer.write(Long.toString(user.line()));
+        writer.write(',');
+        writeQuoted(writer, user.name());
+        writer.write(',');
+        writeQuoted(writer, user.email());
+        writer.write(',');
+        writer.write(Integer.toString(user.age()));
+        writer.write(',');
+        if (user.createdAt() != null) {
+            writer.write(user.createdAt().toString());
+        }
+        writer.write('\n');
+    }
+
+    // null остается пустым значением без кавычек, а строка всегда в кавычках (и пустая строка не станет null)
+    private static void writeQuoted(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    // Все отклоненные строки считаются, но в отчет попадают только первые MAX_REJECTED_ROWS
+    private static final class Rejections {
+
+        private final List<UserImportReport.RejectedRow> rows = new ArrayList<>();
+
+        private long count;
+
+        void add(long line, List<Violation> violations) {
+            count++;
+            if (rows.size() < UserImportReport.MAX_REJECTED_ROWS) {
+                rows.add(new UserImportReport.RejectedRow(line, violations));
+            }
+        }
+
+        UserImportReport report(long imported) {
+            rows.sort(Comparator.comparingLong(UserImportReport.RejectedRow::line));
+            return new UserImportReport(imported, count, rows);
+        }
+    }
+}
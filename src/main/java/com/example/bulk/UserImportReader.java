@@ -0,0 +1,177 @@
+package com.example.bulk;
+
+import com.example.controllers.ValidationResponse.Violation;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Читает пользователей из файла импорта по одному. Ошибки в значениях полей попадают в violations строки,
+// а нарушение формата файла (незакрытая кавычка, некорректный JSON, нет обязательной колонки) -
+// IllegalArgumentException: дальше читать файл нельзя
+public abstract class UserImportReader {
+
+    // Ограничение на одну запись: файл читается потоком, и в памяти не должно оказаться неограниченной строки
+    public static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    public abstract ImportedUser next() throws IOException;
+
+    // Первая строка - заголовок; колонки сопоставляются по имени (id и неизвестные колонки пропускаются),
+    // поэтому файл из GET /users/export?format=csv загружается без изменений
+    public static UserImportReader csv(Reader reader) {
+        return new CsvUserReader(new CsvRecordReader(reader, MAX_RECORD_LENGTH));
+    }
+
+    // По одному JSON-объекту на строку с полями name, email, age и createdAt
+    public static UserImportReader ndjson(Reader reader, ObjectMapper objectMapper) throws IOException {
+        return new NdjsonUserReader(objectMapper, objectMapper.getFactory().createParser(reader));
+    }
+
+    private static final class CsvUserReader extends UserImportReader {
+
+        private final CsvRecordReader records;
+
+        private Map<String, Integer> columns;
+
+        private CsvUserReader(CsvRecordReader records) {
+            this.records = records;
+        }
+
+        @Override
+        public ImportedUser next() throws IOException {
+            if (columns == null) {
+                columns = readHeader();
+            }
+            List<String> record = records.next();
+            // Пустые строки пропускаются
+            while (record != null && record.size() == 1 && record.getFirst() == null) {
+                record = records.next();
+            }
+            if (record == null) {
+                return null;
+            }
+            List<Violation> violations = new ArrayList<>();
+            Integer age = parseAge(field(record, "age"), violations);
+            LocalDate createdAt = parseDate(field(record, "created_at"), "created_at", violations);
+            return new ImportedUser(records.recordLine(), field(record, "name"), field(record, "email"), age,
+                    createdAt, violations);
+        }
+
+        private Map<String, Integer> readHeader() throws IOException {
+            List<String> header = records.next();
+            if (header == null) {
+                throw new IllegalArgumentException("файл пуст: ожидается заголовок name,email,age[,created_at]");
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i) != null) {
+                    columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+                }
+            }
+            for (String required : List.of("name", "email", "age")) {
+                if (!columns.containsKey(required)) {
+                    throw new IllegalArgumentException("в заголовке нет колонки " + required);
+                }
+            }
+            return columns;
+        }
+
+        private String field(List<String> record, String column) {
+            Integer index = columns.get(column);
+            return index == null || index >= record.size() ? null : record.get(index);
+        }
+    }
+
+    private static final class NdjsonUserReader extends UserImportReader {
+
+        private final ObjectMapper objectMapper;
+
+        private final JsonParser parser;
+
+        private NdjsonUserReader(ObjectMapper objectMapper, JsonParser parser) {
+            this.objectMapper = objectMapper;
+            this.parser = parser;
+        }
+
+        @Override
+        public ImportedUser next() throws IOException {
+            long line = parser.currentLocation().getLineNr();
+            try {
+                JsonToken token = parser.nextToken();
+                if (token == null) {
+                    return null;
+                }
+                line = parser.currentTokenLocation().getLineNr();
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException("строка " + line + ": ожидается JSON-объект");
+                }
+                JsonNode node = objectMapper.readTree(parser);
+                List<Violation> violations = new ArrayList<>();
+                String name = text(node, "name", violations);
+                String email = text(node, "email", violations);
+                Integer age = null;
+                JsonNode ageNode = node.get("age");
+                if (ageNode == null || ageNode.isNull()) {
+                    violations.add(new Violation("age", "возраст обязателен"));
+                } else if (ageNode.isIntegralNumber() && ageNode.canConvertToInt()) {
+                    age = ageNode.intValue();
+                } else {
+                    violations.add(new Violation("age", "возраст должен быть целым числом"));
+                }
+                LocalDate createdAt = parseDate(text(node, "createdAt", violations), "createdAt", violations);
+                return new ImportedUser(line, name, email, age, createdAt, violations);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("строка " + line + ": некорректный JSON: " + e.getOriginalMessage());
+            }
+        }
+
+        private static String text(JsonNode node, String field, List<Violation> violations) {
+            JsonNode value = node.get(field);
+            if (value == null || value.isNull()) {
+                return null;
+            }
+            if (!value.isTextual()) {
+                violations.add(new Violation(field, "ожидается строка"));
+                return null;
+            }
+            return value.textValue();
+        }
+    }
+
+    private static Integer parseAge(String value, List<Violation> violations) {
+        if (value == null || value.isBlank()) {
+            violations.add(new Violation("age", "возраст обязателен"));
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            violations.add(new Violation("age", "возраст должен быть целым числом"));
+            return null;
+        }
+    }
+
+    private static LocalDate parseDate(String value, String field, List<Violation> violations) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            violations.add(new Violation(field, "дата должна быть в формате ГГГГ-ММ-ДД"));
+            return null;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.configuration;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// Кэш выполняется снаружи транзакции: запись и инвалидация происходят только после коммита,
+// а попадание в кэш не открывает транзакцию вовсе.
+// Провайдер выбирается через spring.cache.* (по умолчанию Caffeine, распределенный кэш подключается без изменения кода)
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfiguration {
+
+    public static final String USERS_CACHE = "users";
+}
@@ -0,0 +1,29 @@
+package com.example.configuration;
+
+import com.example.DTOs.UserDto;
+import com.example.mappers.UserMapper;
+import com.example.models.User;
+import com.example.repositories.UserRepository;
+import com.example.services.CoalescingLoader;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.stream.Collectors;
+
+@Configuration
+@ConditionalOnProperty(name = "users.coalescing.enabled", havingValue = "true")
+public class CoalescingConfiguration {
+
+    // Одна порция - один SELECT ... WHERE id IN (...) в собственной транзакции репозитория
+    @Bean
+    public CoalescingLoader<Long, UserDto> userLoader(UserCoalescingProperties properties, UserRepository userRepository,
+                                                     UserMapper userMapper, MeterRegistry meterRegistry) {
+        return new CoalescingLoader<>("users.coalescing",
+                ids -> userRepository.findAllById(ids).stream()
+                        .collect(Collectors.toMap(User::getId, userMapper::toDto)),
+                properties.window().toNanos(), properties.maxBatchSize(), meterRegistry);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.configuration;
+
+import com.example.throttling.AdaptiveConcurrencyLimit;
+import com.example.throttling.ClientKeyResolver;
+import com.example.throttling.DbLatencyTracker;
+import com.example.throttling.RequestLimiter;
+import com.example.throttling.UserRateLimitFilter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnProperty(name = "users.rate-limit.enabled", havingValue = "true")
+public class RateLimitConfiguration {
+
+    // Подключается к datasource-proxy как QueryExecutionListener и видит время каждого SQL-запроса
+    @Bean
+    public DbLatencyTracker dbLatencyTracker(MeterRegistry meterRegistry) {
+        DbLatencyTracker tracker = new DbLatencyTracker(System::nanoTime);
+        Gauge.builder("users.rate_limit.db_latency", tracker, t -> t.averageNanos() / 1e6)
+                .description("Средняя задержка SQL-запросов, по которой подстраивается ограничение, мс")
+                .register(meterRegistry);
+        return tracker;
+    }
+
+    @Bean
+    public FilterRegistrationBean<UserRateLimitFilter> userRateLimitFilter(UserRateLimitProperties properties,
+                                                                          UserClientKeyProperties clientKeyProperties,
+                                                                          DbLatencyTracker dbLatencyTracker,
+                                                                          MeterRegistry meterRegistry) {
+        UserRateLimitFilter filter = new UserRateLimitFilter(
+                limiter("read", properties.read(), properties, dbLatencyTracker, meterRegistry),
+                limiter("write", properties.write(), properties, dbLatencyTracker, meterRegistry),
+                new ClientKeyResolver(clientKeyProperties.header()), meterRegistry);
+        FilterRegistrationBean<UserRateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/users", "/users/*");
+        // Раньше фильтров наблюдения и логирования: отклоненный запрос не должен стоить почти ничего
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    private static RequestLimiter limiter(String kind, UserRateLimitProperties.Limits limits,
+                                          UserRateLimitProperties properties, DbLatencyTracker dbLatencyTracker,
+                                          MeterRegistry meterRegistry) {
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(limits.initialConcurrency(),
+                limits.minConcurrency(), limits.maxConcurrency(), properties.targetDbLatency().toNanos(),
+                dbLatencyTracker, System::nanoTime);
+        Gauge.builder("users.rate_limit.concurrency.limit", concurrencyLimit, AdaptiveConcurrencyLimit::limit)
+                .description("Текущее ограничение числа одновременных запросов")
+                .tag("kind", kind)
+                .register(meterRegistry);
+        Gauge.builder("users.rate_limit.concurrency.in_flight", concurrencyLimit, AdaptiveConcurrencyLimit::inFlight)
+                .description("Запросы, которые обрабатываются сейчас")
+                .tag("kind", kind)
+                .register(meterRegistry);
+        return new RequestLimiter(limits.globalRate(), limits.globalBurst(), limits.clientRate(), limits.clientBurst(),
+                concurrencyLimit, System::nanoTime);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.configuration;
+
+import com.example.datasource.ReadReplica;
+import com.example.datasource.ReadReplicas;
+import com.example.datasource.ReadYourWritesFilter;
+import com.example.datasource.ReplicaRoutingDataSource;
+import com.example.throttling.ClientKeyResolver;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Транзакции только на чтение выполняются на репликах, остальные - на основном сервере (spring.datasource).
+// Оба источника наблюдаются datasource-micrometer (jdbc.query) по отдельности, а routingDataSource исключен из
+// наблюдения (jdbc.excluded-datasource-bean-names): обертка сразу запрашивает метаданные соединения, и выбор
+// сервера происходил бы до того, как известен флаг readOnly транзакции
+@Configuration
+@ConditionalOnProperty(name = "users.read-replicas.enabled", havingValue = "true")
+public class ReadReplicaConfiguration {
+
+    // Тот же пул основного сервера, что Spring Boot создает без реплик
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        if (StringUtils.hasText(properties.getName())) {
+            dataSource.setPoolName(properties.getName());
+        }
+        return dataSource;
+    }
+
+    // Пулы реплик запускаются при первом соединении, поэтому недоступная реплика не мешает запуску сервиса
+    @Bean
+    public ReadReplicas readReplicas(UserReadReplicaProperties properties, DataSourceProperties dataSourceProperties,
+                                     MeterRegistry meterRegistry) {
+        List<UserReadReplicaProperties.Endpoint> endpoints =
+                properties.endpoints() != null ? properties.endpoints() : List.of();
+        List<ReadReplica> replicas = new ArrayList<>();
+        for (int i = 0; i < endpoints.size(); i++) {
+            UserReadReplicaProperties.Endpoint endpoint = endpoints.get(i);
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + (i + 1));
+            pool.setJdbcUrl(endpoint.url());
+            pool.setUsername(endpoint.username() != null ? endpoint.username() : dataSourceProperties.determineUsername());
+            pool.setPassword(endpoint.password() != null ? endpoint.password() : dataSourceProperties.determinePassword());
+            pool.setMaximumPoolSize(properties.maximumPoolSize());
+            // Ожидание соединения с недоступной репликой задерживает запрос перед переходом на основной сервер
+            pool.setConnectionTimeout(properties.connectionTimeout().toMillis());
+            pool.setReadOnly(true);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new ReadReplica(pool.getPoolName(), pool));
+        }
+        ReadReplicas readReplicas = new ReadReplicas(replicas, properties.maxLag(), meterRegistry);
+        readReplicas.start(properties.checkInterval());
+        return readReplicas;
+    }
+
+    // Основной сервер передается без обертки наблюдения - ее получает весь readReplicaDataSource
+    @Bean
+    public DataSource readReplicaDataSource(ReadReplicas readReplicas, @Qualifier("dataSource") DataSource dataSource,
+                                            MeterRegistry meterRegistry) throws SQLException {
+        return new ReplicaRoutingDataSource(readReplicas, dataSource.unwrap(HikariDataSource.class), meterRegistry);
+    }
+
+    // Единственный источник для JPA, Flyway и JdbcTemplate: соединение берется при первом запросе транзакции,
+    // когда флаг readOnly уже установлен
+    @Bean
+    @Primary
+    public DataSource routingDataSource(@Qualifier("dataSource") DataSource dataSource,
+                                        @Qualifier("readReplicaDataSource") DataSource readReplicaDataSource) {
+        LazyConnectionDataSourceProxy routingDataSource = new LazyConnectionDataSourceProxy(dataSource);
+        routingDataSource.setReadOnlyDataSource(readReplicaDataSource);
+        return routingDataSource;
+    }
+
+    // Реплика с допустимым отставанием, проверенная не раньше check-interval назад, содержит все изменения
+    // старше max-lag + check-interval
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(UserReadReplicaProperties properties,
+                                                                            UserClientKeyProperties clientKeyProperties) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(
+                new ReadYourWritesFilter(properties.maxLag().plus(properties.checkInterval()),
+                        new ClientKeyResolver(clientKeyProperties.header())));
+        registration.addUrlPatterns("/users", "/users/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.configuration;
+
+import net.ttddyy.observation.boot.autoconfigure.DataSourceNameResolver;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StartupConfiguration {
+
+    private static boolean isApiDocs(String className) {
+        return className != null && (className.startsWith("org.springdoc.")
+                || className.startsWith(OpenAPIConfig.class.getName()));
+    }
+
+    // Бины springdoc и OpenAPIConfig нужны только для /v3/api-docs и /swagger-ui, поэтому создаются
+    // при первом обращении к документации, а не при запуске. Контроллеры springdoc регистрируются по имени бина
+    // и тоже создаются при первом запросе
+    @Bean
+    public static BeanFactoryPostProcessor lazyApiDocs() {
+        return beanFactory -> {
+            for (String beanName : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+                String factoryBeanName = definition.getFactoryBeanName();
+                String declaringClass = factoryBeanName != null && beanFactory.containsBeanDefinition(factoryBeanName)
+                        ? beanFactory.getBeanDefinition(factoryBeanName).getBeanClassName()
+                        : definition.getBeanClassName();
+                if (isApiDocs(declaringClass)) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    // По умолчанию datasource-micrometer открывает соединение при запуске, чтобы взять имя БД для тега метрик,
+    // и запуск ждет БД (а без нее - таймаута Hikari). Имени бина для тега достаточно
+    @Bean
+    public DataSourceNameResolver dataSourceNameResolver() {
+        return (beanName, dataSource) -> beanName;
+    }
+}
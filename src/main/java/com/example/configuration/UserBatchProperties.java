@@ -0,0 +1,7 @@
+package com.example.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "users.batch")
+public record UserBatchProperties(int chunkSize) {
+}
@@ -0,0 +1,9 @@
+package com.example.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "users.changes")
+public record UserChangeFeedProperties(Duration tombstoneRetention, Duration purgeInterval) {
+}
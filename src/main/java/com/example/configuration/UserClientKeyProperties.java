@@ -0,0 +1,8 @@
+package com.example.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// header - заголовок с ключом клиента от шлюза, пустой - клиент определяется по адресу (см. ClientKeyResolver)
+@ConfigurationProperties(prefix = "users.client-key")
+public record UserClientKeyProperties(String header) {
+}
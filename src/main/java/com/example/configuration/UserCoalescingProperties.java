@@ -0,0 +1,9 @@
+package com.example.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "users.coalescing")
+public record UserCoalescingProperties(boolean enabled, Duration window, int maxBatchSize) {
+}
@@ -0,0 +1,8 @@
+package com.example.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Размер фильтра рассчитывается на expectedEmails адресов; при большем числе растет доля ложных срабатываний
+@ConfigurationProperties(prefix = "users.email-filter")
+public record UserEmailFilterProperties(long expectedEmails, double falsePositiveRate) {
+}
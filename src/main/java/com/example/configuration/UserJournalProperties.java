@@ -0,0 +1,13 @@
+package com.example.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Журнал событий варианта reactive (com.example.journal.SpillJournal): вмещает до segmentSize * maxSegments
+@ConfigurationProperties(prefix = "users.journal")
+public record UserJournalProperties(Path directory, DataSize segmentSize, int maxSegments, int drainBatchSize,
+                                    Duration sendTimeout, Duration retryInterval, Duration idleInterval) {
+}
@@ -0,0 +1,14 @@
+package com.example.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "users.rate-limit")
+public record UserRateLimitProperties(boolean enabled, Duration targetDbLatency, Limits read, Limits write) {
+
+    // globalRate/clientRate - запросов в секунду, burst - сколько запросов можно принять сразу после простоя
+    public record Limits(double globalRate, int globalBurst, double clientRate, int clientBurst,
+                         int initialConcurrency, int minConcurrency, int maxConcurrency) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "users.read-replicas")
+public record UserReadReplicaProperties(boolean enabled, List<Endpoint> endpoints, Duration maxLag,
+                                        Duration checkInterval, int maximumPoolSize, Duration connectionTimeout) {
+
+    // username и password по умолчанию - как у spring.datasource
+    public record Endpoint(String url, String username, String password) {
+    }
+}
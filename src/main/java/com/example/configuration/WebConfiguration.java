@@ -0,0 +1,19 @@
+package com.example.configuration;
+
+import com.example.serialization.UserBinaryHttpMessageConverter;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+    // Добавляется в конец списка: без явного Accept ответы по-прежнему отдаются в JSON
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new UserBinaryHttpMessageConverter());
+    }
+}
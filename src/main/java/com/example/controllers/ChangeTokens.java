@@ -0,0 +1,34 @@
+package com.example.controllers;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+// Метки ленты изменений для клиента непрозрачны: внутри номер изменения (change_seq) в base64url
+final class ChangeTokens {
+
+    private ChangeTokens() {
+    }
+
+    static String of(long changeSeq) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(changeSeq).array());
+    }
+
+    // null - лента с начала
+    static long changeSeq(String token) {
+        if (token == null) {
+            return 0;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректная метка since");
+        }
+        long changeSeq = bytes.length == Long.BYTES ? ByteBuffer.wrap(bytes).getLong() : -1;
+        if (changeSeq < 0) {
+            throw new IllegalArgumentException("Некорректная метка since");
+        }
+        return changeSeq;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.controllers;
+
+import com.example.DTOs.UserImportReport;
+import com.example.bulk.UserBulkFormat;
+import com.example.bulk.UserCopyService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import jakarta.validation.constraints.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+@Validated
+@Tag(name = "Пользователи", description = "Взаимодействие с пользователями")
+@RestController
+@RequestMapping("/users")
+public class UserBulkController {
+
+    private final UserCopyService userCopyService;
+
+    @Autowired
+    public UserBulkController(UserCopyService userCopyService) {
+        this.userCopyService = userCopyService;
+    }
+
+    @Operation(
+            summary = "Массовая выгрузка пользователей",
+            description = "Выгружает всех пользователей через COPY: format=csv - CSV с заголовком " +
+                    "id,name,email,age,created_at, format=ndjson - по одному JSON-объекту на строку"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Выгрузка начата", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Неизвестный формат выгрузки"),
+            @ApiResponse(responseCode = "404", description = "Не используется для метода", content = @Content)}
+    )
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "csv")
+                                                             @Pattern(regexp = "csv|ndjson")
+                                                             @Parameter(description = "Формат выгрузки: csv или ndjson")
+                                                             String format) {
+        UserBulkFormat bulkFormat = UserBulkFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        StreamingResponseBody body = outputStream -> userCopyService.export(bulkFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(bulkFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("users." + format).build().toString())
+                .body(body);
+    }
+
+    @Operation(
+            summary = "Массовая загрузка пользователей",
+            description = "Загружает пользователей из тела запроса потоком через COPY. Content-Type: text/csv - " +
+                    "CSV с заголовком name,email,age[,created_at] (файл выгрузки подходит без изменений), " +
+                    "application/x-ndjson - объекты с полями name, email, age, createdAt. Строки проверяются так же, " +
+                    "как при создании пользователя; строки с ошибками и с уже занятым email пропускаются и " +
+                    "перечисляются в отчете, остальные добавляются одной транзакцией"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Импорт выполнен",
+                    content = @Content(schema = @Schema(implementation = UserImportReport.class))),
+            @ApiResponse(responseCode = "400", description = "Нарушен формат файла, ничего не добавлено"),
+            @ApiResponse(responseCode = "404", description = "Не используется для метода", content = @Content),
+            @ApiResponse(responseCode = "415", description = "Неподдерживаемый Content-Type", content = @Content)}
+    )
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public UserImportReport importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                        InputStream body) throws IOException {
+        return userCopyService.importUsers(UserBulkFormat.of(contentType), body);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String handleMalformedImport(IllegalArgumentException e) {
+        return e.getMessage();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.controllers;
+
+import com.example.DTOs.UserChanges;
+import com.example.services.ChangeTokenExpiredException;
+import com.example.services.UserChangeFeed;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+@Validated
+@Tag(name = "Пользователи", description = "Взаимодействие с пользователями")
+@RestController
+@RequestMapping("/users")
+public class UserChangeFeedController {
+
+    private static final int DEFAULT_LIMIT = 1000;
+
+    private static final int MAX_LIMIT = 10000;
+
+    private final UserChangeFeed userChangeFeed;
+
+    @Autowired
+    public UserChangeFeedController(UserChangeFeed userChangeFeed) {
+        this.userChangeFeed = userChangeFeed;
+    }
+
+    @Operation(
+            summary = "Лента изменений пользователей",
+            description = "Отдает пользователей, созданных, измененных или удаленных после метки since, " +
+                    "в порядке изменений. Без since лента начинается с начала (полная синхронизация). " +
+                    "Метка next из ответа передается в следующий запрос; при hasMore = false изменений пока нет"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Изменения получены",
+                    content = @Content(schema = @Schema(implementation = UserChanges.class))),
+            @ApiResponse(responseCode = "400", description = "Некорректная метка или размер порции"),
+            @ApiResponse(responseCode = "404", description = "Не используется для метода", content = @Content),
+            @ApiResponse(responseCode = "410", description = "Метка устарела, нужна полная синхронизация",
+                    content = @Content)}
+    )
+    @GetMapping("/changes")
+    public UserChanges changes(@RequestParam(required = false)
+                               @Parameter(description = "Метка next из предыдущего ответа")
+                               String since,
+                               @RequestParam(required = false) @Min(1) @Max(MAX_LIMIT)
+                               @Parameter(description = "Размер порции (от 1 до " + MAX_LIMIT + ")")
+                               Integer limit) {
+        UserChangeFeed.Page page = userChangeFeed.changesSince(ChangeTokens.changeSeq(since),
+                limit == null ? DEFAULT_LIMIT : limit);
+        return new UserChanges(page.changes(), ChangeTokens.of(page.next()), page.hasMore());
+    }
+
+    @ExceptionHandler(ChangeTokenExpiredException.class)
+    @ResponseStatus(HttpStatus.GONE)
+    public String handleExpiredToken(ChangeTokenExpiredException e) {
+        return e.getMessage();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String handleMalformedToken(IllegalArgumentException e) {
+        return e.getMessage();
+    }
+}
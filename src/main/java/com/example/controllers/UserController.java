@@ -1,9 +1,15 @@
 package com.example.controllers;
 
 import com.example.DTOs.UserDto;
-import com.example.services.KafkaProducerService;
+import com.example.DTOs.UserReference;
+import com.example.DTOs.UserSearchFilter;
+import com.example.serialization.UserBinaryHttpMessageConverter;
+import com.example.services.UserReadModel;
 import com.example.services.UserService;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -15,19 +21,40 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,14 +65,32 @@ import java.util.Map;
 @RequestMapping("/users")
 public class UserController {
 
-    private final KafkaProducerService kafkaProducerService;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int MAX_BATCH_SIZE = 10000;
 
     private final UserService userService;
 
+    private final ObjectMapper objectMapper;
+
+    private final UserLinks userLinks;
+
+    private final ContentNegotiationManager contentNegotiationManager;
+
+    // Есть только при users.read-model.enabled=true
+    private final UserReadModel readModel;
+
     @Autowired
-    public UserController(UserService userService, KafkaProducerService kafkaProducerService) {
+    public UserController(UserService userService, ObjectMapper objectMapper, UserLinks userLinks,
+                          ContentNegotiationManager contentNegotiationManager,
+                          ObjectProvider<UserReadModel> readModel) {
         this.userService = userService;
-        this.kafkaProducerService = kafkaProducerService;
+        this.objectMapper = objectMapper;
+        this.userLinks = userLinks;
+        this.contentNegotiationManager = contentNegotiationManager;
+        this.readModel = readModel.getIfAvailable();
     }
 
     @Operation(
@@ -60,9 +105,8 @@ public class UserController {
     )
     @PostMapping("/create")
     @ResponseStatus(HttpStatus.CREATED)
-public EntityModel<UserDto> createUser(@Valid @RequestBody UserDto userDto) {
-        kafkaProducerService.sendMessage("actions", "CREATE " + userDto.getEmail());
-        return convertToHateoasEntityModel(userService.create(userDto));
+    public EntityModel<UserDto> createUser(@Valid @RequestBody UserDto userDto) {
+        return userLinks.toModel(userService.create(userDto));
     }
 
     @Operation(
@@ -72,14 +116,34 @@ public EntityModel<UserDto> createUser(@Valid @RequestBody UserDto userDto) {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Пользователь найден",
                     content = @Content(schema = @Schema(implementation = UserDto.class))),
+            @ApiResponse(responseCode = "304", description = "Пользователь не изменился (If-None-Match)",
+                    content = @Content),
             @ApiResponse(responseCode = "400", description = "id должен быть не меньше 1"),
             @ApiResponse(responseCode = "404", description = "Пользователь не найден", content = @Content)}
     )
+    // Для GET с ETag, совпадающим с If-None-Match, Spring отвечает 304 без сериализации тела.
+    // С моделью чтения пользователь берется из памяти, в БД идет только запрос отсутствующего в ней id
     @GetMapping("/{id}")
-    public EntityModel<UserDto> findUserById(@PathVariable @Min(1)
+    public ResponseEntity<EntityModel<UserDto>> findUserById(@PathVariable @Min(1)
                                     @Parameter(description = "Идентификатор пользователя (должен быть не меньше 1)")
                                     Long id) {
-        return convertToHateoasEntityModel(userService.findUserById(id));
+        UserDto userDto = readModel == null ? userService.findUserById(id)
+                : readModel.find(id).orElseGet(() -> userService.findUserById(id));
+        return ResponseEntity.ok().eTag(UserETags.of(userDto, binaryRequested())).varyBy(HttpHeaders.ACCEPT)
+                .body(userLinks.toModel(userDto));
+    }
+
+    // ETag зависит от представления, которое выберет согласование содержимого по Accept, поэтому ответы
+    // с ETag отдаются с Vary: Accept - кэш не подставит JSON вместо двоичного ответа и наоборот
+    private boolean binaryRequested() {
+        ServletRequestAttributes attributes =
+                (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        try {
+            return UserBinaryHttpMessageConverter.isPreferred(
+                    contentNegotiationManager.resolveMediaTypes(new ServletWebRequest(attributes.getRequest())));
+        } catch (HttpMediaTypeNotAcceptableException e) {
+            return false;
+        }
     }
 
     @ExceptionHandler(EntityNotFoundException.class)
@@ -88,44 +152,191 @@ public EntityModel<UserDto> createUser(@Valid @RequestBody UserDto userDto) {
         return "Пользователь не найден";
     }
 
+    // С If-Match клиент явно указал версию, которую изменяет, - 412; без него изменение пересеклось
+    // с параллельным запросом - 409
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException e,
+                                                                 WebRequest request) {
+        HttpStatus status = request.getHeader(HttpHeaders.IF_MATCH) != null
+                ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body("Пользователь был изменен другим запросом");
+    }
+
     @Operation(
             summary = "Получение списка всех пользователей",
-            description = "Позволяет найти всех пользователей"
+            description = "Позволяет получить пользователей постранично: страница начинается после пользователя " +
+                    "с ID = after, ссылка next ведет на следующую страницу"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Список пользователей получен",
                     content = @Content(array = @ArraySchema(schema = @Schema(implementation = UserDto.class)))),
-            @ApiResponse(responseCode = "400", description = "Без параметров"),
+            @ApiResponse(responseCode = "304", description = "Страница не изменилась (If-None-Match)",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Параметры страницы введены некорректно"),
             @ApiResponse(responseCode = "404", description = "Не используется для метода", content = @Content)}
     )
     @GetMapping("/all")
-    public CollectionModel<EntityModel<UserDto>> findAllUsers() {
-        List<EntityModel<UserDto>> userDtoList = userService.findAll().stream()
-                .map(userDto -> EntityModel.of(userDto, linkTo(methodOn(UserController.class)
-                        .findUserById(userDto.getId()))
-                        .withSelfRel()))
-                .toList();
-        Link link = linkTo(methodOn(UserController.class).findAllUsers())
-                .withRel("all-users");
-        return CollectionModel.of(userDtoList, link);
+    public ResponseEntity<CollectionModel<?>> findAllUsers(@RequestParam(required = false) @Min(0)
+                                           @Parameter(description = "ID последнего пользователя предыдущей страницы")
+                                           Long after,
+                                           @RequestParam(required = false) @Min(1) @Max(MAX_PAGE_SIZE)
+                                           @Parameter(description = "Размер страницы (от 1 до " + MAX_PAGE_SIZE + ")")
+                                           Integer size,
+                                           @RequestParam(defaultValue = "false")
+                                           @Parameter(description = "Вернуть только id и версии пользователей, без ссылок")
+                                           boolean compact) {
+        long afterId = after == null ? 0 : after;
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        List<UserDto> page = userService.findPage(afterId, pageSize);
+        List<Link> links = new ArrayList<>();
+        links.add(userLinks.pageLink(after, size, compact, IanaLinkRelations.SELF));
+        links.add(userLinks.pageLink(null, size, compact, UserLinks.ALL_USERS));
+        if (page.size() == pageSize) {
+            links.add(userLinks.pageLink(page.getLast().getId(), size, compact, IanaLinkRelations.NEXT));
+        }
+        CollectionModel<?> body = compact ? CollectionModel.of(toReferences(page), links)
+                : CollectionModel.of(userLinks.toModels(page), links);
+        return ResponseEntity.ok().eTag(UserETags.of(page, binaryRequested())).varyBy(HttpHeaders.ACCEPT).body(body);
+    }
+
+    @Operation(
+            summary = "Потоковая выгрузка всех пользователей",
+            description = "Отдает всех пользователей одним ответом без загрузки таблицы в память: " +
+                    "format=ndjson - по одному JSON-объекту на строку, format=json - JSON-массив"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Выгрузка начата",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = UserDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Неизвестный формат выгрузки"),
+            @ApiResponse(responseCode = "404", description = "Не используется для метода", content = @Content)}
+    )
+    @GetMapping("/all/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers(@RequestParam(defaultValue = "ndjson")
+                                                                @Pattern(regexp = "ndjson|json")
+                                                                @Parameter(description = "Формат выгрузки: ndjson или json")
+                                                                String format) {
+        boolean ndjson = format.equals("ndjson");
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                if (!ndjson) {
+                    generator.writeStartArray();
+                }
+                userService.streamAll(userDto -> {
+                    try {
+                        generator.writeObject(userDto);
+                        if (ndjson) {
+                            generator.writeRaw('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (!ndjson) {
+                    generator.writeEndArray();
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @Operation(
+            summary = "Поиск пользователей",
+            description = "Позволяет найти пользователей по префиксу имени, домену почты и диапазону возраста. " +
+                    "Условия объединяются через AND, sort - список полей через запятую (id, name, email, age), " +
+                    "минус перед полем означает сортировку по убыванию. Ссылка next ведет на следующую страницу"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Список пользователей получен",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = UserDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Параметры поиска введены некорректно"),
+            @ApiResponse(responseCode = "404", description = "Не используется для метода", content = @Content)}
+    )
+    @GetMapping("/search")
+    public CollectionModel<?> searchUsers(@RequestParam(required = false) @Size(min = 1, max = 100)
+                                          @Parameter(description = "Начало имени (без учета регистра)")
+                                          String name,
+                                          @RequestParam(required = false) @Pattern(regexp = "[A-Za-z0-9.-]+")
+                                          @Parameter(description = "Домен почты, например gmail.com")
+                                          String emailDomain,
+                                          @RequestParam(required = false) @Min(0)
+                                          @Parameter(description = "Минимальный возраст (включительно)")
+                                          Integer minAge,
+                                          @RequestParam(required = false) @Min(0)
+                                          @Parameter(description = "Максимальный возраст (включительно)")
+                                          Integer maxAge,
+                                          @RequestParam(defaultValue = "id")
+                                          @Parameter(description = "Поля сортировки, например -age,name")
+                                          List<@Pattern(regexp = "-?(id|name|email|age)") String> sort,
+                                          @RequestParam(defaultValue = "0") @Min(0)
+                                          @Parameter(description = "Номер страницы (с 0)")
+                                          int page,
+                                          @RequestParam(required = false) @Min(1) @Max(MAX_PAGE_SIZE)
+                                          @Parameter(description = "Размер страницы (от 1 до " + MAX_PAGE_SIZE + ")")
+                                          Integer size,
+                                          @RequestParam(defaultValue = "false")
+                                          @Parameter(description = "Вернуть только id и версии пользователей, без ссылок")
+                                          boolean compact) {
+        UserSearchFilter filter = new UserSearchFilter(name, emailDomain, minAge, maxAge);
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        Slice<UserDto> found = userService.search(filter, toSort(sort), page, pageSize);
+        List<Link> links = new ArrayList<>();
+        links.add(userLinks.searchLink(filter, sort, page, size, compact, IanaLinkRelations.SELF));
+        links.add(userLinks.allUsersLink(UserLinks.ALL_USERS));
+        if (found.hasNext()) {
+            links.add(userLinks.searchLink(filter, sort, page + 1, size, compact, IanaLinkRelations.NEXT));
+        }
+        List<UserDto> users = found.getContent();
+        return compact ? CollectionModel.of(toReferences(users), links)
+                : CollectionModel.of(userLinks.toModels(users), links);
+    }
+
+    private static List<UserReference> toReferences(List<UserDto> users) {
+        List<UserReference> references = new ArrayList<>(users.size());
+        for (UserDto userDto : users) {
+            references.add(UserReference.of(userDto));
+        }
+        return references;
+    }
+
+    private static Sort toSort(List<String> fields) {
+        List<Sort.Order> orders = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            orders.add(field.startsWith("-") ? Sort.Order.desc(field.substring(1)) : Sort.Order.asc(field));
+        }
+        return Sort.by(orders);
     }
 
     @Operation(
             summary = "Обновление пользователя",
-            description = "Позволяет обновить информацию о пользователе с заданным ID"
+            description = "Позволяет обновить информацию о пользователе с заданным ID. " +
+                    "С заголовком If-Match обновление выполняется, только если пользователь не изменялся " +
+                    "после получения этого ETag"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Обновление пользователя прошло успешно",
                     content = @Content(schema = @Schema(implementation = UserDto.class))),
             @ApiResponse(responseCode = "400", description = "Данные введены некорректно"),
-            @ApiResponse(responseCode = "404", description = "Пользователь не найден", content = @Content)}
+            @ApiResponse(responseCode = "404", description = "Пользователь не найден", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Пользователь одновременно изменен другим запросом",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "Версия из If-Match устарела", content = @Content)}
     )
     @PutMapping("/update/{id}")
-    public EntityModel<UserDto> updateUser(@PathVariable @Min(1)
+    public ResponseEntity<EntityModel<UserDto>> updateUser(@PathVariable @Min(1)
                                   @Parameter(description = "Идентификатор пользователя (должен быть не меньше 1)")
                                   Long id,
+                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                              @Parameter(description = "ETag пользователя из ответа GET /users/{id}")
+                              String ifMatch,
                               @Valid @RequestBody UserDto userDto) {
-        return convertToHateoasEntityModel(userService.update(id, userDto));
+        Long expectedVersion = ifMatch == null ? null : UserETags.expectedVersion(ifMatch, id);
+        UserDto updatedUser = userService.update(id, userDto, expectedVersion);
+        return ResponseEntity.ok().eTag(UserETags.of(updatedUser, binaryRequested())).varyBy(HttpHeaders.ACCEPT)
+                .body(userLinks.toModel(updatedUser));
     }
 
     @Operation(
@@ -142,23 +353,61 @@ public EntityModel<UserDto> createUser(@Valid @RequestBody UserDto userDto) {
     public void deleteUser(@PathVariable @Min(1)
                                @Parameter(description = "Идентификатор пользователя (должен быть не меньше 1)")
                                Long id) {
-        try {
-            UserDto userDto = userService.findUserById(id);
-            if (userDto != null) {
-                kafkaProducerService.sendMessage("actions", "DELETE " + userDto.getEmail());
-            }
-        } catch (EntityNotFoundException e) {
-            System.out.println("Пользователь не найден, поэтому сообщение не отправлено.");
-        }
         userService.delete(id);
     }
 
-    private EntityModel<UserDto> convertToHateoasEntityModel(UserDto userDto) {
-        Link selfLink = linkTo(methodOn(UserController.class).findUserById(userDto.getId()))
-                .withSelfRel();
-        Link allUsersLink = linkTo(methodOn(UserController.class).findAllUsers())
-                .withRel("all-users");
-        return EntityModel.of(userDto, selfLink, allUsersLink);
+    @Operation(
+            summary = "Пакетное создание пользователей",
+            description = "Позволяет создать до " + MAX_BATCH_SIZE + " пользователей одним запросом. " +
+                    "Все пользователи проверяются до записи, ошибки возвращаются с индексом элемента"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Пользователи успешно созданы",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = UserDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Данные введены некорректно"),
+            @ApiResponse(responseCode = "404", description = "Не используется для метода", content = @Content)}
+    )
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public CollectionModel<EntityModel<UserDto>> createUsers(@RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE)
+                                                             List<@Valid UserDto> userDtos) {
+        return convertToHateoasCollectionModel(userService.createAll(userDtos));
+    }
+
+    @Operation(
+            summary = "Пакетное обновление пользователей",
+            description = "Позволяет обновить до " + MAX_BATCH_SIZE + " пользователей одним запросом, " +
+                    "идентификатор каждого пользователя передается в теле"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Пользователи успешно обновлены",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = UserDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Данные введены некорректно"),
+            @ApiResponse(responseCode = "404", description = "Хотя бы один пользователь не найден", content = @Content)}
+    )
+    @PutMapping("/batch")
+    @Validated(UserDto.Existing.class)
+    public CollectionModel<EntityModel<UserDto>> updateUsers(@RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE)
+                                                             List<@Valid UserDto> userDtos) {
+        return convertToHateoasCollectionModel(userService.updateAll(userDtos));
+    }
+
+    @Operation(
+            summary = "Пакетное удаление пользователей",
+            description = "Позволяет удалить до " + MAX_BATCH_SIZE + " пользователей одним запросом"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Удаление пользователей прошло успешно", content = @Content),
+            @ApiResponse(responseCode = "400", description = "id должны быть не меньше 1"),
+            @ApiResponse(responseCode = "404", description = "Не используется для метода", content = @Content)}
+    )
+    @DeleteMapping("/batch")
+    public void deleteUsers(@RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<@NotNull @Min(1) Long> ids) {
+        userService.deleteAll(ids);
+    }
+
+    private CollectionModel<EntityModel<UserDto>> convertToHateoasCollectionModel(List<UserDto> userDtos) {
+        return CollectionModel.of(userLinks.toModels(userDtos), userLinks.allUsersLink(UserLinks.ALL_USERS));
     }
 
     @Operation(
@@ -176,6 +425,10 @@ public EntityModel<UserDto> createUser(@Valid @RequestBody UserDto userDto) {
         Map<String, String> methods = new HashMap<>();
         methods.put("find_user_by_id", Link.of("/users/{id}").getHref());
         methods.put("find_all_users", Link.of("/users/all").getHref());
+        methods.put("stream_all_users", Link.of("/users/all/stream").getHref());
+        methods.put("search_users", Link.of("/users/search").getHref());
+        methods.put("export_users", Link.of("/users/export").getHref());
+        methods.put("user_changes", Link.of("/users/changes").getHref());
         return methods;
     }
 }
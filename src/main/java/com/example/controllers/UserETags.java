@@ -0,0 +1,57 @@
+package com.example.controllers;
+
+import com.example.DTOs.UserDto;
+
+import java.util.List;
+
+// Сильные ETag пользователей: "<id>.<version>" для одного пользователя и хэш id/версий для страницы списка.
+// Вычисляются из DTO (в том числе из кэша), поэтому ответ 304 не требует ни чтения из БД, ни сериализации.
+// Тела JSON и application/x-users-binary различаются, поэтому у двоичного представления ETag с суффиксом
+final class UserETags {
+
+    private static final String BINARY_SUFFIX = "-bin";
+
+    private UserETags() {
+    }
+
+    static String of(UserDto userDto, boolean binary) {
+        return "\"" + userDto.getId() + "." + userDto.getVersion() + suffix(binary) + "\"";
+    }
+
+    // Меняется при добавлении, удалении или изменении любого пользователя страницы
+    static String of(List<UserDto> page, boolean binary) {
+        long hash = 1;
+        for (UserDto userDto : page) {
+            hash = 31 * hash + userDto.getId();
+            hash = 31 * hash + (userDto.getVersion() == null ? 0 : userDto.getVersion());
+        }
+        return "\"" + page.size() + "-" + Long.toHexString(hash) + suffix(binary) + "\"";
+    }
+
+    private static String suffix(boolean binary) {
+        return binary ? BINARY_SUFFIX : "";
+    }
+
+    // Версия из заголовка If-Match: null для "*" (подходит любая версия), -1 если ETag не относится
+    // к пользователю с этим id или слабый - сильное сравнение с ним всегда неуспешно
+    static Long expectedVersion(String ifMatch, long id) {
+        String etag = ifMatch.trim();
+        if (etag.equals("*")) {
+            return null;
+        }
+        String prefix = "\"" + id + ".";
+        if (!etag.startsWith(prefix) || !etag.endsWith("\"")) {
+            return -1L;
+        }
+        // Версия одна для обоих представлений
+        int end = etag.endsWith(BINARY_SUFFIX + "\"") ? etag.length() - 1 - BINARY_SUFFIX.length() : etag.length() - 1;
+        if (end <= prefix.length()) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(etag, prefix.length(), end, 10);
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+}
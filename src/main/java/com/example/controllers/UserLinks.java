@@ -0,0 +1,122 @@
+package com.example.controllers;
+
+import com.example.DTOs.UserDto;
+import com.example.DTOs.UserSearchFilter;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.lang.reflect.AnnotatedElement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Замена linkTo(methodOn(UserController.class)...): пути берутся из маппингов UserController один раз при старте,
+// базовый URI вычисляется один раз на запрос, а ссылка на пользователя собирается конкатенацией строк
+// без CGLIB-прокси и повторного разбора маппингов
+@Component
+public class UserLinks {
+
+    public static final LinkRelation ALL_USERS = LinkRelation.of("all-users");
+
+    private static final String BASE_URI_ATTRIBUTE = UserLinks.class.getName() + ".baseUri";
+
+    private final String userPathPrefix;
+
+    private final String allUsersPath;
+
+    private final String searchPath;
+
+    public UserLinks() {
+        String controllerPath = mappingPath(UserController.class);
+        String userPath = controllerPath + mappingPath(ReflectionUtils.findMethod(UserController.class,
+                "findUserById", Long.class));
+        this.userPathPrefix = userPath.substring(0, userPath.indexOf('{'));
+        this.allUsersPath = controllerPath + mappingPath(ReflectionUtils.findMethod(UserController.class,
+                "findAllUsers", Long.class, Integer.class, boolean.class));
+        this.searchPath = controllerPath + mappingPath(ReflectionUtils.findMethod(UserController.class,
+                "searchUsers", (Class<?>[]) null));
+    }
+
+    private static String mappingPath(AnnotatedElement element) {
+        RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(element, RequestMapping.class);
+        if (mapping == null || mapping.path().length == 0) {
+            throw new IllegalStateException("Не найден путь маппинга для " + element);
+        }
+        return mapping.path()[0];
+    }
+
+    private String baseUri() {
+        RequestAttributes attributes = RequestContextHolder.currentRequestAttributes();
+        String baseUri = (String) attributes.getAttribute(BASE_URI_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (baseUri == null) {
+            baseUri = ServletUriComponentsBuilder.fromCurrentContextPath().toUriString();
+            attributes.setAttribute(BASE_URI_ATTRIBUTE, baseUri, RequestAttributes.SCOPE_REQUEST);
+        }
+        return baseUri;
+    }
+
+    public Link userLink(Long id) {
+        return Link.of(baseUri() + userPathPrefix + id);
+    }
+
+    public Link allUsersLink(LinkRelation relation) {
+        return Link.of(baseUri() + allUsersPath, relation);
+    }
+
+    public Link pageLink(Long after, Integer size, boolean compact, LinkRelation relation) {
+        StringBuilder href = new StringBuilder(baseUri()).append(allUsersPath);
+        char separator = '?';
+        if (after != null) {
+            href.append(separator).append("after=").append(after);
+            separator = '&';
+        }
+        if (size != null) {
+            href.append(separator).append("size=").append(size);
+            separator = '&';
+        }
+        if (compact) {
+            href.append(separator).append("compact=true");
+        }
+        return Link.of(href.toString(), relation);
+    }
+
+    public Link searchLink(UserSearchFilter filter, List<String> sort, int page, Integer size, boolean compact,
+                           LinkRelation relation) {
+        UriComponentsBuilder href = UriComponentsBuilder.fromUriString(baseUri() + searchPath)
+                .queryParamIfPresent("name", Optional.ofNullable(filter.namePrefix()))
+                .queryParamIfPresent("emailDomain", Optional.ofNullable(filter.emailDomain()))
+                .queryParamIfPresent("minAge", Optional.ofNullable(filter.minAge()))
+                .queryParamIfPresent("maxAge", Optional.ofNullable(filter.maxAge()))
+                .queryParam("sort", String.join(",", sort))
+                .queryParam("page", page)
+                .queryParamIfPresent("size", Optional.ofNullable(size));
+        if (compact) {
+            href.queryParam("compact", true);
+        }
+        return Link.of(href.build().encode().toUriString(), relation);
+    }
+
+    public EntityModel<UserDto> toModel(UserDto userDto) {
+        return EntityModel.of(userDto, userLink(userDto.getId()), allUsersLink(ALL_USERS));
+    }
+
+    public List<EntityModel<UserDto>> toModels(List<UserDto> userDtos) {
+        String userHrefPrefix = baseUri() + userPathPrefix;
+        List<EntityModel<UserDto>> models = new ArrayList<>(userDtos.size());
+        for (UserDto userDto : userDtos) {
+            models.add(EntityModel.of(userDto, Link.of(userHrefPrefix + userDto.getId(), IanaLinkRelations.SELF)));
+        }
+        return models;
+    }
+}
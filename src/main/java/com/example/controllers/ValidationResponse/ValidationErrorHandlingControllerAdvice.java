@@ -1,6 +1,8 @@
 package com.example.controllers.ValidationResponse;
 
 
+import com.example.services.DuplicateEmailException;
+
 import jakarta.validation.ConstraintViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -8,6 +10,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 import java.util.List;
 
@@ -33,4 +36,21 @@ public class ValidationErrorHandlingControllerAdvice {
                 .toList();
         return new ValidationErrorResponse(violations);
     }
+
+    @ResponseBody
+    @ExceptionHandler(DuplicateEmailException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ValidationErrorResponse onDuplicateEmailException(DuplicateEmailException e) {
+        return new ValidationErrorResponse(e.getViolations());
+    }
+
+    @ResponseBody
+    @ExceptionHandler(WebExchangeBindException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ValidationErrorResponse onWebExchangeBindException(WebExchangeBindException e) {
+        final List<Violation> violations = e.getBindingResult().getFieldErrors().stream()
+                .map(error -> new Violation(error.getField(), error.getDefaultMessage()))
+                .toList();
+        return new ValidationErrorResponse(violations);
+    }
 }
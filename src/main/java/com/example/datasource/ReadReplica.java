@@ -0,0 +1,96 @@
+package com.example.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+// Одна реплика: пул соединений и результат последней проверки. Реплика считается недоступной до первой
+// успешной проверки, после ошибки соединения и при отставании больше допустимого
+@Slf4j
+public class ReadReplica {
+
+    // Отставание воспроизведения WAL в секундах: 0, если реплика получила и применила весь WAL (или сервер
+    // не в режиме восстановления - отдельный экземпляр вместо реплики), NULL - реплика еще ничего не применила
+    static final String LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() " +
+            "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE extract(epoch FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    private final String name;
+
+    private final DataSource dataSource;
+
+    private volatile boolean available;
+
+    private volatile double lagSeconds = Double.NaN;
+
+    public ReadReplica(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    // NaN - отставание неизвестно (реплика не отвечает)
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+
+    Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    void check(Duration maxLag) {
+        double lag;
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+            resultSet.next();
+            lag = resultSet.getDouble(1);
+            if (resultSet.wasNull()) {
+                lag = Double.POSITIVE_INFINITY;
+            }
+        } catch (SQLException e) {
+            markUnavailable(e);
+            return;
+        }
+        lagSeconds = lag;
+        boolean caughtUp = lag * 1000 <= maxLag.toMillis();
+        if (caughtUp != available) {
+            if (caughtUp) {
+                log.info("Реплика {} доступна для чтения, отставание {} с", name, lag);
+            } else {
+                log.warn("Реплика {} отстает на {} с (допустимо {}), чтение идет на другие серверы", name, lag, maxLag);
+            }
+        }
+        available = caughtUp;
+    }
+
+    void markUnavailable(SQLException e) {
+        lagSeconds = Double.NaN;
+        if (available) {
+            log.warn("Реплика {} недоступна, чтение идет на другие серверы: {}", name, e.getMessage());
+        }
+        available = false;
+    }
+
+    void close() {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Не удалось закрыть пул соединений реплики {}", name, e);
+            }
+        }
+    }
+}
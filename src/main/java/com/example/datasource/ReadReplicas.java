@@ -0,0 +1,86 @@
+package com.example.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Набор реплик с периодической проверкой доступности и отставания. Проверки идут в собственном потоке, а не
+// в общем планировщике: там OutboxRelay может ждать kafka до max.block.ms, и недоступная реплика оставалась бы
+// в работе все это время
+@Slf4j
+public class ReadReplicas implements AutoCloseable {
+
+    private final List<ReadReplica> replicas;
+
+    private final Duration maxLag;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final ScheduledExecutorService checker =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("replica-check").factory());
+
+    public ReadReplicas(List<ReadReplica> replicas, Duration maxLag, MeterRegistry meterRegistry) {
+        this.replicas = List.copyOf(replicas);
+        this.maxLag = maxLag;
+        for (ReadReplica replica : this.replicas) {
+            Gauge.builder("users.db.replica.lag", replica, ReadReplica::getLagSeconds)
+                    .description("Отставание реплики при последней проверке")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.getName())
+                    .register(meterRegistry);
+            Gauge.builder("users.db.replica.available", replica, r -> r.isAvailable() ? 1 : 0)
+                    .description("1 - реплика принимает чтение, 0 - недоступна или отстает больше допустимого")
+                    .tag("replica", replica.getName())
+                    .register(meterRegistry);
+        }
+    }
+
+    public List<ReadReplica> getReplicas() {
+        return replicas;
+    }
+
+    public void start(Duration checkInterval) {
+        checker.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void check() {
+        for (ReadReplica replica : replicas) {
+            try {
+                replica.check(maxLag);
+            } catch (RuntimeException e) {
+                log.warn("Не удалось проверить реплику {}", replica.getName(), e);
+            }
+        }
+    }
+
+    // Доступные реплики по кругу: каждый вызов начинает со следующей
+    List<ReadReplica> candidates() {
+        int size = replicas.size();
+        if (size == 0) {
+            return List.of();
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        List<ReadReplica> candidates = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ReadReplica replica = replicas.get((start + i) % size);
+            if (replica.isAvailable()) {
+                candidates.add(replica);
+            }
+        }
+        return candidates;
+    }
+
+    @Override
+    public void close() {
+        checker.shutdownNow();
+        replicas.forEach(ReadReplica::close);
+    }
+}
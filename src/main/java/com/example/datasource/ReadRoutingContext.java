@@ -0,0 +1,23 @@
+package com.example.datasource;
+
+// Привязанный к потоку запроса признак "читать с основного сервера" (клиент только что изменял данные).
+// Устанавливается ReadYourWritesFilter, проверяется ReplicaRoutingDataSource при выборе соединения
+public final class ReadRoutingContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private ReadRoutingContext() {
+    }
+
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+
+    static void requirePrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    static void clear() {
+        PRIMARY_REQUIRED.remove();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.datasource;
+
+import com.example.throttling.ClientKeyResolver;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+// Чтение своих записей: после запроса на изменение клиент (определяется так же, как в ограничении нагрузки) в течение
+// stickiness читает с основного сервера, пока реплики не получат его изменения. Клиенты помнятся только
+// этим экземпляром сервиса
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    private final ClientKeyResolver clientKeyResolver;
+
+    public ReadYourWritesFilter(Duration stickiness, ClientKeyResolver clientKeyResolver) {
+        this.clientKeyResolver = clientKeyResolver;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickiness)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String client = clientKeyResolver.resolve(request);
+        if (recentWriters.getIfPresent(client) != null) {
+            ReadRoutingContext.requirePrimary();
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadRoutingContext.clear();
+            // Отсчет идет от завершения записи, то есть от коммита
+            if (!isRead(request)) {
+                recentWriters.put(client, Boolean.TRUE);
+            }
+        }
+    }
+}
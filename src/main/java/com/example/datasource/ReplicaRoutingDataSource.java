@@ -0,0 +1,70 @@
+package com.example.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+// Соединения для транзакций только на чтение (LazyConnectionDataSourceProxy.setReadOnlyDataSource): доступные
+// реплики по очереди. Клиент, который только что изменял данные, и чтение без доступных реплик идут на основной
+// сервер; реплика, не выдавшая соединение, исключается до следующей успешной проверки
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final ReadReplicas replicas;
+
+    private final DataSource primary;
+
+    private final Map<ReadReplica, Counter> replicaReads = new HashMap<>();
+
+    private final Counter readYourWrites;
+
+    private final Counter noReplica;
+
+    public ReplicaRoutingDataSource(ReadReplicas replicas, DataSource primary, MeterRegistry meterRegistry) {
+        this.replicas = replicas;
+        this.primary = primary;
+        for (ReadReplica replica : replicas.getReplicas()) {
+            replicaReads.put(replica, reads(replica.getName(), "balanced", meterRegistry));
+        }
+        this.readYourWrites = reads("primary", "read_your_writes", meterRegistry);
+        this.noReplica = reads("primary", "no_replica", meterRegistry);
+    }
+
+    // target - сервер, на котором выполнена транзакция чтения, reason - почему выбран он
+    private static Counter reads(String target, String reason, MeterRegistry meterRegistry) {
+        return Counter.builder("users.db.reads")
+                .description("Транзакции только на чтение по серверам БД")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (ReadRoutingContext.isPrimaryRequired()) {
+            readYourWrites.increment();
+            return primary.getConnection();
+        }
+        for (ReadReplica replica : replicas.candidates()) {
+            try {
+                Connection connection = replica.getConnection();
+                replicaReads.get(replica).increment();
+                return connection;
+            } catch (SQLException e) {
+                replica.markUnavailable(e);
+            }
+        }
+        noReplica.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) {
+        throw new UnsupportedOperationException("Реплики используют учетные данные из users.read-replicas");
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.journal;
+
+import com.example.services.KafkaProducerService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Отправляет сообщения журнала в kafka порциями в порядке записи в собственном потоке: пока брокер недоступен,
+// KafkaProducer ждет метаданные до max.block.ms здесь, а не в потоках запросов. Отметка отправленного сдвигается
+// после подтверждения всей порции; при ошибке порция отправляется заново с первого неподтвержденного сообщения,
+// поэтому сообщение может прийти повторно (как и из outbox - at-least-once)
+@Slf4j
+public class JournalDrainer implements AutoCloseable {
+
+    private final SpillJournal journal;
+
+    private final KafkaProducerService kafkaProducerService;
+
+    private final int batchSize;
+
+    private final Duration sendTimeout;
+
+    private final Duration retryInterval;
+
+    private final Duration idleInterval;
+
+    private final Thread drainer;
+
+    private volatile boolean running = true;
+
+    // Время записи первого неотправленного сообщения, 0 - отправлено все прочитанное
+    private volatile long oldestPendingAt;
+
+    public JournalDrainer(SpillJournal journal, KafkaProducerService kafkaProducerService, int batchSize,
+                          Duration sendTimeout, Duration retryInterval, Duration idleInterval) {
+        this.journal = journal;
+        this.kafkaProducerService = kafkaProducerService;
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+        this.retryInterval = retryInterval;
+        this.idleInterval = idleInterval;
+        this.drainer = Thread.ofPlatform().daemon().name("journal-drainer").unstarted(this::drainLoop);
+    }
+
+    public void start() {
+        drainer.start();
+    }
+
+    // Сколько секунд ждет отправки самое старое сообщение журнала
+    public double lagSeconds() {
+        long oldest = oldestPendingAt;
+        return oldest == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest) / 1000.0;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        drainer.interrupt();
+        try {
+            drainer.join(sendTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            List<JournalEntry> batch = journal.read(batchSize);
+            if (batch.isEmpty()) {
+                oldestPendingAt = 0;
+                LockSupport.parkNanos(idleInterval.toNanos());
+                continue;
+            }
+            oldestPendingAt = batch.getFirst().appendedAt();
+            if (!drain(batch)) {
+                journal.rewind();
+                LockSupport.parkNanos(retryInterval.toNanos());
+            }
+        }
+    }
+
+    // true - все сообщения порции подтверждены и отмечены отправленными
+    boolean drain(List<JournalEntry> batch) {
+        List<CompletableFuture<?>> sent = new ArrayList<>(batch.size());
+        try {
+            for (JournalEntry entry : batch) {
+                CompletableFuture<?> future = kafkaProducerService.send(entry.topic(), entry.key(), entry.payload());
+                sent.add(future);
+                // Брокер недоступен: остальные сообщения порции ждали бы метаданные по max.block.ms каждое
+                if (future.isCompletedExceptionally()) {
+                    break;
+                }
+            }
+            CompletableFuture.allOf(sent.toArray(CompletableFuture[]::new))
+                    .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            markConfirmed(batch, sent);
+            return false;
+        } catch (Exception e) {
+            markConfirmed(batch, sent);
+            if (running) {
+                log.warn("Не удалось отправить сообщения журнала, повтор через {} ({} сообщений ожидают отправки)",
+                        retryInterval, journal.pending());
+            }
+            return false;
+        }
+        journal.markDrained(batch.getLast().position(), batch.size());
+        return true;
+    }
+
+    // Подтвержденное начало порции не отправляется повторно
+    private void markConfirmed(List<JournalEntry> batch, List<CompletableFuture<?>> sent) {
+        int confirmed = 0;
+        while (confirmed < sent.size() && sent.get(confirmed).isDone()
+                && !sent.get(confirmed).isCompletedExceptionally()) {
+            confirmed++;
+        }
+        if (confirmed > 0) {
+            journal.markDrained(batch.get(confirmed - 1).position(), confirmed);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.journal;
+
+// position - позиция сразу после сообщения в журнале (передается в SpillJournal.markDrained)
+public record JournalEntry(String topic, String key, byte[] payload, long appendedAt, long position) {
+}
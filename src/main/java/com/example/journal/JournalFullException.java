@@ -0,0 +1,10 @@
+package com.example.journal;
+
+// Все сегменты журнала заняты неотправленными сообщениями: kafka недоступна дольше, чем журнал может вместить
+public class JournalFullException extends RuntimeException {
+
+    public JournalFullException(int segments, int segmentSize) {
+        super("Журнал заполнен: " + segments + " сегментов по " + segmentSize + " байт ожидают отправки в kafka",
+                null, false, false);
+    }
+}
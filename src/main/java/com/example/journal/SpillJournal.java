@@ -0,0 +1,370 @@
+package com.example.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Локальный журнал сообщений для kafka: отправитель дописывает сообщение в файл, отображенный в память, и не ждет
+// брокер; JournalDrainer отправляет сообщения в порядке записи и сдвигает отметку отправленного.
+// Журнал - последовательность сегментов фиксированного размера (имя файла - позиция начала сегмента), число
+// сегментов ограничено maxSegments; сегмент удаляется, когда все его сообщения отправлены.
+// Пишет один поток: append кладет сообщение в неблокирующую очередь, поток записи переносит его в сегмент и
+// завершает future. Запись сообщения: длина (int), CRC32C (int), время записи (long), тело; длина пишется последней
+// (release), поэтому ненулевая длина означает полностью записанное сообщение. После падения процесса все
+// записанные сообщения остаются в page cache; при сбое ОС может потеряться хвост, еще не сброшенный на диск,
+// - такое сообщение не проходит проверку CRC и отбрасывается при открытии вместе со всем, что после него
+@Slf4j
+public final class SpillJournal implements AutoCloseable {
+
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    static final String DRAINED_FILE = "drained.position";
+
+    static final int HEADER_SIZE = 16;
+
+    private static final int ALIGNMENT = 8;
+
+    // Конец сообщений в сегменте, следующее - в начале следующего сегмента
+    private static final int PADDING = -1;
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private record Append(byte[] body, long appendedAt, CompletableFuture<Void> future) {
+    }
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final int maxSegments;
+
+    private final ConcurrentSkipListMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+
+    private final MappedByteBuffer drained;
+
+    private final ConcurrentLinkedQueue<Append> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong pending = new AtomicLong();
+
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    private volatile long writePosition;
+
+    private volatile long drainedPosition;
+
+    // Изменяет только поток записи
+    private long writeBase;
+
+    private MappedByteBuffer writeSegment;
+
+    private int writeOffset;
+
+    // Изменяет только поток, читающий журнал (JournalDrainer)
+    private long readPosition;
+
+    private SpillJournal(Path directory, int segmentSize, int maxSegments) throws IOException {
+        if (segmentSize < HEADER_SIZE * 2 || maxSegments < 1) {
+            throw new IllegalArgumentException("Некорректный размер журнала: сегмент " + segmentSize
+                    + " байт, сегментов " + maxSegments);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize - segmentSize % ALIGNMENT;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+        this.drained = map(directory.resolve(DRAINED_FILE), Long.BYTES);
+        recover();
+        this.writer = Thread.ofPlatform().daemon().name("journal-writer").start(this::writeLoop);
+    }
+
+    public static SpillJournal open(Path directory, int segmentSize, int maxSegments) throws IOException {
+        return new SpillJournal(directory, segmentSize, maxSegments);
+    }
+
+    // Future завершается в потоке записи, когда сообщение в журнале, или с JournalFullException, если места нет.
+    // Продолжения нужно переносить в другой поток, иначе они задерживают запись следующих сообщений
+    public CompletableFuture<Void> append(String topic, String key, byte[] payload) {
+        byte[] body = encode(topic, key, payload);
+        if (frameSize(body.length) > segmentSize) {
+            throw new IllegalArgumentException("Сообщение размером " + body.length + " байт больше сегмента журнала");
+        }
+        Append append = new Append(body, System.currentTimeMillis(), new CompletableFuture<>());
+        queue.offer(append);
+        // Поток записи мог завершиться, не увидев сообщение
+        if (!running && queue.remove(append)) {
+            append.future().completeExceptionally(new IllegalStateException("Журнал закрыт"));
+        }
+        LockSupport.unpark(writer);
+        return append.future();
+    }
+
+    // Следующие не больше max сообщений после прочитанных; вызывается только из одного потока
+    public List<JournalEntry> read(int max) {
+        List<JournalEntry> entries = new ArrayList<>();
+        while (entries.size() < max) {
+            Map.Entry<Long, MappedByteBuffer> segment = segments.floorEntry(readPosition);
+            if (segment == null) {
+                break;
+            }
+            MappedByteBuffer buffer = segment.getValue();
+            int offset = (int) (readPosition - segment.getKey());
+            int length = offset + HEADER_SIZE <= buffer.capacity() ? (int) INT.getAcquire(buffer, offset) : PADDING;
+            if (length == 0) {
+                break;
+            }
+            if (length == PADDING) {
+                long next = segment.getKey() + buffer.capacity();
+                if (!segments.containsKey(next)) {
+                    break;
+                }
+                readPosition = next;
+                continue;
+            }
+            readPosition += frameSize(length);
+            entries.add(decode(buffer, offset, length, readPosition));
+        }
+        return entries;
+    }
+
+    // Чтение продолжится с первого неотправленного сообщения
+    public void rewind() {
+        readPosition = drainedPosition;
+    }
+
+    // Сообщения до position (JournalEntry.position последнего отправленного) отправлены в kafka
+    public void markDrained(long position, int count) {
+        drained.putLong(0, position);
+        drainedPosition = position;
+        pending.addAndGet(-count);
+        for (Map.Entry<Long, MappedByteBuffer> segment : segments.headMap(position).entrySet()) {
+            if (segment.getKey() + segment.getValue().capacity() > position) {
+                break;
+            }
+            segments.remove(segment.getKey());
+            try {
+                Files.deleteIfExists(segmentPath(segment.getKey()));
+            } catch (IOException e) {
+                log.warn("Не удалось удалить отправленный сегмент журнала {}", segmentPath(segment.getKey()), e);
+            }
+        }
+    }
+
+    // Байт журнала, еще не отправленных в kafka
+    public long depth() {
+        return writePosition - drainedPosition;
+    }
+
+    // Сообщений, еще не отправленных в kafka
+    public long pending() {
+        return pending.get();
+    }
+
+    public int segments() {
+        return segments.size();
+    }
+
+    // Сообщения, уже принятые append, записываются до остановки потока записи
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            Append append = queue.poll();
+            if (append == null) {
+                if (!running) {
+                    return;
+                }
+                LockSupport.park(this);
+                continue;
+            }
+            try {
+                write(append);
+                append.future().complete(null);
+            } catch (IOException | RuntimeException e) {
+                append.future().completeExceptionally(e);
+            }
+        }
+    }
+
+    private void write(Append append) throws IOException {
+        byte[] body = append.body();
+        int frame = frameSize(body.length);
+        if (writeOffset + frame > writeSegment.capacity()) {
+            if (segments.size() >= maxSegments) {
+                throw new JournalFullException(segments.size(), segmentSize);
+            }
+            // Следующий сегмент виден читающему потоку раньше отметки конца текущего
+            long nextBase = writeBase + writeSegment.capacity();
+            MappedByteBuffer next = createSegment(nextBase);
+            if (writeOffset + HEADER_SIZE <= writeSegment.capacity()) {
+                INT.setRelease(writeSegment, writeOffset, PADDING);
+            }
+            writeBase = nextBase;
+            writeSegment = next;
+            writeOffset = 0;
+        }
+        writeSegment.putLong(writeOffset + 8, append.appendedAt());
+        writeSegment.put(writeOffset + HEADER_SIZE, body);
+        writeSegment.putInt(writeOffset + 4, checksum(writeSegment, writeOffset, body.length));
+        pending.incrementAndGet();
+        INT.setRelease(writeSegment, writeOffset, body.length);
+        writeOffset += frame;
+        writePosition = writeBase + writeOffset;
+    }
+
+    // Сегменты после отметки отправленного проверяются по CRC; запись продолжается после последнего целого сообщения
+    private void recover() throws IOException {
+        long position = drained.getLong(0);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            if (base + Files.size(file) <= position) {
+                Files.delete(file);
+            } else {
+                segments.put(base, map(file, (int) Files.size(file)));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(position, createSegment(position));
+        }
+        position = Math.max(position, segments.firstKey());
+        long count = 0;
+        while (true) {
+            Map.Entry<Long, MappedByteBuffer> segment = segments.floorEntry(position);
+            MappedByteBuffer buffer = segment.getValue();
+            int offset = (int) (position - segment.getKey());
+            int length = offset + HEADER_SIZE <= buffer.capacity() ? buffer.getInt(offset) : PADDING;
+            if (length == PADDING && segments.containsKey(segment.getKey() + buffer.capacity())) {
+                position = segment.getKey() + buffer.capacity();
+                continue;
+            }
+            writeBase = segment.getKey();
+            writeSegment = buffer;
+            if (length == PADDING) {
+                writeOffset = buffer.capacity();
+                break;
+            }
+            writeOffset = offset;
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || offset + frameSize(length) > buffer.capacity()
+                    || buffer.getInt(offset + 4) != checksum(buffer, offset, length)) {
+                log.warn("Журнал {}: поврежденное сообщение в позиции {}, хвост журнала отброшен", directory, position);
+                truncate(buffer, offset);
+                break;
+            }
+            count++;
+            position += frameSize(length);
+        }
+        for (Long base : segments.tailMap(writeBase, false).keySet()) {
+            segments.remove(base);
+            Files.deleteIfExists(segmentPath(base));
+        }
+        writePosition = writeBase + writeOffset;
+        drainedPosition = Math.min(Math.max(drained.getLong(0), segments.firstKey()), writePosition);
+        readPosition = drainedPosition;
+        pending.set(count);
+        if (count > 0) {
+            log.info("Журнал {}: {} неотправленных сообщений", directory, count);
+        }
+    }
+
+    private static void truncate(MappedByteBuffer buffer, int offset) {
+        for (int i = offset; i < buffer.capacity(); i += Long.BYTES) {
+            buffer.putLong(i, 0);
+        }
+    }
+
+    private MappedByteBuffer createSegment(long base) throws IOException {
+        MappedByteBuffer buffer = map(segmentPath(base), segmentSize);
+        segments.put(base, buffer);
+        return buffer;
+    }
+
+    private Path segmentPath(long base) {
+        return directory.resolve(String.format("%020d%s", base, SEGMENT_SUFFIX));
+    }
+
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    // Время записи и тело сообщения
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset + 8, 8 + length));
+        return (int) crc.getValue();
+    }
+
+    private static int frameSize(int length) {
+        return (HEADER_SIZE + length + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    // Тело: topic (длина short), ключ (длина int, -1 - без ключа), сообщение до конца
+    private static byte[] encode(String topic, String key, byte[] payload) {
+        byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+        byte[] keyBytes = key != null ? key.getBytes(StandardCharsets.UTF_8) : null;
+        ByteBuffer body = ByteBuffer.allocate(Short.BYTES + topicBytes.length + Integer.BYTES
+                + (keyBytes != null ? keyBytes.length : 0) + payload.length);
+        body.putShort((short) topicBytes.length).put(topicBytes);
+        body.putInt(keyBytes != null ? keyBytes.length : -1);
+        if (keyBytes != null) {
+            body.put(keyBytes);
+        }
+        return body.put(payload).array();
+    }
+
+    private static JournalEntry decode(ByteBuffer buffer, int offset, int length, long position) {
+        ByteBuffer body = buffer.slice(offset + HEADER_SIZE, length);
+        byte[] topic = new byte[body.getShort()];
+        body.get(topic);
+        int keyLength = body.getInt();
+        String key = null;
+        if (keyLength >= 0) {
+            byte[] keyBytes = new byte[keyLength];
+            body.get(keyBytes);
+            key = new String(keyBytes, StandardCharsets.UTF_8);
+        }
+        byte[] payload = new byte[body.remaining()];
+        body.get(payload);
+        return new JournalEntry(new String(topic, StandardCharsets.UTF_8), key, payload,
+                buffer.getLong(offset + 8), position);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.mappers;
+
+import com.example.DTOs.UserDto;
+import com.example.models.User;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Явное копирование полей вместо BeanUtils.copyProperties: без интроспекции и рефлексии,
+// единственный создаваемый объект - результат преобразования
+@Component
+public class UserMapper {
+
+    public UserDto toDto(User user) {
+        return new UserDto(user.getId(), user.getName(), user.getEmail(), user.getAge(), user.getVersion());
+    }
+
+    public List<UserDto> toDtoList(List<User> users) {
+        List<UserDto> userDtos = new ArrayList<>(users.size());
+        for (User user : users) {
+            userDtos.add(toDto(user));
+        }
+        return userDtos;
+    }
+
+    // Идентификатор из DTO игнорируется, его назначает БД
+    public User toEntity(UserDto userDto) {
+        User user = new User();
+        user.setName(userDto.getName());
+        user.setEmail(userDto.getEmail());
+        user.setAge(userDto.getAge());
+        return user;
+    }
+
+    // Частичное обновление: поля, не переданные в DTO (null), сохраняют текущее значение
+    public void updateEntity(UserDto userDto, User user) {
+        if (userDto.getName() != null) {
+            user.setName(userDto.getName());
+        }
+        if (userDto.getEmail() != null) {
+            user.setEmail(userDto.getEmail());
+        }
+        user.setAge(userDto.getAge());
+    }
+}
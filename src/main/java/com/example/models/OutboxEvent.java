@@ -0,0 +1,47 @@
+package com.example.models;
+
+import jakarta.persistence.*;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+@Entity
+@Table(name = "outbox_events")
+
+@Data
+@NoArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "topic", nullable = false)
+    private String topic;
+
+    @Column(name = "message_key")
+    private String messageKey;
+
+    // Текстовые действия хранятся в UTF-8, события пользователей - в UserBinaryFormat
+    @Column(name = "payload", nullable = false, columnDefinition = "bytea")
+    private byte[] payload;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private Instant created_at;
+
+    public OutboxEvent(String topic, String messageKey, byte[] payload) {
+        this.topic = topic;
+        this.messageKey = messageKey;
+        this.payload = payload;
+    }
+
+    public OutboxEvent(String topic, String messageKey, String payload) {
+        this(topic, messageKey, payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -7,18 +7,25 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
 
+import java.time.Instant;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "usersSpring")
+@Table(name = "usersSpring", indexes = @Index(name = "idx_users_spring_age", columnList = "age"))
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
 
+    // Размер блока идентификаторов, который Hibernate берет одним nextval (импорт через COPY выделяет так же)
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Последовательность с pooled-оптимизатором выдает ID пачками по allocationSize без обращения к БД,
+    // поэтому Hibernate может объединять INSERT в JDBC-батчи (с IDENTITY это невозможно)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_spring_seq")
+    @SequenceGenerator(name = "users_spring_seq", sequenceName = "users_spring_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "name")
@@ -33,4 +40,23 @@ public class User {
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDate created_at;
+
+    // Увеличивается при каждом изменении; UPDATE выполняется с условием version = <прочитанная версия>,
+    // поэтому параллельное изменение обнаруживается без блокировки строки (отдается клиенту как ETag)
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    // Назначаются триггером при каждой записи (см. V3__change_feed.sql), Hibernate их не пишет
+    // и после записи не перечитывает
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private Instant updated_at;
+
+    // Номер последнего изменения, по нему GET /users/changes отдает изменения после метки клиента
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long change_seq;
+
+    public User(Long id, String name, String email, int age, LocalDate created_at, long version) {
+        this(id, name, email, age, created_at, version, null, null);
+    }
 }
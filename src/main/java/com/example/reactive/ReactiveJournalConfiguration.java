@@ -0,0 +1,54 @@
+package com.example.reactive;
+
+import com.example.configuration.UserJournalProperties;
+import com.example.journal.JournalDrainer;
+import com.example.journal.SpillJournal;
+import com.example.services.KafkaProducerService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+// События пользователей проходят через локальный журнал: запрос ждет только записи в файл, а отправкой в kafka
+// занимается JournalDrainer. Журнал закрывается после JournalDrainer, принятые события остаются в файлах
+// и отправляются после перезапуска
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(UserJournalProperties.class)
+public class ReactiveJournalConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public SpillJournal spillJournal(UserJournalProperties properties, MeterRegistry meterRegistry) throws IOException {
+        SpillJournal journal = SpillJournal.open(properties.directory(),
+                Math.toIntExact(properties.segmentSize().toBytes()), properties.maxSegments());
+        Gauge.builder("users.journal.depth", journal, SpillJournal::depth)
+                .description("Объем журнала, еще не отправленный в kafka")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("users.journal.pending", journal, SpillJournal::pending)
+                .description("Число событий в журнале, еще не отправленных в kafka")
+                .register(meterRegistry);
+        Gauge.builder("users.journal.segments", journal, SpillJournal::segments)
+                .description("Число сегментов журнала на диске")
+                .register(meterRegistry);
+        return journal;
+    }
+
+    @Bean(destroyMethod = "close")
+    public JournalDrainer journalDrainer(SpillJournal journal, KafkaProducerService kafkaProducerService,
+                                         UserJournalProperties properties, MeterRegistry meterRegistry) {
+        JournalDrainer drainer = new JournalDrainer(journal, kafkaProducerService, properties.drainBatchSize(),
+                properties.sendTimeout(), properties.retryInterval(), properties.idleInterval());
+        Gauge.builder("users.journal.lag", drainer, JournalDrainer::lagSeconds)
+                .description("Сколько ждет отправки самое старое событие журнала")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        drainer.start();
+        return drainer;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.reactive;
+
+import com.example.configuration.KafkaProducerConfiguration;
+import com.example.controllers.ValidationResponse.ValidationErrorHandlingControllerAdvice;
+import com.example.services.KafkaProducerService;
+import com.example.services.UserEventCodec;
+
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+// Неблокирующий вариант API пользователей (WebFlux + R2DBC) для edge-развертываний.
+// Запускается отдельно от основного приложения с профилем reactive и работает с той же таблицей users_spring;
+// в сервлетном приложении эти бины не создаются. События пользователей отправляются в kafka через локальный
+// журнал (ReactiveJournalConfiguration)
+@Configuration
+@EnableAutoConfiguration
+@ComponentScan
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Import({KafkaProducerConfiguration.class, KafkaProducerService.class, UserEventCodec.class,
+        ValidationErrorHandlingControllerAdvice.class})
+public class ReactiveUserApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveUserApplication.class)
+                .profiles("reactive")
+                .run(args);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.reactive;
+
+import com.example.DTOs.UserDto;
+
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Те же пути и правила проверки, что у UserController, ошибки проверки обрабатывает
+// ValidationErrorHandlingControllerAdvice. Список отдается потоком: при Accept: application/x-ndjson
+// пользователи пишутся по одному по мере чтения из БД с учетом скорости клиента
+@Validated
+@RestController
+@RequestMapping("/users")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserController {
+
+    private final ReactiveUserService userService;
+
+    @Autowired
+    public ReactiveUserController(ReactiveUserService userService) {
+        this.userService = userService;
+    }
+
+    @PostMapping("/create")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<UserDto> createUser(@Valid @RequestBody UserDto userDto) {
+        return userService.create(userDto);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<UserDto> findUserById(@PathVariable @Min(1) Long id) {
+        return userService.findUserById(id);
+    }
+
+    @ExceptionHandler(EntityNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public String handleEntityNotFound(EntityNotFoundException e) {
+        return "Пользователь не найден";
+    }
+
+    @GetMapping(value = "/all", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<UserDto> findAllUsers(@RequestParam(defaultValue = "0") @Min(0) Long after) {
+        return userService.findAll(after);
+    }
+
+    @PutMapping("/update/{id}")
+    public Mono<UserDto> updateUser(@PathVariable @Min(1) Long id, @Valid @RequestBody UserDto userDto) {
+        return userService.update(id, userDto);
+    }
+
+    @DeleteMapping("/delete/{id}")
+    public Mono<Void> deleteUser(@PathVariable @Min(1) Long id) {
+        return userService.delete(id);
+    }
+}
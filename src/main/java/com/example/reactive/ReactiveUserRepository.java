@@ -0,0 +1,85 @@
+package com.example.reactive;
+
+import com.example.DTOs.UserDto;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Каждая операция - один SQL-запрос; ID берется из той же последовательности, что использует Hibernate
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserRepository {
+
+    private static final String COLUMNS = "id, name, email, age, version";
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveUserRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    private static UserDto toDto(Readable row) {
+        return new UserDto(row.get("id", Long.class), row.get("name", String.class),
+                row.get("email", String.class), row.get("age", Integer.class), row.get("version", Long.class));
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec,
+                                                                  String name, String value) {
+        return value == null ? spec.bindNull(name, String.class) : spec.bind(name, value);
+    }
+
+    public Mono<UserDto> findById(long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM users_spring WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveUserRepository::toDto)
+                .one();
+    }
+
+    // Строки читаются из курсора порциями по FETCH_SIZE по мере запроса подписчика (backpressure)
+    public Flux<UserDto> findAllAfter(long afterId) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM users_spring WHERE id > :after ORDER BY id")
+                .bind("after", afterId)
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map(ReactiveUserRepository::toDto)
+                .all();
+    }
+
+    public Mono<UserDto> insert(UserDto userDto) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(
+                "INSERT INTO users_spring (id, name, email, age, created_at, version) " +
+                "VALUES (nextval('users_spring_seq'), :name, :email, :age, CURRENT_DATE, 0) RETURNING " + COLUMNS);
+        spec = bindNullable(spec, "name", userDto.getName());
+        spec = bindNullable(spec, "email", userDto.getEmail());
+        return spec.bind("age", userDto.getAge())
+                .map(ReactiveUserRepository::toDto)
+                .one();
+    }
+
+    public Mono<UserDto> update(long id, UserDto userDto) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(
+                "UPDATE users_spring SET name = COALESCE(:name, name), email = COALESCE(:email, email), age = :age, " +
+                "version = version + 1 WHERE id = :id RETURNING " + COLUMNS);
+        spec = bindNullable(spec, "name", userDto.getName());
+        spec = bindNullable(spec, "email", userDto.getEmail());
+        return spec.bind("age", userDto.getAge())
+                .bind("id", id)
+                .map(ReactiveUserRepository::toDto)
+                .one();
+    }
+
+    // Удаленный пользователь: email и последняя версия нужны для событий об удалении
+    public Mono<UserDto> deleteReturning(long id) {
+        return databaseClient.sql("DELETE FROM users_spring WHERE id = :id RETURNING " + COLUMNS)
+                .bind("id", id)
+                .map(ReactiveUserRepository::toDto)
+                .one();
+    }
+}
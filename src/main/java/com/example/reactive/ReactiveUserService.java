@@ -0,0 +1,107 @@
+package com.example.reactive;
+
+import com.example.DTOs.UserDto;
+import com.example.DTOs.UserEvent;
+import com.example.journal.SpillJournal;
+import com.example.services.DuplicateEmailException;
+import com.example.services.UserEventCodec;
+
+import io.r2dbc.postgresql.api.PostgresqlException;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserService {
+
+    static final String ACTIONS_TOPIC = "actions";
+
+    static final String USER_EVENTS_TOPIC = "user-events";
+
+    private static final String EMAIL_CONSTRAINT = "uk_users_spring_email";
+
+    private final ReactiveUserRepository userRepository;
+
+    private final SpillJournal journal;
+
+    private final UserEventCodec userEventCodec;
+
+    @Autowired
+    public ReactiveUserService(ReactiveUserRepository userRepository, SpillJournal journal,
+                               UserEventCodec userEventCodec) {
+        this.userRepository = userRepository;
+        this.journal = journal;
+        this.userEventCodec = userEventCodec;
+    }
+
+    private static Mono<UserDto> notFound(long id) {
+        return Mono.error(() -> new EntityNotFoundException("Пользователь с ID = " + id + " не найден"));
+    }
+
+    // Как и в UserService, занятый email замечает уникальный индекс, а клиент получает 409 с ошибкой в поле email.
+    // DatabaseClient переводит ошибку драйвера в DataIntegrityViolationException, имя ограничения - в ее причине
+    private static Throwable translateDuplicateEmail(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PostgresqlException violation && violation.getErrorDetails().getConstraintName()
+                    .filter(EMAIL_CONSTRAINT::equalsIgnoreCase).isPresent()) {
+                return DuplicateEmailException.of("email");
+            }
+        }
+        return e;
+    }
+
+    // События записываются в локальный журнал после успешной записи в БД, в kafka их отправляет JournalDrainer,
+    // поэтому недоступный брокер не задерживает ответ. Как и в MVC-варианте, кроме сообщения в actions
+    // публикуется UserEvent в user-events (по нему строится UserReadModel). Продолжение переносится из потока
+    // записи журнала; ошибка записи в журнал (журнал заполнен) не отменяет запись в БД
+    private Mono<Void> publish(String action, String email, UserEvent event) {
+        String key = String.valueOf(event.userId());
+        return Mono.fromFuture(() -> CompletableFuture.allOf(
+                        journal.append(ACTIONS_TOPIC, key, (action + " " + email).getBytes(StandardCharsets.UTF_8)),
+                        journal.append(USER_EVENTS_TOPIC, key, userEventCodec.encode(event))))
+                .publishOn(Schedulers.parallel())
+                .onErrorResume(e -> {
+                    log.warn("Событие {} для пользователя с ID = {} не записано в журнал", action, event.userId(), e);
+                    return Mono.empty();
+                });
+    }
+
+    public Mono<UserDto> create(UserDto userDto) {
+        return userRepository.insert(userDto)
+                .onErrorMap(ReactiveUserService::translateDuplicateEmail)
+                .flatMap(created -> publish("CREATE", created.getEmail(), UserEvent.created(created))
+                        .thenReturn(created));
+    }
+
+    public Mono<UserDto> findUserById(long id) {
+        return userRepository.findById(id).switchIfEmpty(notFound(id));
+    }
+
+    public Flux<UserDto> findAll(long afterId) {
+        return userRepository.findAllAfter(afterId);
+    }
+
+    public Mono<UserDto> update(long id, UserDto updatedUser) {
+        return userRepository.update(id, updatedUser)
+                .onErrorMap(ReactiveUserService::translateDuplicateEmail)
+                .switchIfEmpty(notFound(id))
+                .flatMap(updated -> publish("UPDATE", updated.getEmail(), UserEvent.updated(updated, updatedUser))
+                        .thenReturn(updated));
+    }
+
+    public Mono<Void> delete(long id) {
+        return userRepository.deleteReturning(id)
+                .flatMap(deleted -> publish("DELETE", deleted.getEmail(),
+                        UserEvent.deleted(id, deleted.getVersion())));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.repositories;
+
+import com.example.models.OutboxEvent;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Занимает следующую пачку на claimSeconds: блокировка строк держится только до конца короткой транзакции,
+    // а занятые события другие экземпляры пропускают по claimed_until. SKIP LOCKED позволяет нескольким экземплярам
+    // занимать пачки параллельно, не блокируя друг друга
+    @Query(value = """
+            UPDATE outbox_events
+            SET claimed_until = now() + :claimSeconds * interval '1 second'
+            WHERE id IN (
+                SELECT id FROM outbox_events
+                WHERE claimed_until IS NULL OR claimed_until < now()
+                ORDER BY id
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED)
+            RETURNING *""", nativeQuery = true)
+    List<OutboxEvent> claimNextBatch(@Param("limit") int limit, @Param("claimSeconds") long claimSeconds);
+
+    // Неотправленные события снова доступны, не дожидаясь истечения claimed_until
+    @Query(value = "UPDATE outbox_events SET claimed_until = NULL WHERE id IN (:ids) RETURNING id", nativeQuery = true)
+    List<Long> releaseClaims(@Param("ids") List<Long> ids);
+}
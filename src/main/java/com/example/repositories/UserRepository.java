@@ -2,7 +2,83 @@ package com.example.repositories;
 
 import com.example.models.User;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
+
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Проверки уникальности email идут по индексу uk_users_spring_email
+    boolean existsByEmail(String email);
+
+    interface EmailOwner {
+
+        Long getId();
+
+        String getEmail();
+    }
+
+    List<EmailOwner> findByEmailIn(Collection<String> emails);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<User> streamAllByOrderByIdAsc();
+
+    interface UpdatedUser {
+
+        long getId();
+
+        String getName();
+
+        String getEmail();
+
+        int getAge();
+
+        long getVersion();
+
+        String getPreviousEmail();
+    }
+
+    // Частичное обновление одним запросом без предварительного SELECT: не переданные (null) имя и email
+    // сохраняют текущее значение. expectedVersion = null - без проверки версии. Прежний email читается
+    // в том же запросе с блокировкой строки, поэтому он точно тот, который заменило это обновление.
+    // Пустой результат - пользователь не найден или его версия не совпала
+    @Query(value = """
+            WITH old AS (SELECT id, email FROM users_spring WHERE id = :id FOR UPDATE)
+            UPDATE users_spring u
+            SET name = COALESCE(CAST(:name AS varchar), u.name),
+                email = COALESCE(CAST(:email AS varchar), u.email),
+                age = :age,
+                version = u.version + 1
+            FROM old
+            WHERE u.id = old.id AND (CAST(:expectedVersion AS bigint) IS NULL OR u.version = :expectedVersion)
+            RETURNING u.id, u.name, u.email, u.age, u.version, old.email AS "previousEmail\"""", nativeQuery = true)
+    Optional<UpdatedUser> updatePartially(@Param("id") Long id, @Param("name") String name,
+                                          @Param("email") String email, @Param("age") int age,
+                                          @Param("expectedVersion") Long expectedVersion);
+
+    interface DeletedUser {
+
+        String getEmail();
+
+        long getVersion();
+    }
+
+    // Удаление одним запросом; email и версия удаленного пользователя нужны для событий
+    @Query(value = "DELETE FROM users_spring WHERE id = :id RETURNING email, version", nativeQuery = true)
+    Optional<DeletedUser> deleteReturning(@Param("id") Long id);
 }
@@ -0,0 +1,46 @@
+package com.example.repositories;
+
+import com.example.models.User;
+
+import org.springframework.data.jpa.domain.Specification;
+
+// Условия поиска записаны в той же форме, что и индексы на users_spring (см. миграции в db/migration):
+// lower(name) LIKE 'префикс%' - btree с text_pattern_ops, lower(email) LIKE '%@домен' - GIN с gin_trgm_ops,
+// age BETWEEN - btree на age. Другая форма условия (например, без lower) индекс не использует
+public final class UserSpecifications {
+
+    private static final char ESCAPE = '\\';
+
+    private UserSpecifications() {
+    }
+
+    public static Specification<User> nameStartsWith(String prefix) {
+        return (root, query, cb) -> cb.like(cb.lower(root.get("name")),
+                escapeLike(prefix.toLowerCase()) + "%", ESCAPE);
+    }
+
+    public static Specification<User> emailDomainIs(String domain) {
+        return (root, query, cb) -> cb.like(cb.lower(root.get("email")),
+                "%@" + escapeLike(domain.toLowerCase()), ESCAPE);
+    }
+
+    public static Specification<User> ageAtLeast(int minAge) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("age"), minAge);
+    }
+
+    public static Specification<User> ageAtMost(int maxAge) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("age"), maxAge);
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == ESCAPE) {
+                escaped.append(ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.serialization;
+
+import com.example.DTOs.UserDto;
+import com.example.DTOs.UserEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Двоичный формат пользователей и событий (по образцу Protobuf, схема встроена в код).
+// Сообщение: 'U', версия схемы, тип сообщения, затем записи. Каждая запись предваряется своей длиной,
+// поэтому новые поля добавляются в конец записи без смены версии схемы, а старые читатели их пропускают.
+// Версия схемы меняется только при несовместимых изменениях, такие данные отклоняются.
+// Целые числа - varint, строки - длина и UTF-8, null кодируется отдельным признаком.
+//
+// Схема 1:
+//   USER       = id(varint, 0 - null) name(string) email(string) age(zigzag varint) version(varint, 0 - null, иначе +1)
+//   USER_LIST  = count(varint) USER*
+//   USER_EVENT = userId(varint) op(byte) version(varint) changedFields(byte, битовая маска name/email/age)
+//                name(string) email(string) age(varint, 0 - null, иначе zigzag + 1)
+public final class UserBinaryFormat {
+
+    public static final int SCHEMA_VERSION = 1;
+
+    private static final byte MAGIC = 'U';
+
+    private static final byte USER = 1;
+
+    private static final byte USER_LIST = 2;
+
+    private static final byte USER_EVENT = 3;
+
+    private static final List<String> EVENT_FIELDS = List.of("name", "email", "age");
+
+    private static final UserEvent.Op[] OPS = UserEvent.Op.values();
+
+    private UserBinaryFormat() {
+    }
+
+    public static byte[] writeUser(UserDto user) {
+        Writer writer = header(USER);
+        writer.record(() -> writeUserFields(writer, user));
+        return writer.toByteArray();
+    }
+
+    public static byte[] writeUsers(List<UserDto> users) {
+        Writer writer = header(USER_LIST);
+        writer.varint(users.size());
+        for (UserDto user : users) {
+            writer.record(() -> writeUserFields(writer, user));
+        }
+        return writer.toByteArray();
+    }
+
+    public static byte[] writeEvent(UserEvent event) {
+        Writer writer = header(USER_EVENT);
+        writer.record(() -> {
+            writer.varint(event.userId());
+            writer.raw((byte) event.op().ordinal());
+            writer.varint(event.version());
+            int changedFields = 0;
+            for (String field : event.changedFields()) {
+                int index = EVENT_FIELDS.indexOf(field);
+                if (index < 0) {
+                    throw new IllegalArgumentException("Неизвестное поле события: " + field);
+                }
+                changedFields |= 1 << index;
+            }
+            writer.raw((byte) changedFields);
+            writer.string(event.name());
+            writer.string(event.email());
+            writer.varint(event.age() == null ? 0 : zigzag(event.age()) + 1);
+        });
+        return writer.toByteArray();
+    }
+
+    public static UserDto readUser(byte[] bytes) {
+        Reader reader = header(bytes, USER);
+        return reader.record(() -> readUserFields(reader));
+    }
+
+    public static List<UserDto> readUsers(byte[] bytes) {
+        Reader reader = header(bytes, USER_LIST);
+        int count = (int) reader.varint();
+        List<UserDto> users = new ArrayList<>(Math.min(count, bytes.length));
+        for (int i = 0; i < count; i++) {
+            users.add(reader.record(() -> readUserFields(reader)));
+        }
+        return users;
+    }
+
+    public static UserEvent readEvent(byte[] bytes) {
+        Reader reader = header(bytes, USER_EVENT);
+        return reader.record(() -> {
+            long userId = reader.varint();
+            int op = reader.raw();
+            if (op >= OPS.length) {
+                throw new IllegalArgumentException("Неизвестная операция события: " + op);
+            }
+            long version = reader.varint();
+            int changedFieldsMask = reader.raw();
+            List<String> changedFields = new ArrayList<>(EVENT_FIELDS.size());
+            for (int i = 0; i < EVENT_FIELDS.size(); i++) {
+                if ((changedFieldsMask & (1 << i)) != 0) {
+                    changedFields.add(EVENT_FIELDS.get(i));
+                }
+            }
+            String name = reader.string();
+            String email = reader.string();
+            long age = reader.varint();
+            return new UserEvent(userId, OPS[op], version, name, email,
+                    age == 0 ? null : unzigzag(age - 1), List.copyOf(changedFields));
+        });
+    }
+
+    private static void writeUserFields(Writer writer, UserDto user) {
+        writer.varint(user.getId() == null ? 0 : user.getId());
+        writer.string(user.getName());
+        writer.string(user.getEmail());
+        writer.varint(zigzag(user.getAge()));
+        writer.varint(user.getVersion() == null ? 0 : user.getVersion() + 1);
+    }
+
+    private static UserDto readUserFields(Reader reader) {
+        long id = reader.varint();
+        String name = reader.string();
+        String email = reader.string();
+        int age = unzigzag(reader.varint());
+        long version = reader.varint();
+        return new UserDto(id == 0 ? null : id, name, email, age, version == 0 ? null : version - 1);
+    }
+
+    private static Writer header(byte type) {
+        Writer writer = new Writer();
+        writer.raw(MAGIC);
+        writer.raw((byte) SCHEMA_VERSION);
+        writer.raw(type);
+        return writer;
+    }
+
+    private static Reader header(byte[] bytes, byte expectedType) {
+        Reader reader = new Reader(bytes);
+        if (reader.raw() != MAGIC) {
+            throw new IllegalArgumentException("Данные не в двоичном формате пользователей");
+        }
+        int schemaVersion = reader.raw();
+        if (schemaVersion != SCHEMA_VERSION) {
+            throw new IllegalArgumentException("Неподдерживаемая версия схемы: " + schemaVersion);
+        }
+        int type = reader.raw();
+        if (type != expectedType) {
+            throw new IllegalArgumentException("Ожидался тип сообщения " + expectedType + ", получен " + type);
+        }
+        return reader;
+    }
+
+    private static long zigzag(int value) {
+        return Integer.toUnsignedLong((value << 1) ^ (value >> 31));
+    }
+
+    private static int unzigzag(long value) {
+        int bits = (int) value;
+        return (bits >>> 1) ^ -(bits & 1);
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer = new byte[64];
+
+        private int position;
+
+        private void ensureCapacity(int additional) {
+            if (position + additional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additional));
+            }
+        }
+
+        void raw(byte value) {
+            ensureCapacity(1);
+            buffer[position++] = value;
+        }
+
+        void varint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        // 0 - null, иначе длина в байтах + 1
+        void string(String value) {
+            if (value == null) {
+                varint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1L);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        // Длина записи заранее неизвестна: под нее резервируется максимум 5 байт, после записи полей
+        // длина записывается в начало, а поля сдвигаются на освободившиеся байты
+        void record(Runnable fields) {
+            ensureCapacity(5);
+            int lengthPosition = position;
+            position += 5;
+            fields.run();
+            int length = position - lengthPosition - 5;
+            int lengthSize = varintSize(length);
+            System.arraycopy(buffer, lengthPosition + 5, buffer, lengthPosition + lengthSize, length);
+            int end = position - 5 + lengthSize;
+            position = lengthPosition;
+            varint(length);
+            position = end;
+        }
+
+        private static int varintSize(int value) {
+            int size = 1;
+            while ((value & ~0x7F) != 0) {
+                value >>>= 7;
+                size++;
+            }
+            return size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] bytes;
+
+        private int position;
+
+        private Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int raw() {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("Неожиданный конец данных");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = raw();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Некорректное число varint");
+        }
+
+        String string() {
+            long length = varint();
+            if (length == 0) {
+                return null;
+            }
+            int size = (int) (length - 1);
+            if (size < 0 || size > bytes.length - position) {
+                throw new IllegalArgumentException("Некорректная длина строки: " + size);
+            }
+            String value = new String(bytes, position, size, StandardCharsets.UTF_8);
+            position += size;
+            return value;
+        }
+
+        // Поля, добавленные в запись более новой версией схемы, пропускаются
+        <T> T record(Supplier<T> fields) {
+            long length = varint();
+            if (length < 0 || length > bytes.length - position) {
+                throw new IllegalArgumentException("Некорректная длина записи: " + length);
+            }
+            int end = position + (int) length;
+            T value = fields.get();
+            if (position > end) {
+                throw new IllegalArgumentException("Запись выходит за объявленную длину");
+            }
+            position = end;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.serialization;
+
+import com.example.DTOs.UserDto;
+import com.example.DTOs.UserReference;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Пользователи в UserBinaryFormat для внутренних клиентов (Accept/Content-Type: application/x-users-binary).
+// Ссылки HATEOAS в двоичный ответ не попадают, клиент строит их сам по id. В компактном списке (compact=true)
+// у пользователей заполнены только id и версия
+public class UserBinaryHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-users-binary";
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private static final ResolvableType USER_LIST = ResolvableType.forClassWithGenerics(List.class, UserDto.class);
+
+    public UserBinaryHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    // Без параметров типа пользователем можно считать только сам UserDto; списки и модели HATEOAS проверяются
+    // по объявленному типу в canRead/canWrite
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return UserDto.class == clazz;
+    }
+
+    // Выберет ли согласование содержимого этот формат для принимаемых клиентом типов (отсортированных по
+    // предпочтению): первый тип, подходящий к JSON или к двоичному формату, должен явно называть двоичный -
+    // на */* и application/* отвечает JSON, его конвертер в списке раньше
+    public static boolean isPreferred(List<MediaType> acceptable) {
+        for (MediaType type : acceptable) {
+            if (MEDIA_TYPE.equalsTypeAndSubtype(type)) {
+                return true;
+            }
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON) || type.isCompatibleWith(MediaTypes.HAL_JSON)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // MVC спрашивает типы по классу значения уже после canWrite по объявленному типу
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return getSupportedMediaTypes();
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        ResolvableType resolved = type == null || type == Object.class ? ResolvableType.forClass(clazz)
+                : ResolvableType.forType(type);
+        return isUserPayload(resolved) && canWrite(mediaType);
+    }
+
+    // Пользователь, EntityModel пользователя или список/CollectionModel пользователей. Элемент, не известный
+    // по объявленному типу (CollectionModel<?>), проверяется при записи
+    private static boolean isUserPayload(ResolvableType type) {
+        Class<?> clazz = type.toClass();
+        if (UserDto.class == clazz) {
+            return true;
+        }
+        if (EntityModel.class.isAssignableFrom(clazz)) {
+            return isUserElement(type.as(EntityModel.class).getGeneric());
+        }
+        if (CollectionModel.class.isAssignableFrom(clazz)) {
+            return isUserElement(type.as(CollectionModel.class).getGeneric());
+        }
+        if (List.class.isAssignableFrom(clazz)) {
+            return isUserElement(type.asCollection().getGeneric());
+        }
+        return false;
+    }
+
+    private static boolean isUserElement(ResolvableType element) {
+        Class<?> clazz = element.toClass();
+        return clazz == Object.class || clazz == UserDto.class || clazz == UserReference.class
+                || EntityModel.class.isAssignableFrom(clazz) && isUserElement(element.as(EntityModel.class).getGeneric());
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        ResolvableType resolved = ResolvableType.forType(type);
+        return (UserDto.class == resolved.toClass() || USER_LIST.isAssignableFrom(resolved)) && canRead(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        byte[] body = inputMessage.getBody().readAllBytes();
+        try {
+            if (UserDto.class == ResolvableType.forType(type).toClass()) {
+                return withoutVersion(UserBinaryFormat.readUser(body));
+            }
+            List<UserDto> users = UserBinaryFormat.readUsers(body);
+            users.forEach(UserBinaryHttpMessageConverter::withoutVersion);
+            return users;
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    // Версию, как и в JSON, задает только сервер
+    private static UserDto withoutVersion(UserDto user) {
+        user.setVersion(null);
+        return user;
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        Object content = body instanceof EntityModel<?> model ? model.getContent() : body;
+        byte[] bytes;
+        if (content instanceof UserDto user) {
+            bytes = UserBinaryFormat.writeUser(user);
+        } else if (content instanceof CollectionModel<?> collection) {
+            bytes = UserBinaryFormat.writeUsers(toUsers(collection.getContent()));
+        } else if (content instanceof List<?> list) {
+            bytes = UserBinaryFormat.writeUsers(toUsers(list));
+        } else {
+            throw new HttpMessageNotWritableException("Ответ не содержит пользователей: " + body.getClass().getName());
+        }
+        outputMessage.getHeaders().setContentLength(bytes.length);
+        outputMessage.getBody().write(bytes);
+    }
+
+    private static List<UserDto> toUsers(Collection<?> elements) {
+        List<UserDto> users = new ArrayList<>(elements.size());
+        for (Object element : elements) {
+            Object content = element instanceof EntityModel<?> model ? model.getContent() : element;
+            if (content instanceof UserDto user) {
+                users.add(user);
+            } else if (content instanceof UserReference reference) {
+                users.add(new UserDto(reference.id(), null, null, 0, reference.version()));
+            } else {
+                throw new HttpMessageNotWritableException("Ответ не содержит пользователей: " + element);
+            }
+        }
+        return users;
+    }
+}
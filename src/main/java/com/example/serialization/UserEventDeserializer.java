@@ -0,0 +1,21 @@
+package com.example.serialization;
+
+import com.example.DTOs.UserEvent;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+public class UserEventDeserializer implements Deserializer<UserEvent> {
+
+    @Override
+    public UserEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return UserBinaryFormat.readEvent(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Некорректное событие пользователя в topic \"" + topic + "\"", e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.serialization;
+
+import com.example.DTOs.UserEvent;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+public class UserEventSerializer implements Serializer<UserEvent> {
+
+    @Override
+    public byte[] serialize(String topic, UserEvent event) {
+        return event == null ? null : UserBinaryFormat.writeEvent(event);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.services;
+
+import java.util.Collections;
+import java.util.Set;
+
+// Горизонт ленты изменений: наибольший номер изменения, до которого все транзакции с такими номерами уже
+// завершились. Номера выдает последовательность в момент записи, а видны строки после коммита, поэтому строка
+// с меньшим номером может появиться позже строки с большим; лента, отдавшая изменения выше горизонта,
+// пропустила бы ее навсегда.
+// Транзакция, изменяющая users_spring, держит блокировку таблицы ROW EXCLUSIVE с момента до получения первого
+// номера и до конца, поэтому все держатели номеров, не больших прочитанного значения последовательности lastValue,
+// есть среди писателей (writers), прочитанных после него. Значение становится безопасным, когда ни одного из этих
+// писателей не осталось (или сразу, если их нет). Ждущее значение одно: каждый запрос ленты продвигает горизонт
+// хотя бы до значения, прочитанного одним из предыдущих
+public final class ChangeFeedHorizon {
+
+    private long safe;
+
+    private long pendingValue;
+
+    // null - ждущего значения нет
+    private Set<String> pendingWriters;
+
+    // writers - транзакции, изменяющие таблицу, прочитанные после lastValue (отдельным, более поздним запросом)
+    public synchronized long advance(long lastValue, Set<String> writers) {
+        if (pendingWriters != null && Collections.disjoint(pendingWriters, writers)) {
+            safe = Math.max(safe, pendingValue);
+            pendingWriters = null;
+        }
+        if (writers.isEmpty()) {
+            safe = Math.max(safe, lastValue);
+        } else if (pendingWriters == null && lastValue > safe) {
+            pendingValue = lastValue;
+            pendingWriters = Set.copyOf(writers);
+        }
+        return safe;
+    }
+}
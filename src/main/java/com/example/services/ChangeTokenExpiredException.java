@@ -0,0 +1,11 @@
+package com.example.services;
+
+// Метка ленты изменений старше хранимых удалений: часть удалений после нее уже не отдать,
+// клиенту нужна полная синхронизация (лента с начала)
+public class ChangeTokenExpiredException extends RuntimeException {
+
+    public ChangeTokenExpiredException() {
+        super("Метка устарела: удаления после нее уже не хранятся, начните синхронизацию заново без since",
+                null, false, false);
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// Объединяет одновременные запросы по ключу в один запрос по набору ключей (как DataLoader).
+// Пока ни одна порция не загружается, запрос загружается сразу, без ожидания. Иначе первый запрос открывает окно
+// и ждет window; все запросы, пришедшие за это время, попадают в ту же порцию, одинаковые ключи получают
+// один результат. Порция загружается в потоке того, кто ее закрыл (первый запрос по
+// истечении окна или запрос, заполнивший порцию до maxBatchSize), остальные ждут результат.
+// Запрос не присоединяется к уже выполняющейся загрузке: она могла начаться до коммита изменения,
+// которое клиент уже видел, и вернула бы устаревшие данные
+public class CoalescingLoader<K, V> {
+
+    private final Function<Set<K>, Map<K, V>> batchLoader;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Batch<K, V> open;
+
+    // Число порций, загружаемых в данный момент
+    private int loading;
+
+    private final DistributionSummary batchSize;
+
+    private final Counter queriesSaved;
+
+    public CoalescingLoader(String name, Function<Set<K>, Map<K, V>> batchLoader, long windowNanos, int maxBatchSize,
+                            MeterRegistry meterRegistry) {
+        this.batchLoader = batchLoader;
+        this.windowNanos = windowNanos;
+        this.maxBatchSize = maxBatchSize;
+        this.batchSize = DistributionSummary.builder(name + ".batch.size")
+                .description("Число разных ключей в одном запросе")
+                .register(meterRegistry);
+        this.queriesSaved = Counter.builder(name + ".queries.saved")
+                .description("Запросы, обслуженные чужой порцией вместо отдельного запроса")
+                .register(meterRegistry);
+    }
+
+    private static final class Batch<K, V> {
+
+        private final Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+
+        private final Thread leader = Thread.currentThread();
+
+        private int requests;
+
+        private volatile boolean closed;
+    }
+
+    // null - значения для ключа нет
+    public V load(K key) {
+        Batch<K, V> opened = null;
+        Batch<K, V> filled = null;
+        CompletableFuture<V> future;
+        lock.lock();
+        try {
+            if (open == null) {
+                open = opened = new Batch<>();
+            }
+            future = open.futures.computeIfAbsent(key, k -> new CompletableFuture<>());
+            open.requests++;
+            if (open.futures.size() >= maxBatchSize || opened != null && loading == 0) {
+                filled = close(open);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (filled != null) {
+            if (filled != opened) {
+                // Открывший порцию больше не ждет окна, а сразу ждет результата
+                LockSupport.unpark(filled.leader);
+            }
+            dispatch(filled);
+        } else if (opened != null) {
+            awaitWindow(opened);
+        }
+        return join(future);
+    }
+
+    private Batch<K, V> close(Batch<K, V> batch) {
+        open = null;
+        loading++;
+        batch.closed = true;
+        return batch;
+    }
+
+    private void awaitWindow(Batch<K, V> batch) {
+        long deadline = System.nanoTime() + windowNanos;
+        for (long remaining = windowNanos; remaining > 0 && !batch.closed; remaining = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(this, remaining);
+        }
+        Batch<K, V> expired = null;
+        lock.lock();
+        try {
+            if (open == batch) {
+                expired = close(batch);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (expired != null) {
+            dispatch(expired);
+        }
+    }
+
+    private void dispatch(Batch<K, V> batch) {
+        batchSize.record(batch.futures.size());
+        queriesSaved.increment(batch.requests - 1);
+        try {
+            Map<K, V> values = batchLoader.apply(batch.futures.keySet());
+            batch.futures.forEach((key, future) -> future.complete(values.get(key)));
+        } catch (Throwable e) {
+            batch.futures.values().forEach(future -> future.completeExceptionally(e));
+        } finally {
+            lock.lock();
+            try {
+                loading--;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Фильтр Блума со счетчиками (4 бита, по 16 в long): в отличие от обычного поддерживает удаление.
+// Отрицательный ответ точный, положительный - с вероятностью ложного срабатывания falsePositiveRate
+// при numberOfElements элементах. Добавление и удаление без блокировок (CAS по словам), переполненный
+// счетчик (15) больше не меняется - элемент остается "возможно присутствующим", но не теряется
+public class CountingBloomFilter {
+
+    private static final int COUNTER_BITS = 4;
+
+    private static final long MAX_COUNT = (1L << COUNTER_BITS) - 1;
+
+    private final AtomicLongArray words;
+
+    private final long counters;
+
+    private final int hashFunctions;
+
+    public CountingBloomFilter(long numberOfElements, double falsePositiveRate) {
+        long size = (long) Math.ceil(-numberOfElements * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.counters = Math.max(64, size);
+        this.hashFunctions = Math.max(1, (int) Math.round((double) counters / numberOfElements * Math.log(2)));
+        this.words = new AtomicLongArray(Math.toIntExact((counters + 15) / 16));
+    }
+
+    public void add(String value) {
+        long hash = hash(value);
+        long step = step(hash);
+        for (int i = 0; i < hashFunctions; i++) {
+            update(index(hash, step, i), 1);
+        }
+    }
+
+    public void remove(String value) {
+        long hash = hash(value);
+        long step = step(hash);
+        for (int i = 0; i < hashFunctions; i++) {
+            update(index(hash, step, i), -1);
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        long step = step(hash);
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = index(hash, step, i);
+            if (count(words.get((int) (index >>> 4)), index) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Размер в байтах (для метрик)
+    public long sizeInBytes() {
+        return words.length() * 8L;
+    }
+
+    private void update(long index, int delta) {
+        int word = (int) (index >>> 4);
+        int shift = (int) (index & 15) * COUNTER_BITS;
+        while (true) {
+            long current = words.get(word);
+            long count = (current >>> shift) & MAX_COUNT;
+            if (count == MAX_COUNT || count == 0 && delta < 0) {
+                return;
+            }
+            if (words.compareAndSet(word, current, current + ((long) delta << shift))) {
+                return;
+            }
+        }
+    }
+
+    private static long count(long word, long index) {
+        return (word >>> ((int) (index & 15) * COUNTER_BITS)) & MAX_COUNT;
+    }
+
+    // Двойное хеширование: i-я функция - hash + i * step
+    private long index(long hash, long step, int i) {
+        return Math.floorMod(hash + i * step, counters);
+    }
+
+    private static long step(long hash) {
+        return mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+    }
+
+    // FNV-1a по символам строки с перемешиванием из MurmurHash3 (fmix64)
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB93FE1A85EC9L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.services;
+
+import com.example.controllers.ValidationResponse.Violation;
+
+import java.util.List;
+
+// Email уже занят другим пользователем. Исключение без стека: при попытках регистрации с чужими адресами
+// это обычный ответ, а не ошибка сервиса
+public class DuplicateEmailException extends RuntimeException {
+
+    private final List<Violation> violations;
+
+    public DuplicateEmailException(List<Violation> violations) {
+        super("email уже занят", null, false, false);
+        this.violations = violations;
+    }
+
+    public static DuplicateEmailException of(String fieldName) {
+        return new DuplicateEmailException(List.of(violation(fieldName)));
+    }
+
+    public static Violation violation(String fieldName) {
+        return new Violation(fieldName, "пользователь с таким email уже существует");
+    }
+
+    public List<Violation> getViolations() {
+        return violations;
+    }
+}
@@ -1,21 +1,53 @@
 package com.example.services;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+@Slf4j
 @Service
 public class KafkaProducerService {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    private final MeterRegistry meterRegistry;
 
     @Autowired
-    public KafkaProducerService(KafkaTemplate<String, String> kafkaTemplate) {
+    public KafkaProducerService(KafkaTemplate<String, byte[]> kafkaTemplate, MeterRegistry meterRegistry) {
         this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Ключ сообщения (ID пользователя) гарантирует, что все события одного пользователя попадут в одну партицию
+    // и будут прочитаны в порядке отправки
+    public CompletableFuture<SendResult<String, byte[]>> send(String topic, String key, String message) {
+        return send(topic, key, message.getBytes(StandardCharsets.UTF_8));
     }
 
-    public void sendMessage(String topic, String message) {
-        kafkaTemplate.send(topic, message);
-        System.out.println("Сообщение \"" + message + "\" отправлено в topic \"" + topic + "\"");
+    public CompletableFuture<SendResult<String, byte[]>> send(String topic, String key, byte[] message) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return kafkaTemplate.send(topic, key, message).whenComplete((result, e) -> {
+            sample.stop(Timer.builder("kafka.producer.send")
+                    .description("Время от отправки сообщения до подтверждения брокером")
+                    .tag("topic", topic)
+                    .tag("result", e == null ? "success" : "failure")
+                    .register(meterRegistry));
+            if (e != null) {
+                Counter.builder("kafka.producer.send.errors")
+                        .tag("topic", topic)
+                        .tag("exception", e.getClass().getSimpleName())
+                        .register(meterRegistry)
+                        .increment();
+                log.warn("Не удалось отправить сообщение с ключом {} в topic \"{}\"", key, topic, e);
+            }
+        });
     }
 }
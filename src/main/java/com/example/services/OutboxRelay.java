@@ -0,0 +1,110 @@
+package com.example.services;
+
+import com.example.configuration.OutboxProperties;
+import com.example.models.OutboxEvent;
+import com.example.repositories.OutboxEventRepository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    private final KafkaProducerService kafkaProducerService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final OutboxProperties properties;
+
+    @Autowired
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, KafkaProducerService kafkaProducerService,
+                       TransactionTemplate transactionTemplate, OutboxProperties properties) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaProducerService = kafkaProducerService;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval}")
+    public void relay() {
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == properties.batchSize());
+        } catch (RuntimeException e) {
+            log.warn("Не удалось отправить события из outbox, повтор через {}", properties.pollInterval(), e);
+        }
+    }
+
+    // Пачка занимается и удаляется короткими транзакциями, а подтверждения брокера ожидаются вне транзакции,
+    // без блокировок строк и соединения из пула. Строки удаляются только после подтверждения от брокера,
+    // поэтому при сбое пачка будет отправлена повторно
+    private int relayBatch() {
+        List<OutboxEvent> events = transactionTemplate.execute(status ->
+                outboxEventRepository.claimNextBatch(properties.batchSize(), claimSeconds()));
+        if (events == null || events.isEmpty()) {
+            return 0;
+        }
+        List<CompletableFuture<?>> futures = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            futures.add(kafkaProducerService.send(event.getTopic(), event.getMessageKey(), event.getPayload()));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                    .get(properties.sendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            try {
+                settle(events, futures);
+            } finally {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("Отправка событий из outbox прервана", e);
+        } catch (ExecutionException | TimeoutException e) {
+            settle(events, futures);
+            throw new IllegalStateException("Брокер не подтвердил отправку событий из outbox", e);
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                outboxEventRepository.deleteAllByIdInBatch(events.stream().map(OutboxEvent::getId).toList()));
+        log.debug("Из outbox отправлено {} событий", events.size());
+        return events.size();
+    }
+
+    // Отправка не дольше send-timeout, поэтому пачка, занятая на два таких срока, освобождается только
+    // если экземпляр остановился, не дождавшись брокера
+    private long claimSeconds() {
+        return Math.max(1, properties.sendTimeout().multipliedBy(2).toSeconds());
+    }
+
+    // После сбоя подтвержденные события удаляются, а остальные освобождаются для следующей попытки
+    private void settle(List<OutboxEvent> events, List<CompletableFuture<?>> futures) {
+        List<Long> sent = new ArrayList<>();
+        List<Long> unsent = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            CompletableFuture<?> future = futures.get(i);
+            boolean confirmed = future.isDone() && !future.isCompletedExceptionally();
+            (confirmed ? sent : unsent).add(events.get(i).getId());
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sent.isEmpty()) {
+                outboxEventRepository.deleteAllByIdInBatch(sent);
+            }
+            if (!unsent.isEmpty()) {
+                outboxEventRepository.releaseClaims(unsent);
+            }
+        });
+    }
+}
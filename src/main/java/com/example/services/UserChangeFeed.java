@@ -0,0 +1,107 @@
+package com.example.services;
+
+import com.example.DTOs.UserChange;
+import com.example.DTOs.UserDto;
+import com.example.configuration.UserChangeFeedProperties;
+
+import io.micrometer.observation.annotation.Observed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Лента изменений пользователей для инкрементальной синхронизации: строки users_spring и записи об удалениях
+// с номером изменения больше метки клиента, по индексам на change_seq. Номера назначает триггер (V3__change_feed.sql)
+@Slf4j
+@Observed(name = "user.changes")
+@Service
+public class UserChangeFeed {
+
+    private static final String LAST_CHANGE = "SELECT CASE WHEN is_called THEN last_value ELSE 0 END, " +
+            "(SELECT change_seq FROM users_spring_tombstones_purged) FROM users_spring_change_seq";
+
+    // Виртуальные номера транзакций, которые сейчас изменяют users_spring (см. ChangeFeedHorizon)
+    private static final String WRITERS = "SELECT virtualtransaction FROM pg_locks WHERE locktype = 'relation' " +
+            "AND relation = 'users_spring'::regclass AND mode = 'RowExclusiveLock' AND granted";
+
+    // Каждая часть читает по своему индексу не больше limit строк
+    private static final String CHANGES = "SELECT * FROM (" +
+            "(SELECT change_seq, id, name, email, age, version, false AS deleted FROM users_spring " +
+            "WHERE change_seq > ? AND change_seq <= ? ORDER BY change_seq LIMIT ?) " +
+            "UNION ALL " +
+            "(SELECT change_seq, id, NULL, NULL, NULL, version, true FROM users_spring_tombstones " +
+            "WHERE change_seq > ? AND change_seq <= ? ORDER BY change_seq LIMIT ?)" +
+            ") AS changes ORDER BY change_seq LIMIT ?";
+
+    private static final String PURGE = "WITH purged AS (" +
+            "DELETE FROM users_spring_tombstones WHERE deleted_at < now() - ? * interval '1 millisecond' " +
+            "RETURNING change_seq) " +
+            "UPDATE users_spring_tombstones_purged " +
+            "SET change_seq = greatest(change_seq, (SELECT max(change_seq) FROM purged)) " +
+            "WHERE EXISTS (SELECT 1 FROM purged)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final UserChangeFeedProperties properties;
+
+    private final ChangeFeedHorizon horizon = new ChangeFeedHorizon();
+
+    @Autowired
+    public UserChangeFeed(JdbcTemplate jdbcTemplate, UserChangeFeedProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    // next - метка для следующего запроса: номер последнего изменения порции или, если порция не полная,
+    // горизонт (дальше изменений пока нет)
+    public record Page(List<UserChange> changes, long next, boolean hasMore) {
+    }
+
+    // Не readOnly: горизонт считается по последовательности и блокировкам основного сервера, реплика может отставать
+    // от него. READ_COMMITTED: каждый запрос делает свой снимок, и изменения читаются после расчета горизонта
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public Page changesSince(long since, int limit) {
+        long[] last = jdbcTemplate.queryForObject(LAST_CHANGE,
+                (resultSet, row) -> new long[]{resultSet.getLong(1), resultSet.getLong(2)});
+        if (since > 0 && since < last[1]) {
+            throw new ChangeTokenExpiredException();
+        }
+        Set<String> writers = new HashSet<>(jdbcTemplate.queryForList(WRITERS, String.class));
+        long safe = horizon.advance(last[0], writers);
+        List<Long> sequences = new ArrayList<>();
+        List<UserChange> changes = new ArrayList<>();
+        if (safe > since) {
+            jdbcTemplate.query(CHANGES, resultSet -> {
+                sequences.add(resultSet.getLong("change_seq"));
+                long id = resultSet.getLong("id");
+                long version = resultSet.getLong("version");
+                changes.add(resultSet.getBoolean("deleted") ? UserChange.deleted(id, version)
+                        : UserChange.upsert(new UserDto(id, resultSet.getString("name"), resultSet.getString("email"),
+                        resultSet.getInt("age"), version)));
+            }, since, safe, limit + 1, since, safe, limit + 1, limit + 1);
+        }
+        if (changes.size() > limit) {
+            return new Page(changes.subList(0, limit), sequences.get(limit - 1), true);
+        }
+        return new Page(changes, Math.max(since, safe), false);
+    }
+
+    // Вместе с записями об удалениях сдвигается граница, ниже которой метки устарели
+    @Scheduled(fixedDelayString = "${users.changes.purge-interval}", initialDelayString = "${users.changes.purge-interval}")
+    public void purgeTombstones() {
+        try {
+            jdbcTemplate.update(PURGE, properties.tombstoneRetention().toMillis());
+        } catch (RuntimeException e) {
+            log.warn("Не удалось удалить устаревшие записи об удалениях, повтор через {}",
+                    properties.purgeInterval(), e);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.services;
+
+import com.example.configuration.UserEmailFilterProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Email существующих пользователей в фильтре Блума: для нового email (отрицательный ответ фильтра) проверка
+// уникальности не обращается к БД, и только "возможно существующий" email проверяется запросом по индексу.
+// Фильтр лишь экономит запросы: ложноотрицательный ответ (гонка с параллельным изменением, еще не прогретый
+// фильтр на другой реплике) ловит ограничение uk_users_spring_email, которое UserService переводит в ту же ошибку.
+// Email добавляется до коммита (при откате остается лишнее срабатывание), а удаляется только после коммита
+@Slf4j
+@Component
+public class UserEmailFilter {
+
+    private final CountingBloomFilter filter;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // До окончания прогрева каждый email считается возможно существующим
+    private volatile boolean warmedUp;
+
+    private final AtomicLong size = new AtomicLong();
+
+    private final Counter negatives;
+
+    private final Counter falsePositives;
+
+    private final Counter duplicates;
+
+    @Autowired
+    public UserEmailFilter(UserEmailFilterProperties properties, JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.filter = new CountingBloomFilter(properties.expectedEmails(), properties.falsePositiveRate());
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.negatives = checks("negative", meterRegistry);
+        this.falsePositives = checks("false_positive", meterRegistry);
+        this.duplicates = checks("duplicate", meterRegistry);
+        Gauge.builder("users.email_filter.size", size, AtomicLong::get)
+                .description("Число email в фильтре")
+                .register(meterRegistry);
+        Gauge.builder("users.email_filter.memory", filter, CountingBloomFilter::sizeInBytes)
+                .description("Размер фильтра, байт")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    // negative - проверка обошлась без запроса к БД, false_positive - запрос не нашел email, duplicate - нашел
+    private static Counter checks(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("users.email_filter.checks")
+                .description("Проверки уникальности email")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // Прогрев в отдельном потоке, чтобы не задерживать запуск. Таблица читается курсором по 10 000 строк
+    // (драйвер PostgreSQL использует fetch size только внутри транзакции)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Thread.ofPlatform().daemon().name("email-filter-warm-up").start(() -> {
+            try {
+                long started = System.nanoTime();
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                    PreparedStatement statement =
+                            connection.prepareStatement("SELECT email FROM users_spring WHERE email IS NOT NULL");
+                    statement.setFetchSize(10_000);
+                    return statement;
+                }, (RowCallbackHandler) resultSet -> add(resultSet.getString(1))));
+                warmedUp = true;
+                log.info("Фильтр email прогрет: {} адресов за {} мс", size.get(),
+                        (System.nanoTime() - started) / 1_000_000);
+            } catch (RuntimeException e) {
+                log.warn("Не удалось прогреть фильтр email, уникальность проверяется запросами к БД", e);
+            }
+        });
+    }
+
+    public boolean isWarmedUp() {
+        return warmedUp;
+    }
+
+    // false - такого email точно нет
+    public boolean mightContain(String email) {
+        if (!warmedUp || filter.mightContain(email)) {
+            return true;
+        }
+        negatives.increment();
+        return false;
+    }
+
+    // Результат проверки по БД email, на который сработал фильтр
+    public void lookedUp(boolean found) {
+        (found ? duplicates : falsePositives).increment();
+    }
+
+    public void add(String email) {
+        if (email != null) {
+            filter.add(email);
+            size.incrementAndGet();
+        }
+    }
+
+    public void removeAfterCommit(String email) {
+        if (email == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remove(email);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remove(email);
+            }
+        });
+    }
+
+    private void remove(String email) {
+        filter.remove(email);
+        size.decrementAndGet();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.services;
+
+import com.example.DTOs.UserEvent;
+import com.example.serialization.UserBinaryFormat;
+
+import org.springframework.stereotype.Component;
+
+// Формат события в outbox и в topic user-events
+@Component
+public class UserEventCodec {
+
+    public byte[] encode(UserEvent event) {
+        return UserBinaryFormat.writeEvent(event);
+    }
+
+    public UserEvent decode(byte[] payload) {
+        return UserBinaryFormat.readEvent(payload);
+    }
+}
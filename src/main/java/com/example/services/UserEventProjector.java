@@ -0,0 +1,38 @@
+package com.example.services;
+
+import com.example.DTOs.UserEvent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+// Строит UserReadModel из topic user-events. У каждого экземпляра сервиса своя группа потребителей,
+// поэтому он читает все партиции с начала topic и получает полную копию пользователей.
+// Сообщения, которые не удалось разобрать, ErrorHandlingDeserializer передает обработчику ошибок контейнера,
+// и тот пропускает их без повторов
+@Component
+@ConditionalOnProperty(name = "users.read-model.enabled", havingValue = "true")
+public class UserEventProjector {
+
+    private final UserReadModel readModel;
+
+    @Autowired
+    public UserEventProjector(UserReadModel readModel, MeterRegistry meterRegistry) {
+        this.readModel = readModel;
+        Gauge.builder("users.read_model.size", readModel, UserReadModel::size)
+                .description("Число пользователей в модели чтения")
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(topics = UserService.USER_EVENTS_TOPIC,
+            groupId = "users-read-model-#{T(java.util.UUID).randomUUID()}",
+            properties = {"auto.offset.reset=earliest",
+                    "value.deserializer=org.springframework.kafka.support.serializer.ErrorHandlingDeserializer",
+                    "spring.deserializer.value.delegate.class=com.example.serialization.UserEventDeserializer"})
+    public void onEvent(UserEvent event) {
+        readModel.apply(event);
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.services;
+
+import com.example.DTOs.UserDto;
+import com.example.DTOs.UserEvent;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.locks.StampedLock;
+
+// Пользователи в памяти, собранные из topic user-events (см. UserEventProjector).
+// Хэш-таблица с открытой адресацией по примитивному ключу: без упаковки id в Long и без узлов HashMap.
+// Изменения применяет один поток слушателя, чтение - оптимистичное (StampedLock) и обычно обходится без блокировки.
+// Удаленный пользователь остается в таблице записью об удалении с его последней версией: повторно доставленное
+// или перечитанное с начала topic событие с версией не новее удаления не возвращает пользователя. id не
+// используются повторно, поэтому записи об удалении не удаляются
+@Component
+@ConditionalOnProperty(name = "users.read-model.enabled", havingValue = "true")
+public class UserReadModel {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Пара массивов заменяется целиком при расширении, поэтому читатель всегда видит массивы одной длины.
+    // Ключ 0 - пустая ячейка (id пользователей начинаются с 1)
+    private record Table(long[] ids, UserDto[] users) {
+    }
+
+    private static final class Tombstone extends UserDto {
+
+        private Tombstone(long id, long version) {
+            super(id, null, null, 0, version);
+        }
+    }
+
+    private final StampedLock lock = new StampedLock();
+
+    private Table table = new Table(new long[INITIAL_CAPACITY], new UserDto[INITIAL_CAPACITY]);
+
+    // Пользователей, без записей об удалении
+    private int size;
+
+    // Занятых ячеек, вместе с записями об удалении
+    private int occupied;
+
+    public Optional<UserDto> find(long id) {
+        long stamp = lock.tryOptimisticRead();
+        UserDto user = lookup(table, id);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                user = lookup(table, id);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return user instanceof Tombstone ? Optional.empty() : Optional.ofNullable(user);
+    }
+
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int currentSize = size;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                currentSize = size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return currentSize;
+    }
+
+    // События могут прийти повторно (outbox гарантирует доставку хотя бы один раз),
+    // поэтому событие с версией меньше сохраненной, а после удаления - не больше версии удаления, игнорируется
+    public void apply(UserEvent event) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = slot(table, event.userId());
+            UserDto current = table.users()[slot];
+            if (current != null && (current.getVersion() > event.version()
+                    || current instanceof Tombstone && current.getVersion() == event.version())) {
+                return;
+            }
+            put(slot, event.userId(), event.op() == UserEvent.Op.DELETE
+                    ? new Tombstone(event.userId(), event.version()) : event.toUserDto());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static int hash(long id, int mask) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    // Ячейка с этим id или первая пустая ячейка, куда его следует вставить
+    private static int slot(Table table, long id) {
+        long[] ids = table.ids();
+        int mask = ids.length - 1;
+        int i = hash(id, mask);
+        while (ids[i] != 0 && ids[i] != id) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    // Во время оптимистичного чтения таблица может меняться, поэтому число шагов ограничено ее размером
+    private static UserDto lookup(Table table, long id) {
+        long[] ids = table.ids();
+        UserDto[] users = table.users();
+        int mask = ids.length - 1;
+        int i = hash(id, mask);
+        for (int probe = 0; probe < ids.length; probe++) {
+            long current = ids[i];
+            if (current == id) {
+                return users[i];
+            }
+            if (current == 0) {
+                return null;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    private void put(int slot, long id, UserDto user) {
+        if (table.ids()[slot] == 0) {
+            if ((occupied + 1) * 2 > table.ids().length) {
+                resize();
+                slot = slot(table, id);
+            }
+            occupied++;
+        }
+        boolean wasUser = table.users()[slot] != null && !(table.users()[slot] instanceof Tombstone);
+        size += (user instanceof Tombstone ? 0 : 1) - (wasUser ? 1 : 0);
+        table.users()[slot] = user;
+        table.ids()[slot] = id;
+    }
+
+    private void resize() {
+        Table old = table;
+        Table resized = new Table(new long[old.ids().length * 2], new UserDto[old.ids().length * 2]);
+        for (int i = 0; i < old.ids().length; i++) {
+            if (old.ids()[i] != 0) {
+                int slot = slot(resized, old.ids()[i]);
+                resized.ids()[slot] = old.ids()[i];
+                resized.users()[slot] = old.users()[i];
+            }
+        }
+        table = resized;
+    }
+}
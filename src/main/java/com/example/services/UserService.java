@@ -1,69 +1,403 @@
 package com.example.services;
 
 import com.example.DTOs.UserDto;
+import com.example.DTOs.UserEvent;
+import com.example.DTOs.UserSearchFilter;
+import com.example.configuration.CacheConfiguration;
+import com.example.configuration.UserBatchProperties;
+import com.example.controllers.ValidationResponse.Violation;
+import com.example.datasource.ReadReplicas;
+import com.example.datasource.ReadRoutingContext;
+import com.example.mappers.UserMapper;
+import com.example.models.OutboxEvent;
 import com.example.models.User;
+import com.example.repositories.OutboxEventRepository;
 import com.example.repositories.UserRepository;
+import com.example.repositories.UserSpecifications;
 
+import io.micrometer.observation.annotation.Observed;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
-import org.springframework.beans.BeanUtils;
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Observed(name = "user.service")
 @Service
 public class UserService {
 
+    // Текстовые события для сервиса уведомлений ("CREATE user@example.com")
+    public static final String ACTIONS_TOPIC = "actions";
+
+    // Структурированные события (UserEvent) для модели чтения
+    public static final String USER_EVENTS_TOPIC = "user-events";
+
+    private static final String EMAIL_CONSTRAINT = "uk_users_spring_email";
+
     private final UserRepository userRepository;
 
+    private final OutboxEventRepository outboxEventRepository;
+
+    private final EntityManager entityManager;
+
+    private final Cache usersCache;
+
+    private final UserBatchProperties batchProperties;
+
+    private final UserMapper userMapper;
+
+    private final UserEventCodec userEventCodec;
+
+    // Есть только при users.coalescing.enabled=true
+    private final CoalescingLoader<Long, UserDto> userLoader;
+
+    private final UserEmailFilter emailFilter;
+
+    // users.read-replicas.enabled=true: чтение без привязки к основному серверу может выполниться на реплике
+    private final boolean replicaReads;
+
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, OutboxEventRepository outboxEventRepository,
+                       EntityManager entityManager, CacheManager cacheManager,
+                       UserBatchProperties batchProperties, UserMapper userMapper, UserEventCodec userEventCodec,
+                       ObjectProvider<CoalescingLoader<Long, UserDto>> userLoader, UserEmailFilter emailFilter,
+                       ObjectProvider<ReadReplicas> readReplicas) {
         this.userRepository = userRepository;
+        this.outboxEventRepository = outboxEventRepository;
+        this.entityManager = entityManager;
+        this.usersCache = new TransactionAwareCacheDecorator(cacheManager.getCache(CacheConfiguration.USERS_CACHE));
+        this.batchProperties = batchProperties;
+        this.userMapper = userMapper;
+        this.userEventCodec = userEventCodec;
+        this.userLoader = userLoader.getIfAvailable();
+        this.emailFilter = emailFilter;
+        this.replicaReads = readReplicas.getIfAvailable() != null;
     }
 
-    private UserDto convertToDto(User user) {
-        UserDto userDto = new UserDto();
-        BeanUtils.copyProperties(user, userDto);
-        return userDto;
+    // Событие пишется в outbox в той же транзакции, что и изменение пользователя,
+    // и уходит в Kafka только после коммита (см. OutboxRelay)
+    private void publishAction(String action, User user) {
+        publishAction(action, user.getId(), user.getEmail());
+    }
+
+    private void publishAction(String action, Long id, String email) {
+        outboxEventRepository.save(new OutboxEvent(ACTIONS_TOPIC, String.valueOf(id), action + " " + email));
+    }
+
+    private void publishUserEvent(UserEvent event) {
+        outboxEventRepository.save(new OutboxEvent(USER_EVENTS_TOPIC, String.valueOf(event.userId()),
+                userEventCodec.encode(event)));
+    }
+
+    // Одно событие на всю порцию вместо события на каждого пользователя
+    private void publishBatchAction(String action, List<User> users) {
+        String emails = users.stream().map(User::getEmail).collect(Collectors.joining(","));
+        outboxEventRepository.save(new OutboxEvent(ACTIONS_TOPIC, null, action + "_BATCH " + emails));
+    }
+
+    // Порция отправляется в БД JDBC-батчами (hibernate.jdbc.batch_size) и сразу вытесняется из контекста.
+    // Пользователь, измененный другим запросом после чтения порции, не совпадает по version в UPDATE:
+    // исключение JPA переводится в исключение Spring, на которое UserController отвечает 409
+    private void flushChunk() {
+        try {
+            flushUniqueEmail("email");
+        } catch (OptimisticLockException e) {
+            throw new ObjectOptimisticLockingFailureException(User.class,
+                    e.getEntity() instanceof User user ? user.getId() : null, e);
+        }
+        entityManager.clear();
+    }
+
+    // Проверка до записи: новый email (отрицательный ответ фильтра) в БД не проверяется вовсе,
+    // "возможно существующий" - одним запросом по уникальному индексу
+    private void checkEmailAvailable(String email) {
+        if (email == null || !emailFilter.mightContain(email)) {
+            return;
+        }
+        boolean taken = userRepository.existsByEmail(email);
+        emailFilter.lookedUp(taken);
+        if (taken) {
+            throw DuplicateEmailException.of("email");
+        }
+    }
+
+    // То же для пакета: повторы внутри запроса и email, занятые другими пользователями (по запросу на порцию).
+    // В ошибке - индексы элементов запроса
+    private void checkEmailsAvailable(List<UserDto> userDtos, boolean existing) {
+        Map<Integer, Violation> violations = new TreeMap<>();
+        Map<String, Integer> firstIndexes = new HashMap<>();
+        List<Integer> probablyTaken = new ArrayList<>();
+        for (int i = 0; i < userDtos.size(); i++) {
+            String email = userDtos.get(i).getEmail();
+            if (email == null) {
+                continue;
+            }
+            if (firstIndexes.putIfAbsent(email, i) != null) {
+                violations.put(i, new Violation("[" + i + "].email", "email повторяется в запросе"));
+            } else if (emailFilter.mightContain(email)) {
+                probablyTaken.add(i);
+            }
+        }
+        for (List<Integer> chunk : chunks(probablyTaken)) {
+            List<String> emails = chunk.stream().map(i -> userDtos.get(i).getEmail()).toList();
+            Map<String, Long> owners = userRepository.findByEmailIn(emails).stream()
+                    .collect(Collectors.toMap(UserRepository.EmailOwner::getEmail, UserRepository.EmailOwner::getId));
+            for (int i : chunk) {
+                UserDto userDto = userDtos.get(i);
+                Long owner = owners.get(userDto.getEmail());
+                emailFilter.lookedUp(owner != null);
+                if (owner != null && !(existing && owner.equals(userDto.getId()))) {
+                    violations.put(i, DuplicateEmailException.violation("[" + i + "].email"));
+                }
+            }
+        }
+        if (!violations.isEmpty()) {
+            throw new DuplicateEmailException(List.copyOf(violations.values()));
+        }
+    }
+
+    // Email, занятый параллельным запросом уже после проверки, останавливает ограничение uk_users_spring_email
+    private void flushUniqueEmail(String fieldName) {
+        try {
+            entityManager.flush();
+        } catch (RuntimeException e) {
+            throw translateDuplicateEmail(e, fieldName);
+        }
+    }
+
+    private static RuntimeException translateDuplicateEmail(RuntimeException e, String fieldName) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation
+                    && EMAIL_CONSTRAINT.equalsIgnoreCase(violation.getConstraintName())) {
+                return DuplicateEmailException.of(fieldName);
+            }
+        }
+        return e;
     }
 
-    private List<UserDto> convertToDtoList (List<User> users) {
-        List<UserDto> usersDto = new ArrayList<>();
-        for (User user : users) {
-            usersDto.add(convertToDto(user));
+    private <T> List<List<T>> chunks(List<T> items) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += batchProperties.chunkSize()) {
+            chunks.add(items.subList(from, Math.min(from + batchProperties.chunkSize(), items.size())));
         }
-        return usersDto;
+        return chunks;
     }
 
     @Transactional
     public UserDto create(UserDto userDto) {
-        User newUser = new User();
-        BeanUtils.copyProperties(userDto, newUser, "id");
-        return convertToDto(userRepository.save(newUser));
+        checkEmailAvailable(userDto.getEmail());
+        User newUser = userMapper.toEntity(userDto);
+        User savedUser = userRepository.save(newUser);
+        flushUniqueEmail("email");
+        emailFilter.add(savedUser.getEmail());
+        UserDto savedDto = userMapper.toDto(savedUser);
+        publishAction("CREATE", savedUser);
+        publishUserEvent(UserEvent.created(savedDto));
+        return savedDto;
     }
 
-    @Transactional(readOnly = true)
+    @Transactional
+    public List<UserDto> createAll(List<UserDto> userDtos) {
+        checkEmailsAvailable(userDtos, false);
+        List<UserDto> createdUsers = new ArrayList<>(userDtos.size());
+        for (List<UserDto> chunk : chunks(userDtos)) {
+            List<User> newUsers = new ArrayList<>(chunk.size());
+            for (UserDto userDto : chunk) {
+                newUsers.add(userMapper.toEntity(userDto));
+            }
+            userRepository.saveAll(newUsers);
+            newUsers.forEach(user -> emailFilter.add(user.getEmail()));
+            List<UserDto> newUserDtos = userMapper.toDtoList(newUsers);
+            publishBatchAction("CREATE", newUsers);
+            newUserDtos.forEach(userDto -> publishUserEvent(UserEvent.created(userDto)));
+            flushChunk();
+            createdUsers.addAll(newUserDtos);
+        }
+        return createdUsers;
+    }
+
+    // Без собственной транзакции: запрос к БД выполняется в транзакции репозитория, и ожидающий порцию
+    // CoalescingLoader запрос не держит соединение. Промахи кэша по разным id объединяются в один запрос.
+    // Порцию читает поток другого клиента и, возможно, с реплики, поэтому клиент после записи читает сам.
+    // Прочитанное с реплики в кэш не попадает: отстающая реплика вернула бы, например, уже удаленного пользователя,
+    // и кэш отдавал бы его до истечения записи, хотя реплика давно догнала основной сервер
+    @Cacheable(cacheNames = CacheConfiguration.USERS_CACHE, key = "#id", unless = "#root.target.mayReadFromReplica()")
     public UserDto findUserById(Long id) {
-        User user = userRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("Пользователь с ID = " + id + " не найден"));
-        return convertToDto(user);
+        UserDto userDto = userLoader != null && !ReadRoutingContext.isPrimaryRequired() ? userLoader.load(id)
+                : userRepository.findById(id).map(userMapper::toDto).orElse(null);
+        if (userDto == null) {
+            throw new EntityNotFoundException("Пользователь с ID = " + id + " не найден");
+        }
+        return userDto;
     }
 
+    // Для условия кэширования findUserById (SpEL вызывает только public-методы)
+    public boolean mayReadFromReplica() {
+        return replicaReads && !ReadRoutingContext.isPrimaryRequired();
+    }
+
+    @Transactional(readOnly = true)
+    public List<UserDto> findPage(long afterId, int size) {
+        return userMapper.toDtoList(userRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(size)));
+    }
+
+    // Slice запрашивает size + 1 строк вместо отдельного COUNT(*) по всей выборке.
+    // Сортировка дополняется id, чтобы порядок страниц был стабильным при одинаковых значениях
     @Transactional(readOnly = true)
-    public List<UserDto> findAll() {
-        return convertToDtoList(userRepository.findAll());
+    public Slice<UserDto> search(UserSearchFilter filter, Sort sort, int page, int size) {
+        Sort stableSort = sort.getOrderFor("id") == null ? sort.and(Sort.by("id")) : sort;
+        PageRequest pageRequest = PageRequest.of(page, size, stableSort);
+        return userRepository.findBy(toSpecification(filter), query -> query.slice(pageRequest))
+                .map(userMapper::toDto);
     }
 
+    private static Specification<User> toSpecification(UserSearchFilter filter) {
+        List<Specification<User>> specifications = new ArrayList<>();
+        if (filter.namePrefix() != null) {
+            specifications.add(UserSpecifications.nameStartsWith(filter.namePrefix()));
+        }
+        if (filter.emailDomain() != null) {
+            specifications.add(UserSpecifications.emailDomainIs(filter.emailDomain()));
+        }
+        if (filter.minAge() != null) {
+            specifications.add(UserSpecifications.ageAtLeast(filter.minAge()));
+        }
+        if (filter.maxAge() != null) {
+            specifications.add(UserSpecifications.ageAtMost(filter.maxAge()));
+        }
+        return Specification.allOf(specifications);
+    }
+
+    // Курсор читается порциями, а прочитанные сущности сразу отсоединяются от контекста,
+    // поэтому потребление памяти не зависит от размера таблицы
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<UserDto> consumer) {
+        try (Stream<User> users = userRepository.streamAllByOrderByIdAsc()) {
+            users.forEach(user -> {
+                consumer.accept(userMapper.toDto(user));
+                entityManager.detach(user);
+            });
+        }
+    }
+
+    // expectedVersion - версия, которую видел клиент (If-Match), null - без проверки.
+    // Пользователь обновляется одним UPDATE ... RETURNING, проверка версии входит в условие запроса, а прежний
+    // email возвращается тем же запросом; дополнительный запрос выполняется только при неудаче, чтобы отличить
+    // 404 от конфликта версий. Занятость нового email проверяет уникальный индекс в том же запросе, поэтому
+    // фильтр меняется (счетчики не растут от неизмененного email) только при действительно измененном email
+    @CachePut(cacheNames = CacheConfiguration.USERS_CACHE, key = "#id")
     @Transactional
-    public UserDto update(Long id, UserDto updatedUser) {
-        User user = userRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("Пользователь с ID = " + id + " не найден"));
-        BeanUtils.copyProperties(updatedUser, user, "id");
-        return convertToDto(user);
+    public UserDto update(Long id, UserDto updatedUser, Long expectedVersion) {
+        Optional<UserRepository.UpdatedUser> updated;
+        try {
+            updated = userRepository.updatePartially(id, updatedUser.getName(), updatedUser.getEmail(),
+                    updatedUser.getAge(), expectedVersion);
+        } catch (DataIntegrityViolationException e) {
+            throw translateDuplicateEmail(e, "email");
+        }
+        UserRepository.UpdatedUser user = updated.orElseThrow(() -> {
+            if (expectedVersion != null && userRepository.existsById(id)) {
+                return new ObjectOptimisticLockingFailureException(User.class, id);
+            }
+            return new EntityNotFoundException("Пользователь с ID = " + id + " не найден");
+        });
+        if (!user.getEmail().equals(user.getPreviousEmail())) {
+            emailFilter.add(user.getEmail());
+            emailFilter.removeAfterCommit(user.getPreviousEmail());
+        }
+        UserDto userDto = new UserDto(user.getId(), user.getName(), user.getEmail(), user.getAge(), user.getVersion());
+        publishAction("UPDATE", user.getId(), user.getEmail());
+        publishUserEvent(UserEvent.updated(userDto, updatedUser));
+        return userDto;
     }
 
+    @Transactional
+    public List<UserDto> updateAll(List<UserDto> updatedUsers) {
+        checkEmailsAvailable(updatedUsers, true);
+        List<UserDto> result = new ArrayList<>(updatedUsers.size());
+        for (List<UserDto> chunk : chunks(updatedUsers)) {
+            List<Long> ids = chunk.stream().map(UserDto::getId).toList();
+            Map<Long, User> users = userRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(User::getId, Function.identity()));
+            List<Long> missingIds = ids.stream().filter(id -> !users.containsKey(id)).toList();
+            if (!missingIds.isEmpty()) {
+                throw new EntityNotFoundException("Пользователи с ID = " + missingIds + " не найдены");
+            }
+            List<User> changedUsers = new ArrayList<>(chunk.size());
+            for (UserDto updatedUser : chunk) {
+                User user = users.get(updatedUser.getId());
+                String previousEmail = user.getEmail();
+                userMapper.updateEntity(updatedUser, user);
+                if (user.getEmail() != null && !user.getEmail().equals(previousEmail)) {
+                    emailFilter.add(user.getEmail());
+                    emailFilter.removeAfterCommit(previousEmail);
+                }
+                changedUsers.add(user);
+            }
+            publishBatchAction("UPDATE", changedUsers);
+            flushChunk();
+            for (int i = 0; i < changedUsers.size(); i++) {
+                UserDto userDto = userMapper.toDto(changedUsers.get(i));
+                publishUserEvent(UserEvent.updated(userDto, chunk.get(i)));
+                usersCache.put(userDto.getId(), userDto);
+                result.add(userDto);
+            }
+        }
+        return result;
+    }
+
+    @CacheEvict(cacheNames = CacheConfiguration.USERS_CACHE, key = "#id")
     @Transactional
     public void delete(Long id) {
-        userRepository.deleteById(id);
+        userRepository.deleteReturning(id).ifPresent(deleted -> {
+            emailFilter.removeAfterCommit(deleted.getEmail());
+            publishAction("DELETE", id, deleted.getEmail());
+            publishUserEvent(UserEvent.deleted(id, deleted.getVersion()));
+        });
+    }
+
+    @Transactional
+    public void deleteAll(List<Long> ids) {
+        for (List<Long> chunk : chunks(ids)) {
+            List<User> users = userRepository.findAllById(chunk);
+            if (users.isEmpty()) {
+                continue;
+            }
+            publishBatchAction("DELETE", users);
+            users.forEach(user -> publishUserEvent(UserEvent.deleted(user.getId(), user.getVersion())));
+            userRepository.deleteAllByIdInBatch(users.stream().map(User::getId).toList());
+            users.forEach(user -> {
+                usersCache.evict(user.getId());
+                emailFilter.removeAfterCommit(user.getEmail());
+            });
+            flushChunk();
+        }
     }
 }
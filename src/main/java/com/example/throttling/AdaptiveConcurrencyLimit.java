@@ -0,0 +1,74 @@
+package com.example.throttling;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Ограничение числа одновременных запросов, которое подстраивается под задержку БД (AIMD):
+// пока средняя задержка SQL не выше целевой и ограничение используется хотя бы наполовину, оно растет на 1
+// после каждого запроса, а при превышении уменьшается на 10%, но не чаще одного раза за целевую задержку,
+// чтобы успело сказаться предыдущее уменьшение
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long targetLatencyNanos;
+
+    private final DbLatencyTracker dbLatency;
+
+    private final LongSupplier clock;
+
+    private final AtomicInteger limit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong lastDecrease = new AtomicLong(Long.MIN_VALUE);
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long targetLatencyNanos,
+                                    DbLatencyTracker dbLatency, LongSupplier clock) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Некорректные границы ограничения: " + minLimit + ".." + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.dbLatency = dbLatency;
+        this.clock = clock;
+        this.limit = new AtomicInteger(Math.clamp(initialLimit, minLimit, maxLimit));
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        int used = inFlight.getAndDecrement();
+        if (dbLatency.averageNanos() > targetLatencyNanos) {
+            long now = clock.getAsLong();
+            long last = lastDecrease.get();
+            if ((last == Long.MIN_VALUE || now - last >= targetLatencyNanos) && lastDecrease.compareAndSet(last, now)) {
+                limit.updateAndGet(current -> Math.max(minLimit, (int) (current * 0.9)));
+            }
+        } else if (used * 2 >= limit.get()) {
+            limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+        }
+    }
+
+    public int limit() {
+        return limit.get();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.throttling;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.util.StringUtils;
+
+// Ключ клиента для ограничения его скорости и для чтения своих записей (ReadYourWritesFilter). По умолчанию - адрес клиента: за балансировщиком или api gateway его
+// восстанавливает Tomcat из X-Forwarded-For (server.forward-headers-strategy=native), доверяя только прокси из
+// server.tomcat.remoteip.internal-proxies. header - заголовок, в котором шлюз передает клиента (id пользователя,
+// ключ API); шлюз должен перезаписывать его, иначе клиент сам выбирает себе ключ. Без заголовка - адрес
+public class ClientKeyResolver {
+
+    private final String header;
+
+    public ClientKeyResolver(String header) {
+        this.header = StringUtils.hasText(header) ? header : null;
+    }
+
+    public String resolve(HttpServletRequest request) {
+        if (header != null) {
+            String client = request.getHeader(header);
+            if (StringUtils.hasText(client)) {
+                return client;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
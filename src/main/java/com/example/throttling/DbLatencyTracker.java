@@ -0,0 +1,59 @@
+package com.example.throttling;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Средняя задержка SQL-запросов за последние 100 мс. Запросы только увеличивают распределенные счетчики LongAdder,
+// среднее пересчитывает один поток при первом обращении после окончания окна
+public class DbLatencyTracker implements QueryExecutionListener {
+
+    private static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final LongSupplier clock;
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAdder queries = new LongAdder();
+
+    private final AtomicLong windowStart;
+
+    private volatile long averageNanos;
+
+    public DbLatencyTracker(LongSupplier clock) {
+        this.clock = clock;
+        this.windowStart = new AtomicLong(clock.getAsLong());
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        record(TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime()));
+    }
+
+    public void record(long nanos) {
+        totalNanos.add(nanos);
+        queries.increment();
+    }
+
+    public long averageNanos() {
+        long now = clock.getAsLong();
+        long start = windowStart.get();
+        if (now - start >= WINDOW && windowStart.compareAndSet(start, now)) {
+            long count = queries.sumThenReset();
+            long total = totalNanos.sumThenReset();
+            // Окно без запросов не сбрасывает оценку сразу, иначе простой после перегрузки выглядел бы как быстрая БД
+            averageNanos = count > 0 ? total / count : averageNanos / 2;
+        }
+        return averageNanos;
+    }
+}
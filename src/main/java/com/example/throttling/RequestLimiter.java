@@ -0,0 +1,83 @@
+package com.example.throttling;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// Ограничения для одного вида запросов (чтение или запись): скорость одного клиента, общая скорость
+// и число одновременных запросов
+public class RequestLimiter {
+
+    public enum Rejection {CLIENT_RATE, GLOBAL_RATE, CONCURRENCY}
+
+    // Отказ и время в наносекундах, после которого запрос стоит повторить
+    public record Decision(Rejection rejection, long retryAfterNanos) {
+
+        private static final Decision ACCEPTED = new Decision(null, 0);
+
+        public boolean accepted() {
+            return rejection == null;
+        }
+    }
+
+    private final StripedTokenBucket globalBucket;
+
+    private final Cache<String, TokenBucket> clientBuckets;
+
+    private final double clientRate;
+
+    private final int clientBurst;
+
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+
+    private final LongSupplier clock;
+
+    public RequestLimiter(double globalRate, int globalBurst, double clientRate, int clientBurst,
+                          AdaptiveConcurrencyLimit concurrencyLimit, LongSupplier clock) {
+        this.globalBucket = new StripedTokenBucket(globalRate, globalBurst, Runtime.getRuntime().availableProcessors());
+        this.clientRate = clientRate;
+        this.clientBurst = clientBurst;
+        this.concurrencyLimit = concurrencyLimit;
+        this.clock = clock;
+        // Корзина, простоявшая дольше полного пополнения, ничем не отличается от новой и может быть удалена
+        long refillNanos = (long) (TimeUnit.SECONDS.toNanos(1) * clientBurst / clientRate);
+        this.clientBuckets = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofNanos(Math.max(refillNanos, TimeUnit.SECONDS.toNanos(1))))
+                .build();
+    }
+
+    // При успехе вызывающий обязан вызвать release() после обработки запроса. Клиент проверяется первым, чтобы
+    // отклоненные запросы одного клиента не расходовали общую скорость; токены, взятые до отказа по общему
+    // ограничению, возвращаются - запрос, не дошедший до обработки, не уменьшает квоту клиента
+    public Decision tryAcquire(String client) {
+        long now = clock.getAsLong();
+        TokenBucket clientBucket = clientBuckets.get(client, key -> new TokenBucket(clientRate, clientBurst));
+        long wait = clientBucket.tryAcquire(now);
+        if (wait > 0) {
+            return new Decision(Rejection.CLIENT_RATE, wait);
+        }
+        wait = globalBucket.tryAcquire(now);
+        if (wait > 0) {
+            clientBucket.refund();
+            return new Decision(Rejection.GLOBAL_RATE, wait);
+        }
+        if (!concurrencyLimit.tryAcquire()) {
+            globalBucket.refund();
+            clientBucket.refund();
+            return new Decision(Rejection.CONCURRENCY, TimeUnit.SECONDS.toNanos(1));
+        }
+        return Decision.ACCEPTED;
+    }
+
+    public void release() {
+        concurrencyLimit.release();
+    }
+
+    public AdaptiveConcurrencyLimit concurrencyLimit() {
+        return concurrencyLimit;
+    }
+}
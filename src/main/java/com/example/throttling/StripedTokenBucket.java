@@ -0,0 +1,40 @@
+package com.example.throttling;
+
+// Общая для всех клиентов корзина, разделенная на несколько независимых корзин: потоки начинают с "своей"
+// и переходят к соседним, только если в ней нет токенов, поэтому CAS по одному счетчику не становится узким местом
+public class StripedTokenBucket {
+
+    private final TokenBucket[] stripes;
+
+    private final int mask;
+
+    public StripedTokenBucket(double permitsPerSecond, int burst, int stripes) {
+        int count = Integer.highestOneBit(Math.max(1, Math.min(stripes, burst)));
+        this.stripes = new TokenBucket[count];
+        this.mask = count - 1;
+        for (int i = 0; i < count; i++) {
+            // Остаток от деления размера корзины достается первым полосам, чтобы сумма совпадала с burst
+            int stripeBurst = burst / count + (i < burst % count ? 1 : 0);
+            this.stripes[i] = new TokenBucket(permitsPerSecond / count, stripeBurst);
+        }
+    }
+
+    public long tryAcquire(long now) {
+        int home = (int) Thread.currentThread().threadId();
+        long minWait = Long.MAX_VALUE;
+        for (int i = 0; i < stripes.length; i++) {
+            long wait = stripes[(home + i) & mask].tryAcquire(now);
+            if (wait == 0) {
+                return 0;
+            }
+            minWait = Math.min(minWait, wait);
+        }
+        return minWait;
+    }
+
+    // Токен возвращается в "свою" полосу вызывающего потока, даже если был взят у соседней: общее число токенов
+    // сохраняется, а полоса, в которой их и так burst, возврат не принимает
+    public void refund() {
+        stripes[(int) Thread.currentThread().threadId() & mask].refund();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.throttling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Корзина токенов без блокировок (алгоритм GCRA): состояние - одно число, теоретическое время следующего запроса.
+// Запрос проходит, если это время отстает от текущего не больше чем на размер корзины,
+// и сдвигает его на интервал между токенами одной операцией compareAndSet
+public class TokenBucket {
+
+    private final long interval;
+
+    private final long capacity;
+
+    private final AtomicLong nextRequestTime = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Скорость и размер корзины должны быть положительными");
+        }
+        this.interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.capacity = interval * burst;
+    }
+
+    // 0, если токен получен, иначе время в наносекундах, через которое появится следующий токен
+    public long tryAcquire(long now) {
+        while (true) {
+            long current = nextRequestTime.get();
+            long next = Math.max(current, now) + interval;
+            long allowedAt = next - capacity;
+            if (allowedAt > now) {
+                return allowedAt - now;
+            }
+            if (nextRequestTime.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // Возвращает полученный токен, если запрос все равно отклонен. Корзина, уже пополнившаяся до burst,
+    // лишнего токена не получит: время в прошлом tryAcquire заменяет текущим
+    public void refund() {
+        nextRequestTime.addAndGet(-interval);
+    }
+}
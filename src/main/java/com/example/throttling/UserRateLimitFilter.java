@@ -0,0 +1,110 @@
+package com.example.throttling;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Отклоняет запросы к /users сразу, не дожидаясь соединения из пула: превышение скорости клиентом - 429,
+// перегрузка сервиса (общая скорость или число одновременных запросов) - 503, в обоих случаях с Retry-After.
+// Чтение (GET, HEAD) и запись ограничиваются отдельно, чтобы поток записей не вытеснял чтение и наоборот
+public class UserRateLimitFilter extends OncePerRequestFilter {
+
+    private final RequestLimiter readLimiter;
+
+    private final RequestLimiter writeLimiter;
+
+    private final ClientKeyResolver clientKeyResolver;
+
+    private final MeterRegistry meterRegistry;
+
+    public UserRateLimitFilter(RequestLimiter readLimiter, RequestLimiter writeLimiter,
+                               ClientKeyResolver clientKeyResolver, MeterRegistry meterRegistry) {
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+        this.clientKeyResolver = clientKeyResolver;
+        this.meterRegistry = meterRegistry;
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean read = isRead(request);
+        RequestLimiter limiter = read ? readLimiter : writeLimiter;
+        RequestLimiter.Decision decision = limiter.tryAcquire(clientKeyResolver.resolve(request));
+        if (!decision.accepted()) {
+            reject(response, read, decision);
+            return;
+        }
+        boolean released = false;
+        try {
+            filterChain.doFilter(request, response);
+            // Потоковая выгрузка продолжается после выхода из фильтра, место освобождается по ее завершении
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(limiter));
+                released = true;
+            }
+        } finally {
+            if (!released) {
+                limiter.release();
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response, boolean read, RequestLimiter.Decision decision)
+            throws IOException {
+        Counter.builder("users.rate_limit.rejected")
+                .description("Запросы, отклоненные ограничением нагрузки")
+                .tag("kind", read ? "read" : "write")
+                .tag("reason", decision.rejection().name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry)
+                .increment();
+        boolean clientRate = decision.rejection() == RequestLimiter.Rejection.CLIENT_RATE;
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(decision.retryAfterNanos() + 999_999_999));
+        response.setStatus(clientRate ? HttpStatus.TOO_MANY_REQUESTS.value() : HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(clientRate ? "Слишком много запросов, повторите позже"
+                : "Сервис перегружен, повторите позже");
+    }
+
+    private record ReleaseOnComplete(RequestLimiter limiter) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limiter.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,37 @@
+-- Схема, которую раньше создавал Hibernate (ddl-auto). IF NOT EXISTS позволяет применить миграцию к базе,
+-- созданной прежними версиями сервиса (spring.flyway.baseline-on-migrate с версией 0); последовательности
+-- в такой базе сдвигаются за уже занятые id (в конце файла)
+CREATE SEQUENCE IF NOT EXISTS users_spring_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS users_spring (
+    id         bigint       NOT NULL PRIMARY KEY,
+    name       varchar(255),
+    email      varchar(255) CONSTRAINT uk_users_spring_email UNIQUE,
+    age        integer      NOT NULL,
+    created_at date
+);
+
+-- Оптимистическая блокировка (ETag); в базах, созданных до ее появления, колонки нет
+ALTER TABLE users_spring ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS idx_users_spring_age ON users_spring (age);
+
+CREATE SEQUENCE IF NOT EXISTS outbox_events_seq START WITH 1 INCREMENT BY 50;
+
+-- payload - bytea: текст действий в UTF-8 или события пользователей в UserBinaryFormat
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id          bigint                      NOT NULL PRIMARY KEY,
+    topic       varchar(255)                NOT NULL,
+    message_key varchar(255),
+    payload     bytea                       NOT NULL,
+    created_at  timestamp(6) with time zone
+);
+
+-- Прежние версии назначали id через IDENTITY, и только что созданная последовательность выдала бы занятые id.
+-- Hibernate (pooled) берет блок (значение - 49, значение], поэтому достаточно setval(max(id)); последовательность,
+-- которая уже ушла дальше max(id), назад не сдвигается
+SELECT setval('users_spring_seq', max(id)) FROM users_spring
+HAVING max(id) > (SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM users_spring_seq);
+
+SELECT setval('outbox_events_seq', max(id)) FROM outbox_events
+HAVING max(id) > (SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM outbox_events_seq);
@@ -0,0 +1,8 @@
+-- Индексы для GET /users/search по выражениям lower(...), которые строит UserSpecifications
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Поиск по префиксу имени: lower(name) LIKE 'abc%'
+CREATE INDEX IF NOT EXISTS idx_users_spring_name_prefix ON users_spring (lower(name) text_pattern_ops);
+
+-- Поиск по домену почты: lower(email) LIKE '%@example.com'
+CREATE INDEX IF NOT EXISTS idx_users_spring_email_trgm ON users_spring USING gin (lower(email) gin_trgm_ops);
@@ -0,0 +1,52 @@
+-- Лента изменений для GET /users/changes (UserChangeFeed). Номер изменения и время записи назначает триггер,
+-- поэтому их получают все пути записи: JPA, нативные UPDATE ... RETURNING, пакетные операции и импорт через COPY
+CREATE SEQUENCE users_spring_change_seq;
+
+-- Существующие строки получают номера при добавлении колонки
+ALTER TABLE users_spring
+    ADD COLUMN change_seq bigint NOT NULL DEFAULT nextval('users_spring_change_seq'),
+    ADD COLUMN updated_at timestamp(6) with time zone NOT NULL DEFAULT clock_timestamp();
+
+ALTER TABLE users_spring
+    ALTER COLUMN change_seq DROP DEFAULT,
+    ALTER COLUMN updated_at DROP DEFAULT;
+
+CREATE UNIQUE INDEX idx_users_spring_change_seq ON users_spring (change_seq);
+
+-- Удаленные пользователи: хранятся users.changes.tombstone-retention, затем удаляются
+CREATE TABLE users_spring_tombstones (
+    change_seq bigint                      NOT NULL PRIMARY KEY,
+    id         bigint                      NOT NULL,
+    version    bigint                      NOT NULL,
+    deleted_at timestamp(6) with time zone NOT NULL
+);
+
+CREATE INDEX idx_users_spring_tombstones_deleted_at ON users_spring_tombstones (deleted_at);
+
+-- Наибольший номер удаленной записи об удалении: ленте с меньшего номера уже не хватает удалений
+CREATE TABLE users_spring_tombstones_purged (
+    change_seq bigint NOT NULL
+);
+
+INSERT INTO users_spring_tombstones_purged (change_seq) VALUES (0);
+
+-- Номер выдается, когда транзакция уже держит блокировку users_spring ROW EXCLUSIVE: на этом основан
+-- горизонт ленты (ChangeFeedHorizon)
+CREATE FUNCTION users_spring_track_change() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO users_spring_tombstones (change_seq, id, version, deleted_at)
+        VALUES (nextval('users_spring_change_seq'), OLD.id, OLD.version, clock_timestamp());
+        RETURN NULL;
+    END IF;
+    NEW.change_seq := nextval('users_spring_change_seq');
+    NEW.updated_at := clock_timestamp();
+    RETURN NEW;
+END
+$$;
+
+CREATE TRIGGER users_spring_track_change BEFORE INSERT OR UPDATE ON users_spring
+    FOR EACH ROW EXECUTE FUNCTION users_spring_track_change();
+
+CREATE TRIGGER users_spring_track_delete AFTER DELETE ON users_spring
+    FOR EACH ROW EXECUTE FUNCTION users_spring_track_change();
@@ -0,0 +1,4 @@
+-- OutboxRelay занимает пачку событий на время отправки отметкой, а не блокировкой строк в открытой транзакции:
+-- до claimed_until другие экземпляры пропускают эти события, после - считают их брошенными и отправляют сами
+ALTER TABLE outbox_events
+    ADD COLUMN claimed_until timestamp(6) with time zone;
@@ -0,0 +1,47 @@
+package com.example;
+
+import com.example.services.ChangeFeedHorizon;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangeFeedHorizonTest {
+
+    @Test
+    @DisplayName("Без изменяющих таблицу транзакций горизонт - прочитанное значение последовательности")
+    public void advanceTest_noWriters() {
+        ChangeFeedHorizon horizon = new ChangeFeedHorizon();
+
+        assertEquals(10, horizon.advance(10, Set.of()));
+        assertEquals(15, horizon.advance(15, Set.of()));
+    }
+
+    @Test
+    @DisplayName("Значение становится безопасным, когда завершились все писатели, застанные после его чтения")
+    public void advanceTest_waitsForWriters() {
+        ChangeFeedHorizon horizon = new ChangeFeedHorizon();
+        assertEquals(5, horizon.advance(5, Set.of()));
+
+        // Транзакция 3/100 могла получить номер не больше 10 и еще не закончилась
+        assertEquals(5, horizon.advance(10, Set.of("3/100")));
+        assertEquals(5, horizon.advance(12, Set.of("3/100", "4/7")));
+        // 3/100 завершилась, 4/7 (и номер 12) еще нет
+        assertEquals(10, horizon.advance(14, Set.of("4/7")));
+        assertEquals(10, horizon.advance(16, Set.of("4/7", "5/1")));
+        assertEquals(14, horizon.advance(20, Set.of("5/1")));
+        assertEquals(20, horizon.advance(20, Set.of()));
+    }
+
+    @Test
+    @DisplayName("Горизонт не уменьшается при запросах, прочитавших последовательность раньше")
+    public void advanceTest_monotonic() {
+        ChangeFeedHorizon horizon = new ChangeFeedHorizon();
+        assertEquals(20, horizon.advance(20, Set.of()));
+
+        assertEquals(20, horizon.advance(18, Set.of()));
+        assertEquals(20, horizon.advance(19, Set.of("3/100")));
+    }
+}
@@ -0,0 +1,136 @@
+package com.example;
+
+import com.example.services.CoalescingLoader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoalescingLoaderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final List<Set<Long>> batches = new CopyOnWriteArrayList<>();
+
+    // Загрузка id SLOW ждет release: пока она идет, новые запросы копятся в окне
+    private static final long SLOW = 100;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private Map<Long, String> loadUsers(Set<Long> ids) {
+        batches.add(Set.copyOf(ids));
+        if (ids.contains(SLOW)) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Map<Long, String> users = new HashMap<>();
+        ids.stream().filter(id -> id != 0).forEach(id -> users.put(id, "user" + id));
+        return users;
+    }
+
+    // Запускает загрузку SLOW и ждет, пока она начнется
+    private Future<String> loadSlow(ExecutorService executor, CoalescingLoader<Long, String> loader)
+            throws InterruptedException {
+        Future<String> slow = executor.submit(() -> loader.load(SLOW));
+        while (batches.isEmpty()) {
+            Thread.sleep(1);
+        }
+        return slow;
+    }
+
+    @Test
+    @DisplayName("Запрос без параллельной загрузки выполняется сразу, не дожидаясь окна")
+    public void loadTest_idleDispatchedImmediately() {
+        CoalescingLoader<Long, String> loader = new CoalescingLoader<>("test", this::loadUsers,
+                TimeUnit.SECONDS.toNanos(30), 100, meterRegistry);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertEquals("user1", loader.load(1L));
+            assertEquals("user2", loader.load(2L));
+        });
+        assertEquals(List.of(Set.of(1L), Set.of(2L)), batches);
+    }
+
+    @Test
+    @DisplayName("Одновременные запросы за окно объединяются в один запрос, одинаковые id загружаются один раз")
+    public void loadTest_coalescesWindow() throws Exception {
+        CoalescingLoader<Long, String> loader = new CoalescingLoader<>("test", this::loadUsers,
+                TimeUnit.MILLISECONDS.toNanos(500), 1000, meterRegistry);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        Future<String> slow;
+        try (ExecutorService executor = Executors.newFixedThreadPool(51)) {
+            slow = loadSlow(executor, loader);
+            for (int i = 0; i < 50; i++) {
+                long id = i % 10;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return loader.load(id);
+                }));
+            }
+            start.countDown();
+            try {
+                for (Future<String> result : results) {
+                    result.get();
+                }
+            } finally {
+                release.countDown();
+            }
+        }
+
+        assertEquals(List.of(Set.of(SLOW), Set.of(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L)), batches);
+        assertEquals("user" + SLOW, slow.get());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i % 10 == 0 ? null : "user" + (i % 10), results.get(i).get());
+        }
+        assertEquals(11, meterRegistry.get("test.batch.size").summary().totalAmount());
+        assertEquals(49, meterRegistry.get("test.queries.saved").counter().count());
+    }
+
+    @Test
+    @DisplayName("Заполненная порция загружается сразу, не дожидаясь конца окна")
+    public void loadTest_fullBatchDispatchedEarly() {
+        CoalescingLoader<Long, String> loader = new CoalescingLoader<>("test", this::loadUsers,
+                TimeUnit.SECONDS.toNanos(30), 2, meterRegistry);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            try (ExecutorService executor = Executors.newFixedThreadPool(3)) {
+                loadSlow(executor, loader);
+                Future<String> first = executor.submit(() -> loader.load(1L));
+                Future<String> second = executor.submit(() -> loader.load(2L));
+                assertEquals("user1", first.get());
+                assertEquals("user2", second.get());
+                release.countDown();
+            }
+        });
+        assertEquals(List.of(Set.of(SLOW), Set.of(1L, 2L)), batches);
+    }
+
+    @Test
+    @DisplayName("Ошибка загрузки порции получают все ее запросы, следующая порция загружается заново")
+    public void loadTest_failure() {
+        CoalescingLoader<Long, String> failing = new CoalescingLoader<>("test", ids -> {
+            throw new IllegalStateException("БД недоступна");
+        }, 0, 100, meterRegistry);
+
+        assertThrows(IllegalStateException.class, () -> failing.load(1L));
+        assertThrows(IllegalStateException.class, () -> failing.load(1L));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example;
+
+import com.example.services.CountingBloomFilter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CountingBloomFilterTest {
+
+    @Test
+    @DisplayName("Добавленные значения всегда найдены, доля ложных срабатываний близка к заданной")
+    public void mightContainTest() {
+        CountingBloomFilter filter = new CountingBloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.add("user" + i + "@gmail.com");
+        }
+
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain("user" + i + "@gmail.com"));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other" + i + "@gmail.com")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "ложных срабатываний: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("Удаленное значение больше не найдено, остальные остаются")
+    public void removeTest() {
+        CountingBloomFilter filter = new CountingBloomFilter(1000, 0.01);
+        filter.add("vasya@gmail.com");
+        filter.add("dima@gmail.com");
+        filter.add("dima@gmail.com");
+
+        filter.remove("vasya@gmail.com");
+        filter.remove("dima@gmail.com");
+
+        assertFalse(filter.mightContain("vasya@gmail.com"));
+        assertTrue(filter.mightContain("dima@gmail.com"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example;
+
+import com.example.journal.JournalDrainer;
+import com.example.journal.SpillJournal;
+import com.example.services.KafkaProducerService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.KafkaException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JournalDrainerTest {
+
+    @TempDir
+    Path directory;
+
+    private final KafkaProducerService kafkaProducerService = mock(KafkaProducerService.class);
+
+    @Test
+    @DisplayName("Пока kafka недоступна, сообщения ждут в журнале, затем отправляются в порядке записи")
+    public void drainTest_brokerRecovers() throws Exception {
+        AtomicBoolean brokerUp = new AtomicBoolean();
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        when(kafkaProducerService.send(anyString(), anyString(), any(byte[].class))).thenAnswer(invocation -> {
+            if (!brokerUp.get()) {
+                return CompletableFuture.failedFuture(new KafkaException("брокер недоступен"));
+            }
+            delivered.add(new String(invocation.<byte[]>getArgument(2), StandardCharsets.UTF_8));
+            return CompletableFuture.completedFuture(null);
+        });
+
+        try (SpillJournal journal = SpillJournal.open(directory, 256, 100);
+             JournalDrainer drainer = new JournalDrainer(journal, kafkaProducerService, 3, Duration.ofSeconds(1),
+                     Duration.ofMillis(10), Duration.ofMillis(1))) {
+            drainer.start();
+            for (int i = 0; i < 10; i++) {
+                journal.append("actions", String.valueOf(i), ("message " + i).getBytes(StandardCharsets.UTF_8)).get();
+            }
+            Thread.sleep(100);
+            assertEquals(10, journal.pending());
+            assertTrue(journal.depth() > 0);
+            assertTrue(drainer.lagSeconds() > 0);
+
+            brokerUp.set(true);
+            await().atMost(Duration.ofSeconds(10)).until(() -> journal.pending() == 0);
+            assertEquals(List.of("message 0", "message 1", "message 2", "message 3", "message 4", "message 5",
+                    "message 6", "message 7", "message 8", "message 9"), delivered);
+            assertEquals(0, journal.depth());
+            await().atMost(Duration.ofSeconds(10)).until(() -> drainer.lagSeconds() == 0);
+        }
+    }
+}
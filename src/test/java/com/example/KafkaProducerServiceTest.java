@@ -0,0 +1,56 @@
+package com.example;
+
+import com.example.services.KafkaProducerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KafkaProducerServiceTest {
+
+    private MockProducer<String, byte[]> producer;
+
+    private MeterRegistry meterRegistry;
+
+    private KafkaProducerService kafkaProducerService;
+
+    @BeforeEach
+    public void setUp() {
+        producer = new MockProducer<>(false, new StringSerializer(), new ByteArraySerializer());
+        meterRegistry = new SimpleMeterRegistry();
+        kafkaProducerService = new KafkaProducerService(new KafkaTemplate<>(() -> producer), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Сообщение отправляется с ключом, время отправки попадает в метрики")
+    public void sendTest_success() {
+        CompletableFuture<?> future = kafkaProducerService.send("actions", "1", "CREATE vasya@gmail.com");
+        assertFalse(future.isDone());
+
+        producer.completeNext();
+
+        assertTrue(future.isDone());
+        assertEquals("1", producer.history().getFirst().key());
+        assertEquals(1, meterRegistry.get("kafka.producer.send").tag("result", "success").timer().count());
+    }
+
+    @Test
+    @DisplayName("Ошибка отправки возвращается через future и учитывается в метриках")
+    public void sendTest_failure() {
+        CompletableFuture<?> future = kafkaProducerService.send("actions", "1", "CREATE vasya@gmail.com");
+
+        producer.errorNext(new RuntimeException("broker is down"));
+
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(1, meterRegistry.get("kafka.producer.send.errors").counter().count());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example;
+
+import com.example.configuration.OutboxProperties;
+import com.example.models.OutboxEvent;
+import com.example.repositories.OutboxEventRepository;
+import com.example.services.KafkaProducerService;
+import com.example.services.OutboxRelay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class OutboxRelayTest {
+
+    private OutboxEventRepository outboxEventRepository;
+
+    private KafkaProducerService kafkaProducerService;
+
+    private PlatformTransactionManager transactionManager;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    public void setUp() {
+        outboxEventRepository = mock(OutboxEventRepository.class);
+        kafkaProducerService = mock(KafkaProducerService.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        outboxRelay = new OutboxRelay(outboxEventRepository, kafkaProducerService,
+                new TransactionTemplate(transactionManager),
+                new OutboxProperties(10, Duration.ofMillis(500), Duration.ofMillis(200)));
+    }
+
+    private static OutboxEvent event(long id) {
+        OutboxEvent event = new OutboxEvent("actions", String.valueOf(id), "CREATE user" + id + "@gmail.com");
+        event.setId(id);
+        return event;
+    }
+
+    @Test
+    @DisplayName("Пачка занимается в отдельной транзакции, подтверждения брокера ждутся вне транзакции")
+    public void relayTest_sendsOutsideTransaction() {
+        when(outboxEventRepository.claimNextBatch(10, 1)).thenReturn(List.of(event(1), event(2)));
+        when(kafkaProducerService.send(eq("actions"), anyString(), any(byte[].class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        outboxRelay.relay();
+
+        InOrder inOrder = inOrder(transactionManager, outboxEventRepository, kafkaProducerService);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(outboxEventRepository).claimNextBatch(10, 1);
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(kafkaProducerService, times(2)).send(eq("actions"), anyString(), any(byte[].class));
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("После сбоя брокера подтвержденные события удаляются, остальные освобождаются для повтора")
+    public void relayTest_brokerFailure() {
+        when(outboxEventRepository.claimNextBatch(10, 1)).thenReturn(List.of(event(1), event(2), event(3)));
+        CompletableFuture<SendResult<String, byte[]>> pending = new CompletableFuture<>();
+        when(kafkaProducerService.send(eq("actions"), anyString(), any(byte[].class)))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker is down")))
+                .thenReturn(pending);
+
+        outboxRelay.relay();
+
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L));
+        verify(outboxEventRepository).releaseClaims(List.of(2L, 3L));
+        verify(outboxEventRepository, times(1)).claimNextBatch(anyInt(), anyLong());
+    }
+}
@@ -0,0 +1,113 @@
+package com.example;
+
+import com.example.DTOs.UserDto;
+import com.example.reactive.ReactiveUserApplication;
+import com.example.reactive.ReactiveUserService;
+import com.example.services.DuplicateEmailException;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(classes = ReactiveUserApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "users.journal.directory=target/reactive-journal")
+@ActiveProfiles("reactive")
+@AutoConfigureWebTestClient
+public class ReactiveUserControllerTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @MockitoBean
+    ReactiveUserService userService;
+
+    @Test
+    @DisplayName("Успешное создание пользователя")
+    public void createUserTest() {
+        UserDto userDto = new UserDto(1L, "Vasya", "vasya@gmail.com", 20);
+        when(userService.create(any(UserDto.class))).thenReturn(Mono.just(userDto));
+
+        webTestClient.post().uri("/users/create")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(userDto)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(1)
+                .jsonPath("$.email").isEqualTo("vasya@gmail.com");
+    }
+
+    @Test
+    @DisplayName("Ошибки проверки возвращаются так же, как в MVC-варианте")
+    public void createUserTest_invalidBody() {
+        webTestClient.post().uri("/users/create")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserDto(null, "", "vasya@gmail.com", 20))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.violations[0].fieldName").isEqualTo("name")
+                .jsonPath("$.violations[0].message").isEqualTo("имя не должно быть пустым");
+    }
+
+    @Test
+    @DisplayName("Занятый email - 409 с ошибкой в поле email, как в MVC-варианте")
+    public void createUserTest_duplicateEmail() {
+        when(userService.create(any(UserDto.class))).thenReturn(Mono.error(DuplicateEmailException.of("email")));
+
+        webTestClient.post().uri("/users/create")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserDto(null, "Vasya", "vasya@gmail.com", 20))
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.violations[0].fieldName").isEqualTo("email");
+    }
+
+    @Test
+    @DisplayName("Некорректный id пользователя")
+    public void findUserByIdTest_invalidId() {
+        webTestClient.get().uri("/users/{id}", 0)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.violations[0].fieldName").isEqualTo("findUserById.id");
+    }
+
+    @Test
+    @DisplayName("Пользователь не найден")
+    public void findUserByIdTest_userNotFound() {
+        when(userService.findUserById(anyLong())).thenReturn(Mono.error(new EntityNotFoundException()));
+
+        webTestClient.get().uri("/users/{id}", 1)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Список пользователей отдается потоком NDJSON")
+    public void findAllUsersTest_ndjson() {
+        when(userService.findAll(0)).thenReturn(Flux.just(
+                new UserDto(1L, "Vasya", "vasya@gmail.com", 20),
+                new UserDto(2L, "Dima", "dima@gmail.com", 25)));
+
+        webTestClient.get().uri("/users/all")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(UserDto.class).hasSize(2);
+    }
+}
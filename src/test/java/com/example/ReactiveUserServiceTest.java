@@ -0,0 +1,119 @@
+package com.example;
+
+import com.example.DTOs.UserDto;
+import com.example.DTOs.UserEvent;
+import com.example.journal.JournalEntry;
+import com.example.journal.SpillJournal;
+import com.example.reactive.ReactiveUserRepository;
+import com.example.reactive.ReactiveUserService;
+import com.example.services.DuplicateEmailException;
+import com.example.services.UserEventCodec;
+import io.r2dbc.postgresql.api.ErrorDetails;
+import io.r2dbc.postgresql.api.PostgresqlException;
+import io.r2dbc.postgresql.message.backend.Field;
+import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReactiveUserServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final ReactiveUserRepository userRepository = mock(ReactiveUserRepository.class);
+
+    private final UserEventCodec userEventCodec = new UserEventCodec();
+
+    private SpillJournal journal;
+
+    private ReactiveUserService userService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        journal = SpillJournal.open(directory, 4096, 10);
+        userService = new ReactiveUserService(userRepository, journal, userEventCodec);
+    }
+
+    @AfterEach
+    public void close() {
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("Создание и удаление пишут в журнал сообщение в actions и UserEvent в user-events")
+    public void createAndDeleteTest_journalsUserEvents() {
+        UserDto created = new UserDto(1L, "Vasya", "vasya@gmail.com", 20, 0L);
+        when(userRepository.insert(any(UserDto.class))).thenReturn(Mono.just(created));
+        when(userRepository.deleteReturning(1L)).thenReturn(Mono.just(
+                new UserDto(1L, "Vasya", "vasya@gmail.com", 20, 3L)));
+
+        userService.create(new UserDto(null, "Vasya", "vasya@gmail.com", 20)).block();
+        userService.delete(1L).block();
+
+        List<JournalEntry> entries = journal.read(10);
+        assertEquals(List.of("actions", "user-events", "actions", "user-events"),
+                entries.stream().map(JournalEntry::topic).toList());
+        entries.forEach(entry -> assertEquals("1", entry.key()));
+        assertEquals("CREATE vasya@gmail.com", new String(entries.get(0).payload(), StandardCharsets.UTF_8));
+        assertEquals(UserEvent.created(created), userEventCodec.decode(entries.get(1).payload()));
+        assertEquals("DELETE vasya@gmail.com", new String(entries.get(2).payload(), StandardCharsets.UTF_8));
+        assertEquals(UserEvent.deleted(1L, 3L), userEventCodec.decode(entries.get(3).payload()));
+    }
+
+    // Ошибка драйвера PostgreSQL в том виде, в каком DatabaseClient передает ее причиной своего исключения
+    private static DataIntegrityViolationException violation(String constraintName) {
+        ErrorDetails details = new ErrorDetails(List.of(new Field(Field.FieldType.CONSTRAINT_NAME, constraintName)));
+        class DriverException extends R2dbcDataIntegrityViolationException implements PostgresqlException {
+
+            @Override
+            public ErrorDetails getErrorDetails() {
+                return details;
+            }
+        }
+        return new DataIntegrityViolationException("duplicate key value violates unique constraint",
+                new DriverException());
+    }
+
+    @Test
+    @DisplayName("Нарушение уникальности email при создании и обновлении - DuplicateEmailException (409), событий нет")
+    public void createAndUpdateTest_duplicateEmail() {
+        when(userRepository.insert(any(UserDto.class))).thenReturn(Mono.error(violation("uk_users_spring_email")));
+        when(userRepository.update(anyLong(), any(UserDto.class)))
+                .thenReturn(Mono.error(violation("uk_users_spring_email")));
+
+        DuplicateEmailException created = assertThrows(DuplicateEmailException.class,
+                () -> userService.create(new UserDto(null, "Vasya", "vasya@gmail.com", 20)).block());
+        assertEquals("email", created.getViolations().getFirst().getFieldName());
+        assertThrows(DuplicateEmailException.class,
+                () -> userService.update(1L, new UserDto(null, "Vasya", "vasya@gmail.com", 20)).block());
+        assertTrue(journal.read(10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Нарушение другого ограничения передается без изменений")
+    public void createTest_otherConstraint() {
+        DataIntegrityViolationException violation = violation("users_spring_pkey");
+        when(userRepository.insert(any(UserDto.class))).thenReturn(Mono.error(violation));
+
+        assertSame(violation, assertThrows(DataIntegrityViolationException.class,
+                () -> userService.create(new UserDto(null, "Vasya", "vasya@gmail.com", 20)).block()));
+    }
+}
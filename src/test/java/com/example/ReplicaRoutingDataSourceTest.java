@@ -0,0 +1,162 @@
+package com.example;
+
+import com.example.datasource.ReadReplica;
+import com.example.datasource.ReadReplicas;
+import com.example.datasource.ReadYourWritesFilter;
+import com.example.throttling.ClientKeyResolver;
+import com.example.datasource.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final Connection primaryConnection = mock(Connection.class);
+
+    private final DataSource primary = mock(DataSource.class);
+
+    // Реплика, проверка которой возвращает отставание lagSeconds (null - реплика еще ничего не применила)
+    private static DataSource replicaDataSource(Connection connection, Double lagSeconds) throws SQLException {
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getDouble(1)).thenReturn(lagSeconds != null ? lagSeconds : 0);
+        when(resultSet.wasNull()).thenReturn(lagSeconds == null);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+
+    private ReplicaRoutingDataSource routing(ReadReplica... replicas) throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ReadReplicas readReplicas = new ReadReplicas(List.of(replicas), Duration.ofSeconds(5), meterRegistry);
+        readReplicas.check();
+        return new ReplicaRoutingDataSource(readReplicas, primary, meterRegistry);
+    }
+
+    private double reads(String target, String reason) {
+        return meterRegistry.get("users.db.reads").tag("target", target).tag("reason", reason).counter().count();
+    }
+
+    @Test
+    @DisplayName("Чтение распределяется по доступным репликам по очереди")
+    public void getConnectionTest_roundRobin() throws SQLException {
+        Connection first = mock(Connection.class);
+        Connection second = mock(Connection.class);
+        ReplicaRoutingDataSource routing = routing(new ReadReplica("replica-1", replicaDataSource(first, 0.0)),
+                new ReadReplica("replica-2", replicaDataSource(second, 1.5)));
+
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            connections.add(routing.getConnection());
+        }
+
+        assertEquals(List.of(first, second, first, second), connections);
+        assertEquals(2, reads("replica-1", "balanced"));
+        assertEquals(2, reads("replica-2", "balanced"));
+        assertEquals(1.5, meterRegistry.get("users.db.replica.lag").tag("replica", "replica-2").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Отстающая больше допустимого и не применившая WAL реплики пропускаются, без реплик - основной сервер")
+    public void getConnectionTest_laggingReplicas() throws SQLException {
+        ReplicaRoutingDataSource routing = routing(
+                new ReadReplica("replica-1", replicaDataSource(mock(Connection.class), 30.0)),
+                new ReadReplica("replica-2", replicaDataSource(mock(Connection.class), null)));
+
+        assertSame(primaryConnection, routing.getConnection());
+        assertEquals(1, reads("primary", "no_replica"));
+        assertEquals(0, meterRegistry.get("users.db.replica.available").tag("replica", "replica-1").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Реплика, не выдавшая соединение, исключается до следующей проверки")
+    public void getConnectionTest_replicaFailure() throws SQLException {
+        Connection healthy = mock(Connection.class);
+        DataSource failing = replicaDataSource(mock(Connection.class), 0.0);
+        ReadReplica failingReplica = new ReadReplica("replica-1", failing);
+        ReplicaRoutingDataSource routing = routing(failingReplica,
+                new ReadReplica("replica-2", replicaDataSource(healthy, 0.0)));
+        when(failing.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        assertSame(healthy, routing.getConnection());
+        assertSame(healthy, routing.getConnection());
+        assertFalse(failingReplica.isAvailable());
+        assertTrue(Double.isNaN(failingReplica.getLagSeconds()));
+        assertEquals(2, reads("replica-2", "balanced"));
+    }
+
+    @Test
+    @DisplayName("После запроса на изменение клиент читает с основного сервера, другие клиенты - с реплики")
+    public void getConnectionTest_readYourWrites() throws SQLException, ServletException, IOException {
+        Connection replicaConnection = mock(Connection.class);
+        ReplicaRoutingDataSource routing = routing(
+                new ReadReplica("replica-1", replicaDataSource(replicaConnection, 0.0)));
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofMinutes(1), new ClientKeyResolver(null));
+        List<Connection> connections = new ArrayList<>();
+
+        for (String[] request : new String[][]{{"GET", "10.0.0.1"}, {"PUT", "10.0.0.1"}, {"GET", "10.0.0.1"},
+                {"GET", "10.0.0.2"}}) {
+            MockHttpServletRequest httpRequest = new MockHttpServletRequest(request[0], "/users/1");
+            httpRequest.setRemoteAddr(request[1]);
+            filter.doFilter(httpRequest, new MockHttpServletResponse(), (req, res) -> {
+                try {
+                    connections.add(routing.getConnection());
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+
+        assertEquals(List.of(replicaConnection, replicaConnection, primaryConnection, replicaConnection), connections);
+        assertEquals(1, reads("primary", "read_your_writes"));
+    }
+
+    @Test
+    @DisplayName("Клиенты за одним шлюзом различаются по заголовку так же, как в ограничении нагрузки")
+    public void getConnectionTest_readYourWritesClientKeyHeader() throws SQLException, ServletException, IOException {
+        Connection replicaConnection = mock(Connection.class);
+        ReplicaRoutingDataSource routing = routing(
+                new ReadReplica("replica-1", replicaDataSource(replicaConnection, 0.0)));
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofMinutes(1),
+                new ClientKeyResolver("X-Client-Id"));
+        List<Connection> connections = new ArrayList<>();
+
+        for (String[] request : new String[][]{{"PUT", "user-1"}, {"GET", "user-1"}, {"GET", "user-2"}}) {
+            MockHttpServletRequest httpRequest = new MockHttpServletRequest(request[0], "/users/1");
+            httpRequest.setRemoteAddr("10.0.0.100");
+            httpRequest.addHeader("X-Client-Id", request[1]);
+            filter.doFilter(httpRequest, new MockHttpServletResponse(), (req, res) -> {
+                try {
+                    connections.add(routing.getConnection());
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+
+        assertEquals(List.of(replicaConnection, primaryConnection, replicaConnection), connections);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example;
+
+import com.example.journal.JournalEntry;
+import com.example.journal.JournalFullException;
+import com.example.journal.SpillJournal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpillJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<SpillJournal> journals = new ArrayList<>();
+
+    @AfterEach
+    public void close() {
+        journals.forEach(SpillJournal::close);
+    }
+
+    private SpillJournal open(int segmentSize, int maxSegments) throws Exception {
+        SpillJournal journal = SpillJournal.open(directory, segmentSize, maxSegments);
+        journals.add(journal);
+        return journal;
+    }
+
+    private static CompletableFuture<Void> append(SpillJournal journal, String key, String message) {
+        return journal.append("actions", key, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> messages(List<JournalEntry> entries) {
+        return entries.stream().map(entry -> new String(entry.payload(), StandardCharsets.UTF_8)).toList();
+    }
+
+    private static long segmentFiles(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".journal")).count();
+        }
+    }
+
+    @Test
+    @DisplayName("Сообщения нескольких потоков читаются по одному разу в порядке записи через несколько сегментов")
+    public void appendTest_orderAcrossSegments() throws Exception {
+        SpillJournal journal = open(512, 1000);
+        List<CompletableFuture<Void>> appended = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int thread = 0; thread < 4; thread++) {
+                String key = "thread-" + thread;
+                executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        CompletableFuture<Void> future = append(journal, key, key + " " + i);
+                        synchronized (appended) {
+                            appended.add(future);
+                        }
+                    }
+                });
+            }
+        }
+        CompletableFuture.allOf(appended.toArray(CompletableFuture[]::new)).get();
+
+        List<JournalEntry> entries = journal.read(10_000);
+        assertEquals(800, entries.size());
+        assertEquals(800, journal.pending());
+        assertTrue(journal.segments() > 1);
+        Map<String, Integer> next = new HashMap<>();
+        for (JournalEntry entry : entries) {
+            assertEquals("actions", entry.topic());
+            int expected = next.merge(entry.key(), 1, Integer::sum) - 1;
+            assertEquals(entry.key() + " " + expected, new String(entry.payload(), StandardCharsets.UTF_8));
+        }
+
+        journal.markDrained(entries.getLast().position(), entries.size());
+        assertEquals(0, journal.pending());
+        assertEquals(0, journal.depth());
+        assertTrue(segmentFiles(directory) <= 1);
+        assertTrue(journal.read(10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("После падения процесса журнал отдает неотправленные сообщения и продолжает запись после них")
+    public void recoveryTest_afterCrash() throws Exception {
+        SpillJournal crashed = open(256, 100);
+        for (int i = 0; i < 10; i++) {
+            append(crashed, String.valueOf(i), "message " + i).get();
+        }
+        List<JournalEntry> sent = crashed.read(4);
+        crashed.markDrained(sent.getLast().position(), sent.size());
+        // Прочитано, но не подтверждено kafka
+        crashed.read(3);
+
+        // Без close: файлы остаются в том состоянии, в котором их оставил упавший процесс
+        SpillJournal recovered = open(256, 100);
+        assertEquals(6, recovered.pending());
+        append(recovered, "10", "message 10").get();
+        assertEquals(List.of("message 4", "message 5", "message 6", "message 7", "message 8", "message 9",
+                "message 10"), messages(recovered.read(100)));
+    }
+
+    @Test
+    @DisplayName("Недописанное сообщение отбрасывается при открытии вместе с хвостом журнала")
+    public void recoveryTest_tornMessage() throws Exception {
+        SpillJournal crashed = open(4096, 10);
+        for (int i = 0; i < 3; i++) {
+            append(crashed, String.valueOf(i), "message " + i).get();
+        }
+        List<JournalEntry> entries = crashed.read(3);
+        // Последний байт третьего сообщения не попал на диск
+        try (FileChannel segment = FileChannel.open(directory.resolve("%020d.journal".formatted(0)),
+                StandardOpenOption.WRITE)) {
+            segment.write(ByteBuffer.wrap(new byte[]{'?'}), entries.get(1).position() + 16 + 21);
+        }
+
+        SpillJournal recovered = open(4096, 10);
+        assertEquals(2, recovered.pending());
+        append(recovered, "3", "message 3").get();
+        assertEquals(List.of("message 0", "message 1", "message 3"), messages(recovered.read(100)));
+    }
+
+    @Test
+    @DisplayName("Заполненный журнал отклоняет сообщения, пока отправленные сегменты не освободят место")
+    public void appendTest_full() throws Exception {
+        SpillJournal journal = open(128, 2);
+        int accepted = 0;
+        ExecutionException rejected = null;
+        while (rejected == null) {
+            try {
+                append(journal, "1", "message " + accepted).get();
+                accepted++;
+            } catch (ExecutionException e) {
+                rejected = e;
+            }
+        }
+        assertInstanceOf(JournalFullException.class, rejected.getCause());
+        assertTrue(accepted > 0);
+        assertEquals(accepted, journal.pending());
+
+        List<JournalEntry> entries = journal.read(100);
+        assertEquals(accepted, entries.size());
+        journal.markDrained(entries.getLast().position(), entries.size());
+        append(journal, "1", "after drain").get();
+        assertEquals(List.of("after drain"), messages(journal.read(100)));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example;
+
+import com.example.throttling.AdaptiveConcurrencyLimit;
+import com.example.throttling.DbLatencyTracker;
+import com.example.throttling.StripedTokenBucket;
+import com.example.throttling.TokenBucket;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("Корзина пропускает burst запросов сразу, затем по одному на интервал и сообщает время ожидания")
+    public void tryAcquireTest() {
+        TokenBucket bucket = new TokenBucket(10, 3);
+        long now = -5_000 * MILLIS;
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire(now));
+        }
+        assertEquals(100 * MILLIS, bucket.tryAcquire(now));
+        assertEquals(40 * MILLIS, bucket.tryAcquire(now + 60 * MILLIS));
+        assertEquals(0, bucket.tryAcquire(now + 100 * MILLIS));
+        // После простоя накапливается не больше burst токенов
+        now += 10_000 * MILLIS;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire(now));
+        }
+        assertTrue(bucket.tryAcquire(now) > 0);
+    }
+
+    @Test
+    @DisplayName("Возвращенный токен можно получить снова, но корзина не переполняется")
+    public void refundTest() {
+        TokenBucket bucket = new TokenBucket(10, 2);
+        long now = 0;
+
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now));
+        bucket.refund();
+        assertEquals(0, bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now) > 0);
+
+        now += 10_000 * MILLIS;
+        bucket.refund();
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now) > 0);
+    }
+
+    @Test
+    @DisplayName("Разделенная корзина при одновременных запросах выдает ровно burst токенов")
+    public void stripedTryAcquireTest_concurrent() throws Exception {
+        StripedTokenBucket bucket = new StripedTokenBucket(1, 1000, 8);
+        AtomicInteger acquired = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int thread = 0; thread < 8; thread++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        if (bucket.tryAcquire(0) == 0) {
+                            acquired.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+
+        assertEquals(1000, acquired.get());
+    }
+
+    @Test
+    @DisplayName("Ограничение одновременных запросов растет при быстрой БД и снижается при медленной")
+    public void adaptiveConcurrencyLimitTest() {
+        AtomicLong clock = new AtomicLong();
+        DbLatencyTracker dbLatency = new DbLatencyTracker(clock::get);
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 12, 50 * MILLIS, dbLatency, clock::get);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        assertFalse(limit.tryAcquire());
+        dbLatency.record(5 * MILLIS);
+        clock.addAndGet(100 * MILLIS);
+        for (int i = 0; i < 5; i++) {
+            limit.release();
+        }
+        assertEquals(12, limit.limit());
+
+        dbLatency.record(200 * MILLIS);
+        clock.addAndGet(100 * MILLIS);
+        limit.release();
+        limit.release();
+        // Второе уменьшение в пределах целевой задержки не выполняется
+        assertEquals(10, limit.limit());
+        clock.addAndGet(50 * MILLIS);
+        limit.release();
+        assertEquals(9, limit.limit());
+        assertEquals(2, limit.inFlight());
+    }
+}
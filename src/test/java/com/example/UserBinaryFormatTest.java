@@ -0,0 +1,109 @@
+package com.example;
+
+import com.example.DTOs.UserDto;
+import com.example.DTOs.UserEvent;
+import com.example.DTOs.UserReference;
+import com.example.serialization.UserBinaryFormat;
+import com.example.serialization.UserBinaryHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserBinaryFormatTest {
+
+    @Test
+    @DisplayName("Пользователи и события читаются без изменений, в том числе null, кириллица и длинные строки")
+    public void roundTripTest() {
+        UserDto user = new UserDto(1L, "Вася", "vasya@gmail.com", 20, 3L);
+        UserDto newUser = new UserDto(null, "x".repeat(300), null, -5);
+        assertEquals(user, UserBinaryFormat.readUser(UserBinaryFormat.writeUser(user)));
+        assertEquals(newUser, UserBinaryFormat.readUser(UserBinaryFormat.writeUser(newUser)));
+        assertEquals(List.of(user, newUser), UserBinaryFormat.readUsers(UserBinaryFormat.writeUsers(List.of(user, newUser))));
+        assertEquals(List.of(), UserBinaryFormat.readUsers(UserBinaryFormat.writeUsers(List.of())));
+
+        for (UserEvent event : List.of(UserEvent.created(user), UserEvent.deleted(Long.MAX_VALUE, 7),
+                UserEvent.updated(user, new UserDto(null, null, "vasya@mail.ru", 21)))) {
+            assertEquals(event, UserBinaryFormat.readEvent(UserBinaryFormat.writeEvent(event)));
+        }
+    }
+
+    @Test
+    @DisplayName("Поля, добавленные в конец записи новой версией сервиса, пропускаются")
+    public void readTest_skipsUnknownFields() {
+        UserDto user = new UserDto(1L, "Vasya", "vasya@gmail.com", 20, 0L);
+        byte[] bytes = UserBinaryFormat.writeUsers(List.of(user, user));
+        // Заголовок (3 байта), число пользователей, затем первая запись с длиной в одном байте
+        int recordLength = bytes[4];
+        byte[] extended = new byte[bytes.length + 2];
+        System.arraycopy(bytes, 0, extended, 0, 5 + recordLength);
+        extended[4] = (byte) (recordLength + 2);
+        extended[5 + recordLength] = 42;
+        extended[6 + recordLength] = 1;
+        System.arraycopy(bytes, 5 + recordLength, extended, 7 + recordLength, bytes.length - 5 - recordLength);
+
+        assertEquals(List.of(user, user), UserBinaryFormat.readUsers(extended));
+    }
+
+    @Test
+    @DisplayName("Неизвестная версия схемы, другой тип сообщения и обрезанные данные отклоняются")
+    public void readTest_rejectsIncompatibleData() {
+        byte[] bytes = UserBinaryFormat.writeUser(new UserDto(1L, "Vasya", "vasya@gmail.com", 20));
+        byte[] nextVersion = bytes.clone();
+        nextVersion[1] = UserBinaryFormat.SCHEMA_VERSION + 1;
+
+        assertThrows(IllegalArgumentException.class, () -> UserBinaryFormat.readUser(nextVersion));
+        assertThrows(IllegalArgumentException.class, () -> UserBinaryFormat.readEvent(bytes));
+        assertThrows(IllegalArgumentException.class,
+                () -> UserBinaryFormat.readUser(Arrays.copyOf(bytes, bytes.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> UserBinaryFormat.readUser("{}".getBytes()));
+    }
+
+    @Test
+    @DisplayName("Список пользователей занимает меньше половины JSON")
+    public void writeTest_smallerThanJson() throws Exception {
+        List<UserDto> users = new ArrayList<>();
+        for (long id = 1; id <= 1_000; id++) {
+            users.add(new UserDto(id, "user_" + id, "user_" + id + "@example.com", 14 + (int) (id % 60), 0L));
+        }
+
+        int json = new ObjectMapper().writeValueAsBytes(users).length;
+        int binary = UserBinaryFormat.writeUsers(users).length;
+
+        assertTrue(binary * 2 < json, "binary " + binary + " bytes, json " + json + " bytes");
+    }
+
+    @Test
+    @DisplayName("Двоичный формат выбирается только для пользователей и только по явному Accept")
+    public void converterTest_userPayloadsOnly() {
+        UserBinaryHttpMessageConverter converter = new UserBinaryHttpMessageConverter();
+        MediaType binary = UserBinaryHttpMessageConverter.MEDIA_TYPE;
+        assertTrue(converter.canWrite(UserDto.class, UserDto.class, binary));
+        assertTrue(converter.canWrite(ResolvableType.forClassWithGenerics(EntityModel.class, UserDto.class).getType(),
+                EntityModel.class, binary));
+        assertTrue(converter.canWrite(ResolvableType.forClassWithGenerics(CollectionModel.class, UserReference.class)
+                .getType(), CollectionModel.class, binary));
+        assertTrue(converter.canWrite(ResolvableType.forClassWithGenerics(List.class, UserDto.class).getType(),
+                List.class, binary));
+        assertFalse(converter.canWrite(ResolvableType.forClassWithGenerics(List.class, String.class).getType(),
+                List.class, binary));
+        assertFalse(converter.canWrite(ResolvableType.forClassWithGenerics(CollectionModel.class, UserEvent.class)
+                .getType(), CollectionModel.class, binary));
+        assertFalse(converter.canWrite(String.class, String.class, binary));
+
+        assertTrue(UserBinaryHttpMessageConverter.isPreferred(MediaType.parseMediaTypes(
+                "application/x-users-binary, application/json;q=0.5")));
+        assertFalse(UserBinaryHttpMessageConverter.isPreferred(MediaType.parseMediaTypes("*/*")));
+        assertFalse(UserBinaryHttpMessageConverter.isPreferred(MediaType.parseMediaTypes(
+                "application/hal+json, application/x-users-binary")));
+    }
+}
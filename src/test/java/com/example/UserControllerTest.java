@@ -1,8 +1,12 @@
 package com.example;
 
 import com.example.DTOs.UserDto;
+import com.example.DTOs.UserSearchFilter;
 import com.example.controllers.UserController;
-import com.example.services.KafkaProducerService;
+import com.example.controllers.UserLinks;
+import com.example.serialization.UserBinaryFormat;
+import com.example.serialization.UserBinaryHttpMessageConverter;
+import com.example.services.DuplicateEmailException;
 import com.example.services.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -13,21 +17,33 @@ import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(UserController.class)
+@Import(UserLinks.class)
 public class UserControllerTest {
 
     @Autowired
@@ -36,9 +52,6 @@ public class UserControllerTest {
     @MockitoBean
     UserService userService;
 
-    @MockitoBean
-    KafkaProducerService kafkaProducerService;
-
     private ObjectMapper objectMapper;
 
     @BeforeEach
@@ -51,7 +64,6 @@ public class UserControllerTest {
     public void createUserTest() throws Exception {
         UserDto userDto = new UserDto(1L, "Vasya", "vasya@gmail.com", 20);
         when(userService.create(any(UserDto.class))).thenReturn(userDto);
-        doNothing().when(kafkaProducerService).sendMessage(anyString(),anyString());
 
         mockMvc.perform(post("/users/create")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -63,6 +75,19 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.age").value(20));
     }
 
+    @Test
+    @DisplayName("Создание пользователя с занятым email - 409 с ошибкой в поле email")
+    public void createUserTest_duplicateEmail() throws Exception {
+        when(userService.create(any(UserDto.class))).thenThrow(DuplicateEmailException.of("email"));
+
+        mockMvc.perform(post("/users/create")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new UserDto(null, "Vasya", "vasya@gmail.com", 20))))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.violations", hasSize(1)))
+                .andExpect(jsonPath("$.violations[0].fieldName").value("email"));
+    }
+
     @Test
     @DisplayName("Пользователь найден")
     public void findUserByIdTest_userFound() throws Exception{
@@ -98,17 +123,88 @@ public class UserControllerTest {
         userDtoList.add(userDto1);
         userDtoList.add(userDto2);
         userDtoList.add(userDto3);
-        when(userService.findAll()).thenReturn(userDtoList);
+        when(userService.findPage(0, 50)).thenReturn(userDtoList);
 
         mockMvc.perform(get("/users/all"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$._embedded.userDtoList", hasSize(3)));
+                .andExpect(jsonPath("$._embedded.userDtoList", hasSize(3)))
+                .andExpect(jsonPath("$._links.next").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Полная страница содержит ссылку на следующую")
+    public void findAllUsersTest_fullPageHasNextLink() throws Exception {
+        List<UserDto> userDtoList = List.of(
+                new UserDto(4L, "Vasya", "vasya@gmail.com", 20),
+                new UserDto(7L, "Dima", "dima@gmail.com", 25));
+        when(userService.findPage(3, 2)).thenReturn(userDtoList);
+
+        mockMvc.perform(get("/users/all").param("after", "3").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userDtoList", hasSize(2)))
+                .andExpect(jsonPath("$._links.next.href").value("http://localhost/users/all?after=7&size=2"));
+    }
+
+    @Test
+    @DisplayName("Пользователь содержит ссылки на себя и на список")
+    public void findUserByIdTest_links() throws Exception {
+        when(userService.findUserById(5L)).thenReturn(new UserDto(5L, "Vasya", "vasya@gmail.com", 20));
+
+        mockMvc.perform(get("/users/{id}", 5L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.self.href").value("http://localhost/users/5"))
+                .andExpect(jsonPath("$._links.all-users.href").value("http://localhost/users/all"));
+    }
+
+    @Test
+    @DisplayName("Компактный список пользователей: только id и версии, без ссылок на каждого")
+    public void findAllUsersTest_compact() throws Exception {
+        when(userService.findPage(0, 1)).thenReturn(List.of(new UserDto(4L, "Vasya", "vasya@gmail.com", 20, 3L)));
+
+        mockMvc.perform(get("/users/all").param("size", "1").param("compact", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userDtoList[0].id").value(4L))
+                .andExpect(jsonPath("$._embedded.userDtoList[0].version").value(3L))
+                .andExpect(jsonPath("$._embedded.userDtoList[0].name").doesNotExist())
+                .andExpect(jsonPath("$._embedded.userDtoList[0].email").doesNotExist())
+                .andExpect(jsonPath("$._embedded.userDtoList[0]._links").doesNotExist())
+                .andExpect(jsonPath("$._links.next.href")
+                        .value("http://localhost/users/all?after=4&size=1&compact=true"));
+    }
+
+    @Test
+    @DisplayName("Слишком большой размер страницы")
+    public void findAllUsersTest_pageSizeTooLarge() throws Exception {
+        mockMvc.perform(get("/users/all").param("size", "100000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Потоковая выгрузка пользователей в NDJSON")
+    public void streamAllUsersTest_ndjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<UserDto> consumer = invocation.getArgument(0);
+            consumer.accept(new UserDto(1L, "Vasya", "vasya@gmail.com", 20));
+            consumer.accept(new UserDto(2L, "Dima", "dima@gmail.com", 25));
+            return null;
+        }).when(userService).streamAll(any());
+
+        MvcResult result = mockMvc.perform(get("/users/all/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"id\":1,\"name\":\"Vasya\",\"email\":\"vasya@gmail.com\",\"age\":20}\n" +
+                        "{\"id\":2,\"name\":\"Dima\",\"email\":\"dima@gmail.com\",\"age\":25}\n"));
     }
 
     @Test
     @DisplayName("Пустой список: пользователей нет")
     public void findAllUsersTest_returnEmptyList() throws Exception {
-        when(userService.findAll()).thenReturn(Collections.emptyList());
+        when(userService.findPage(0, 50)).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/users/all"))
                 .andExpect(status().isOk())
@@ -119,7 +215,7 @@ public class UserControllerTest {
     @DisplayName("Успешное обновление пользователя")
     public void updateUserTest_successfulUpdate() throws Exception {
         UserDto userDto = new UserDto(1L, "Vasya update", "vasya@gmail.com", 20);
-        when(userService.update(anyLong(), any(UserDto.class))).thenReturn(userDto);
+        when(userService.update(anyLong(), any(UserDto.class), any())).thenReturn(userDto);
 
         mockMvc.perform(put("/users/update/{id}", 1L)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -135,7 +231,7 @@ public class UserControllerTest {
     @DisplayName("Не удалось обновить пользователя, потому что он не найден")
     public void updateUserTest_updateFailedBecauseOfEntityNotFoundException() throws Exception {
         UserDto userDto = new UserDto(1L, "Vasya update", "vasya@gmail.com", 20);
-        when(userService.update(anyLong(), any(UserDto.class))).thenThrow(EntityNotFoundException.class);
+        when(userService.update(anyLong(), any(UserDto.class), any())).thenThrow(EntityNotFoundException.class);
 
         mockMvc.perform(put("/users/update/{id}", 1L)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -146,7 +242,7 @@ public class UserControllerTest {
     @Test
     @DisplayName("Не удалось обновить пользователя из-за плохого запроса")
     public void updateUserTest_updateFailedBecauseOfBadRequest() throws Exception {
-        when(userService.update(anyLong(), any(UserDto.class))).thenThrow(EntityNotFoundException.class);
+        when(userService.update(anyLong(), any(UserDto.class), any())).thenThrow(EntityNotFoundException.class);
 
         mockMvc.perform(put("/users/update/{id}", 1L))
                 .andExpect(status().isBadRequest());
@@ -156,9 +252,215 @@ public class UserControllerTest {
     @DisplayName("Пользователь удален")
     public void deleteUserTest() throws Exception {
         doNothing().when(userService).delete(anyLong());
-        doNothing().when(kafkaProducerService).sendMessage(anyString(),anyString());
 
         mockMvc.perform(delete("/users/delete/{id}", 1L))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    @DisplayName("Пакетное создание пользователей")
+    public void createUsersTest() throws Exception {
+        List<UserDto> userDtoList = List.of(
+                new UserDto(null, "Vasya", "vasya@gmail.com", 20),
+                new UserDto(null, "Dima", "dima@gmail.com", 25));
+        when(userService.createAll(anyList())).thenReturn(List.of(
+                new UserDto(1L, "Vasya", "vasya@gmail.com", 20),
+                new UserDto(2L, "Dima", "dima@gmail.com", 25)));
+
+        mockMvc.perform(post("/users/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userDtoList)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$._embedded.userDtoList", hasSize(2)))
+                .andExpect(jsonPath("$._embedded.userDtoList[1].id").value(2L));
+    }
+
+    @Test
+    @DisplayName("Пакетное создание: ошибки проверки возвращаются для каждого элемента")
+    public void createUsersTest_invalidItems() throws Exception {
+        List<UserDto> userDtoList = List.of(
+                new UserDto(null, "Vasya", "vasya@gmail.com", 20),
+                new UserDto(null, "", "not-an-email", 20));
+
+        mockMvc.perform(post("/users/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userDtoList)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.violations", hasSize(2)))
+                .andExpect(jsonPath("$.violations[*].fieldName",
+                        everyItem(startsWith("createUsers.userDtos[1]."))));
+        verify(userService, never()).createAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Пакетное обновление требует id каждого пользователя")
+    public void updateUsersTest_missingId() throws Exception {
+        List<UserDto> userDtoList = List.of(new UserDto(null, "Vasya", "vasya@gmail.com", 20));
+
+        mockMvc.perform(put("/users/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userDtoList)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.violations[0].fieldName").value("updateUsers.userDtos[0].id"));
+    }
+
+    @Test
+    @DisplayName("Пакетное удаление пользователей")
+    public void deleteUsersTest() throws Exception {
+        mockMvc.perform(delete("/users/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2, 3]"))
+                .andExpect(status().isOk());
+        verify(userService).deleteAll(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    @DisplayName("Поиск пользователей с фильтрами и сортировкой")
+    public void searchUsersTest_filtersAndSort() throws Exception {
+        UserSearchFilter filter = new UserSearchFilter("va", "gmail.com", 18, 30);
+        Sort sort = Sort.by(Sort.Order.desc("age"), Sort.Order.asc("name"));
+        when(userService.search(filter, sort, 0, 2)).thenReturn(new SliceImpl<>(List.of(
+                new UserDto(1L, "Vasya", "vasya@gmail.com", 25),
+                new UserDto(2L, "Valya", "valya@gmail.com", 20)), PageRequest.of(0, 2), true));
+
+        mockMvc.perform(get("/users/search?name=va&emailDomain=gmail.com&minAge=18&maxAge=30&sort=-age,name&size=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userDtoList", hasSize(2)))
+                .andExpect(jsonPath("$._links.next.href").value("http://localhost/users/search?name=va" +
+                        "&emailDomain=gmail.com&minAge=18&maxAge=30&sort=-age,name&page=1&size=2"));
+    }
+
+    @Test
+    @DisplayName("Поиск пользователей: последняя страница без ссылки next")
+    public void searchUsersTest_lastPage() throws Exception {
+        when(userService.search(new UserSearchFilter(null, null, null, null), Sort.by("id"), 0, 50))
+                .thenReturn(new SliceImpl<>(List.of(new UserDto(1L, "Vasya", "vasya@gmail.com", 20))));
+
+        mockMvc.perform(get("/users/search"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userDtoList", hasSize(1)))
+                .andExpect(jsonPath("$._links.next").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Поиск пользователей: сортировка по неизвестному полю")
+    public void searchUsersTest_unknownSortField() throws Exception {
+        mockMvc.perform(get("/users/search?sort=created_at"))
+                .andExpect(status().isBadRequest());
+        verify(userService, never()).search(any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Пользователь не изменился: 304 без тела по If-None-Match")
+    public void findUserByIdTest_notModified() throws Exception {
+        when(userService.findUserById(1L)).thenReturn(new UserDto(1L, "Vasya", "vasya@gmail.com", 20, 3L));
+
+        mockMvc.perform(get("/users/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1.3\""));
+        mockMvc.perform(get("/users/{id}", 1L)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"1.3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("Страница пользователей не изменилась: 304 по If-None-Match")
+    public void findAllUsersTest_notModified() throws Exception {
+        when(userService.findPage(0, 50)).thenReturn(List.of(new UserDto(1L, "Vasya", "vasya@gmail.com", 20, 0L)));
+
+        String etag = mockMvc.perform(get("/users/all"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/users/all").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        when(userService.findPage(0, 50)).thenReturn(List.of(new UserDto(1L, "Vasya", "vasya@gmail.com", 20, 1L)));
+        mockMvc.perform(get("/users/all").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Обновление с If-Match передает версию в сервис и возвращает новый ETag")
+    public void updateUserTest_ifMatch() throws Exception {
+        UserDto userDto = new UserDto(1L, "Vasya update", "vasya@gmail.com", 20);
+        when(userService.update(eq(1L), any(UserDto.class), eq(3L)))
+                .thenReturn(new UserDto(1L, "Vasya update", "vasya@gmail.com", 20, 4L));
+
+        mockMvc.perform(put("/users/update/{id}", 1L)
+                .header(HttpHeaders.IF_MATCH, "\"1.3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1.4\""))
+                .andExpect(jsonPath("$.version").value(4));
+        // ETag двоичного представления несет ту же версию
+        mockMvc.perform(put("/users/update/{id}", 1L)
+                .header(HttpHeaders.IF_MATCH, "\"1.3-bin\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isOk());
+        verify(userService, times(2)).update(eq(1L), any(UserDto.class), eq(3L));
+    }
+
+    @Test
+    @DisplayName("Обновление с устаревшим If-Match отклоняется: 412")
+    public void updateUserTest_staleIfMatch() throws Exception {
+        UserDto userDto = new UserDto(1L, "Vasya update", "vasya@gmail.com", 20);
+        when(userService.update(eq(1L), any(UserDto.class), eq(2L)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(UserDto.class, 1L));
+
+        mockMvc.perform(put("/users/update/{id}", 1L)
+                .header(HttpHeaders.IF_MATCH, "\"1.2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("Пользователь и страница пользователей отдаются в двоичном формате по заголовку Accept")
+    public void findUsersTest_binary() throws Exception {
+        UserDto userDto = new UserDto(1L, "Vasya", "vasya@gmail.com", 20, 3L);
+        when(userService.findUserById(1L)).thenReturn(userDto);
+        when(userService.findPage(0, 50)).thenReturn(List.of(userDto, new UserDto(2L, "Dima", "dima@gmail.com", 25, 0L)));
+
+        byte[] user = mockMvc.perform(get("/users/{id}", 1L).accept(UserBinaryHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(UserBinaryHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1.3-bin\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn().getResponse().getContentAsByteArray();
+        // ETag JSON-ответа не подходит к двоичному представлению
+        mockMvc.perform(get("/users/{id}", 1L).accept(UserBinaryHttpMessageConverter.MEDIA_TYPE)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1.3\""))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/{id}", 1L).accept(UserBinaryHttpMessageConverter.MEDIA_TYPE)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1.3-bin\""))
+                .andExpect(status().isNotModified());
+        byte[] page = mockMvc.perform(get("/users/all").accept(UserBinaryHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(userDto, UserBinaryFormat.readUser(user));
+        assertEquals(List.of(userDto, new UserDto(2L, "Dima", "dima@gmail.com", 25, 0L)),
+                UserBinaryFormat.readUsers(page));
+    }
+
+    @Test
+    @DisplayName("Пакет пользователей принимается в двоичном формате и проверяется так же, как JSON")
+    public void createUsersTest_binary() throws Exception {
+        List<UserDto> userDtos = List.of(new UserDto(null, "Vasya", "vasya@gmail.com", 20, 5L));
+        when(userService.createAll(List.of(new UserDto(null, "Vasya", "vasya@gmail.com", 20))))
+                .thenReturn(List.of(new UserDto(1L, "Vasya", "vasya@gmail.com", 20, 0L)));
+
+        mockMvc.perform(post("/users/batch")
+                .contentType(UserBinaryHttpMessageConverter.MEDIA_TYPE)
+                .content(UserBinaryFormat.writeUsers(userDtos)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$._embedded.userDtoList[0].id").value(1L));
+        mockMvc.perform(post("/users/batch")
+                .contentType(UserBinaryHttpMessageConverter.MEDIA_TYPE)
+                .content(UserBinaryFormat.writeUsers(List.of(new UserDto(null, "", "vasya", 5)))))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,76 @@
+package com.example;
+
+import com.example.DTOs.UserDto;
+import com.example.DTOs.UserEvent;
+import com.example.services.UserEventCodec;
+import com.example.services.UserEventProjector;
+import com.example.services.UserReadModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(classes = {UserEventProjectorTest.Config.class, UserEventProjector.class, UserReadModel.class,
+        UserEventCodec.class}, properties = {"users.read-model.enabled=true",
+        "spring.kafka.producer.value-serializer=org.apache.kafka.common.serialization.ByteArraySerializer"})
+@ImportAutoConfiguration(KafkaAutoConfiguration.class)
+@EmbeddedKafka(topics = "user-events", partitions = 3, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+public class UserEventProjectorTest {
+
+    @Configuration
+    static class Config {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Autowired
+    UserEventCodec userEventCodec;
+
+    @Autowired
+    UserReadModel readModel;
+
+    private void send(UserEvent event) {
+        kafkaTemplate.send("user-events", String.valueOf(event.userId()), userEventCodec.encode(event));
+    }
+
+    @Test
+    @DisplayName("Модель чтения повторяет события из topic user-events")
+    public void projectionTest() {
+        send(UserEvent.created(new UserDto(1L, "Vasya", "vasya@gmail.com", 20, 0L)));
+        send(UserEvent.created(new UserDto(2L, "Dima", "dima@gmail.com", 25, 0L)));
+        kafkaTemplate.send("user-events", "3", "не событие".getBytes(StandardCharsets.UTF_8));
+        send(UserEvent.updated(new UserDto(1L, "Vasya update", "vasya@gmail.com", 21, 1L),
+                new UserDto(null, "Vasya update", null, 21)));
+        // Повторная доставка старого события не откатывает изменение
+        send(UserEvent.created(new UserDto(1L, "Vasya", "vasya@gmail.com", 20, 0L)));
+        send(UserEvent.deleted(2L, 0L));
+        send(UserEvent.created(new UserDto(4L, "Vlad", "vlad@gmail.com", 30, 0L)));
+
+        await().atMost(Duration.ofSeconds(30)).until(() -> readModel.find(4L).isPresent());
+        await().atMost(Duration.ofSeconds(30)).until(() -> readModel.find(2L).isEmpty());
+        assertEquals(Optional.of(new UserDto(1L, "Vasya update", "vasya@gmail.com", 21, 1L)), readModel.find(1L));
+        assertEquals(2, readModel.size());
+        assertEquals(Optional.empty(), readModel.find(3L));
+    }
+}
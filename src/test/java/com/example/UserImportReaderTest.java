@@ -0,0 +1,108 @@
+package com.example;
+
+import com.example.bulk.ImportedUser;
+import com.example.bulk.UserImportReader;
+import com.example.controllers.ValidationResponse.Violation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserImportReaderTest {
+
+    private static List<ImportedUser> readAll(UserImportReader reader) throws IOException {
+        List<ImportedUser> users = new ArrayList<>();
+        for (ImportedUser user = reader.next(); user != null; user = reader.next()) {
+            users.add(user);
+        }
+        return users;
+    }
+
+    private static List<String> fields(ImportedUser user) {
+        return user.violations().stream().map(Violation::getFieldName).toList();
+    }
+
+    @Test
+    @DisplayName("CSV: колонки по заголовку, значения в кавычках с запятыми, переводами строк и кавычками")
+    public void csvTest() throws IOException {
+        String csv = "id,age,name,email,created_at\r\n" +
+                "7,20,\"Vasya, \"\"junior\"\"\",vasya@gmail.com,2024-01-31\r\n" +
+                "8,30,\"two\nlines\",,\n" +
+                "\n" +
+                "9,25,\"\",\"\",\n";
+
+        List<ImportedUser> users = readAll(UserImportReader.csv(new StringReader(csv)));
+
+        assertEquals(3, users.size());
+        ImportedUser first = users.get(0);
+        assertEquals(2, first.line());
+        assertEquals("Vasya, \"junior\"", first.name());
+        assertEquals("vasya@gmail.com", first.email());
+        assertEquals(20, first.age());
+        assertEquals(LocalDate.of(2024, 1, 31), first.createdAt());
+        assertTrue(first.violations().isEmpty());
+
+        ImportedUser second = users.get(1);
+        assertEquals(3, second.line());
+        assertEquals("two\nlines", second.name());
+        assertNull(second.email());
+        assertNull(second.createdAt());
+
+        // Пустое значение в кавычках - пустая строка, а не null
+        ImportedUser third = users.get(2);
+        assertEquals(6, third.line());
+        assertEquals("", third.name());
+        assertEquals("", third.email());
+    }
+
+    @Test
+    @DisplayName("CSV: ошибки в значениях попадают в строку, нарушение формата останавливает чтение")
+    public void csvTest_errors() throws IOException {
+        String csv = "name,email,age,created_at\n" +
+                "Vasya,vasya@gmail.com,twenty,31.01.2024\n" +
+                "Petya,petya@gmail.com,,\n";
+
+        List<ImportedUser> users = readAll(UserImportReader.csv(new StringReader(csv)));
+
+        assertEquals(List.of("age", "created_at"), fields(users.get(0)));
+        assertEquals(List.of("age"), fields(users.get(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> readAll(UserImportReader.csv(new StringReader("name,email\nVasya,vasya@gmail.com\n"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> readAll(UserImportReader.csv(new StringReader("name,email,age\n\"Vasya,vasya@gmail.com,20\n"))));
+        String longRecord = "name,email,age\n" + "a".repeat(UserImportReader.MAX_RECORD_LENGTH) + ",,20\n";
+        assertThrows(IllegalArgumentException.class, () -> readAll(UserImportReader.csv(new StringReader(longRecord))));
+    }
+
+    @Test
+    @DisplayName("NDJSON: поля по имени с проверкой типов и номером строки")
+    public void ndjsonTest() throws IOException {
+        String ndjson = "{\"id\":1,\"name\":\"Vasya\",\"email\":\"vasya@gmail.com\",\"age\":20,\"createdAt\":\"2024-01-31\"}\n" +
+                "\n" +
+                "{\"name\":5,\"email\":null,\"age\":20.5}\n";
+
+        List<ImportedUser> users = readAll(UserImportReader.ndjson(new StringReader(ndjson), new ObjectMapper()));
+
+        assertEquals(2, users.size());
+        ImportedUser first = users.get(0);
+        assertEquals(1, first.line());
+        assertEquals("Vasya", first.name());
+        assertEquals(20, first.age());
+        assertEquals(LocalDate.of(2024, 1, 31), first.createdAt());
+        assertTrue(first.violations().isEmpty());
+
+        ImportedUser second = users.get(1);
+        assertEquals(3, second.line());
+        assertEquals(List.of("name", "age"), fields(second));
+        assertThrows(IllegalArgumentException.class, () -> readAll(UserImportReader.ndjson(
+                new StringReader("{\"name\":\"Vasya\",\"age\":20}\n{\"name\":"), new ObjectMapper())));
+    }
+}
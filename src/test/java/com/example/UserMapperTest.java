@@ -0,0 +1,46 @@
+package com.example;
+
+import com.example.DTOs.UserDto;
+import com.example.mappers.UserMapper;
+import com.example.models.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserMapperTest {
+
+    private final UserMapper userMapper = new UserMapper();
+
+    @Test
+    @DisplayName("Преобразование пользователя в DTO")
+    public void toDtoTest() {
+        UserDto userDto = userMapper.toDto(new User(1L, "Vasya", "vasya@gmail.com", 20, LocalDate.now(), 2));
+
+        assertEquals(new UserDto(1L, "Vasya", "vasya@gmail.com", 20, 2L), userDto);
+    }
+
+    @Test
+    @DisplayName("Идентификатор из DTO не переносится в новую сущность")
+    public void toEntityTest_ignoresId() {
+        User user = userMapper.toEntity(new UserDto(5L, "Vasya", "vasya@gmail.com", 20));
+
+        assertNull(user.getId());
+        assertEquals("vasya@gmail.com", user.getEmail());
+    }
+
+    @Test
+    @DisplayName("Частичное обновление сохраняет непереданные поля")
+    public void updateEntityTest_partialUpdate() {
+        User user = new User(1L, "Vasya", "vasya@gmail.com", 20, LocalDate.now(), 0);
+
+        userMapper.updateEntity(new UserDto(99L, "Vasya update", null, 21), user);
+
+        assertEquals(1L, user.getId());
+        assertEquals("Vasya update", user.getName());
+        assertEquals("vasya@gmail.com", user.getEmail());
+        assertEquals(21, user.getAge());
+    }
+}
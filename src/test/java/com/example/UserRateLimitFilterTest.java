@@ -0,0 +1,147 @@
+package com.example;
+
+import com.example.throttling.AdaptiveConcurrencyLimit;
+import com.example.throttling.ClientKeyResolver;
+import com.example.throttling.DbLatencyTracker;
+import com.example.throttling.RequestLimiter;
+import com.example.throttling.UserRateLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserRateLimitFilterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private MeterRegistry meterRegistry;
+
+    private RequestLimiter readLimiter;
+
+    private UserRateLimitFilter filter;
+
+    private RequestLimiter limiter(double globalRate, int globalBurst, double clientRate, int clientBurst,
+                                   int concurrency) {
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(concurrency, concurrency, concurrency,
+                TimeUnit.MILLISECONDS.toNanos(50), new DbLatencyTracker(clock::get), clock::get);
+        return new RequestLimiter(globalRate, globalBurst, clientRate, clientBurst, concurrencyLimit, clock::get);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        readLimiter = limiter(100, 3, 10, 2, 1);
+        filter = new UserRateLimitFilter(readLimiter, limiter(1, 1, 1, 1, 1), new ClientKeyResolver("X-Client-Id"),
+                meterRegistry);
+    }
+
+    private MockHttpServletResponse perform(String method, String client, FilterChain chain)
+            throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/users/1");
+        request.setRemoteAddr(client);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private MockHttpServletResponse perform(String method, String client) throws ServletException, IOException {
+        return perform(method, client, new MockFilterChain());
+    }
+
+    @Test
+    @DisplayName("Клиент, превысивший свою скорость, получает 429 с Retry-After, остальные клиенты обслуживаются")
+    public void doFilterTest_clientRate() throws Exception {
+        assertEquals(200, perform("GET", "10.0.0.1").getStatus());
+        assertEquals(200, perform("GET", "10.0.0.1").getStatus());
+
+        MockHttpServletResponse rejected = perform("GET", "10.0.0.1");
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(200, perform("GET", "10.0.0.2").getStatus());
+        assertEquals(1, meterRegistry.get("users.rate_limit.rejected")
+                .tag("kind", "read").tag("reason", "client_rate").counter().count());
+    }
+
+    @Test
+    @DisplayName("Общая скорость и число одновременных запросов ограничиваются ответом 503")
+    public void doFilterTest_overloaded() throws Exception {
+        assertEquals(200, perform("GET", "10.0.0.1").getStatus());
+        assertEquals(200, perform("GET", "10.0.0.2").getStatus());
+        assertEquals(200, perform("GET", "10.0.0.3").getStatus());
+        MockHttpServletResponse rejected = perform("GET", "10.0.0.4");
+        assertEquals(503, rejected.getStatus());
+        assertNotNull(rejected.getHeader(HttpHeaders.RETRY_AFTER));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[1];
+        MockHttpServletResponse outer = perform("GET", "10.0.0.5",
+                (request, response) -> nested[0] = perform("GET", "10.0.0.6"));
+
+        assertEquals(200, outer.getStatus());
+        assertEquals(503, nested[0].getStatus());
+        assertEquals(0, readLimiter.concurrencyLimit().inFlight());
+    }
+
+    @Test
+    @DisplayName("Запрос, отклоненный из-за перегрузки сервиса, не расходует квоту клиента")
+    public void doFilterTest_overloadedKeepsClientQuota() throws Exception {
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[3];
+        perform("GET", "10.0.0.1", (request, response) -> {
+            for (int i = 0; i < nested.length; i++) {
+                nested[i] = perform("GET", "10.0.0.2");
+            }
+        });
+        for (MockHttpServletResponse response : nested) {
+            assertEquals(503, response.getStatus());
+        }
+
+        assertEquals(200, perform("GET", "10.0.0.2").getStatus());
+        assertEquals(200, perform("GET", "10.0.0.2").getStatus());
+        assertEquals(429, perform("GET", "10.0.0.2").getStatus());
+    }
+
+    @Test
+    @DisplayName("Запись ограничивается отдельно от чтения")
+    public void doFilterTest_writesSeparateFromReads() throws Exception {
+        assertEquals(200, perform("PUT", "10.0.0.1").getStatus());
+        assertEquals(429, perform("DELETE", "10.0.0.1").getStatus());
+
+        assertEquals(200, perform("GET", "10.0.0.1").getStatus());
+    }
+
+    private MockHttpServletResponse performAs(String clientKey) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/1");
+        request.setRemoteAddr("10.0.0.100");
+        request.addHeader("X-Client-Id", clientKey);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    @DisplayName("Клиенты за одним шлюзом различаются по заголовку, без заголовка - по адресу")
+    public void doFilterTest_clientKeyHeader() throws Exception {
+        assertEquals(200, performAs("user-1").getStatus());
+        assertEquals(200, performAs("user-1").getStatus());
+        assertEquals(429, performAs("user-1").getStatus());
+        assertEquals(200, performAs("user-2").getStatus());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(200, perform("GET", "10.0.0.100").getStatus());
+        assertEquals(200, perform("GET", "10.0.0.100").getStatus());
+        assertEquals(429, perform("GET", "10.0.0.100").getStatus());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example;
+
+import com.example.DTOs.UserDto;
+import com.example.DTOs.UserEvent;
+import com.example.services.UserReadModel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class UserReadModelTest {
+
+    @Test
+    @DisplayName("Вставки, обновления и удаления совпадают с HashMap, в том числе после расширения таблицы")
+    public void applyTest_matchesHashMap() {
+        UserReadModel readModel = new UserReadModel();
+        Map<Long, UserDto> expected = new HashMap<>();
+        Map<Long, Long> versions = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            long id = 1 + random.nextInt(5_000);
+            long version = versions.merge(id, 1L, Long::sum);
+            if (random.nextInt(4) == 0) {
+                readModel.apply(UserEvent.deleted(id, version));
+                expected.remove(id);
+            } else {
+                UserDto user = new UserDto(id, "user" + i, "user" + i + "@gmail.com", 20, version);
+                readModel.apply(UserEvent.created(user));
+                expected.put(id, user);
+            }
+        }
+
+        assertEquals(expected.size(), readModel.size());
+        for (long id = 1; id <= 5_000; id++) {
+            assertEquals(Optional.ofNullable(expected.get(id)), readModel.find(id));
+        }
+    }
+
+    @Test
+    @DisplayName("Событие со старой версией не перезаписывает пользователя")
+    public void applyTest_ignoresStaleEvent() {
+        UserReadModel readModel = new UserReadModel();
+        UserDto current = new UserDto(1L, "Vasya update", "vasya@gmail.com", 21, 2L);
+        readModel.apply(UserEvent.created(current));
+        readModel.apply(UserEvent.created(new UserDto(1L, "Vasya", "vasya@gmail.com", 20, 1L)));
+        readModel.apply(UserEvent.deleted(1L, 1L));
+
+        assertEquals(Optional.of(current), readModel.find(1L));
+    }
+
+    @Test
+    @DisplayName("Повторно доставленное событие с версией не новее удаления не возвращает пользователя")
+    public void applyTest_ignoresEventAfterDelete() {
+        UserReadModel readModel = new UserReadModel();
+        UserDto created = new UserDto(1L, "Vasya", "vasya@gmail.com", 20, 0L);
+        UserDto updated = new UserDto(1L, "Vasya update", "vasya@gmail.com", 21, 1L);
+        readModel.apply(UserEvent.created(created));
+        readModel.apply(UserEvent.created(updated));
+        readModel.apply(UserEvent.deleted(1L, 1L));
+
+        readModel.apply(UserEvent.created(updated));
+        readModel.apply(UserEvent.created(created));
+
+        assertEquals(Optional.empty(), readModel.find(1L));
+        assertEquals(0, readModel.size());
+    }
+}
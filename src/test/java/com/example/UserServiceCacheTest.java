@@ -0,0 +1,111 @@
+package com.example;
+
+import com.example.DTOs.UserDto;
+import com.example.configuration.CacheConfiguration;
+import com.example.configuration.UserBatchProperties;
+import com.example.mappers.UserMapper;
+import com.example.models.User;
+import com.example.repositories.OutboxEventRepository;
+import com.example.repositories.UserRepository;
+import com.example.services.UserEmailFilter;
+import com.example.services.UserEventCodec;
+import com.example.services.UserService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig
+public class UserServiceCacheTest {
+
+    @Configuration
+    @Import({CacheConfiguration.class, UserService.class, UserMapper.class, UserEventCodec.class})
+    static class Config {
+
+        @Bean
+        UserBatchProperties userBatchProperties() {
+            return new UserBatchProperties(500);
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new CaffeineCacheManager(CacheConfiguration.USERS_CACHE);
+        }
+    }
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @MockitoBean
+    UserRepository userRepository;
+
+    @MockitoBean
+    OutboxEventRepository outboxEventRepository;
+
+    @MockitoBean
+    EntityManager entityManager;
+
+    @MockitoBean
+    UserEmailFilter emailFilter;
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager.getCache(CacheConfiguration.USERS_CACHE).clear();
+        when(userRepository.findById(1L))
+                .thenReturn(Optional.of(new User(1L, "Vasya", "vasya@gmail.com", 20, LocalDate.now(), 0)));
+    }
+
+    @Test
+    @DisplayName("Повторное чтение пользователя обслуживается из кэша")
+    public void findUserByIdTest_cached() {
+        userService.findUserById(1L);
+        userService.findUserById(1L);
+
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Обновление пользователя заменяет запись в кэше")
+    public void updateTest_refreshesCache() {
+        when(userRepository.updatePartially(1L, "Vasya update", "vasya@gmail.com", 20, null))
+                .thenReturn(Optional.of(new SpelAwareProxyProjectionFactory().createProjection(
+                        UserRepository.UpdatedUser.class, Map.of("id", 1L, "name", "Vasya update",
+                                "email", "vasya@gmail.com", "age", 20, "version", 1L,
+                                "previousEmail", "vasya@gmail.com"))));
+
+        userService.findUserById(1L);
+        userService.update(1L, new UserDto(null, "Vasya update", "vasya@gmail.com", 20), null);
+
+        assertEquals("Vasya update", userService.findUserById(1L).getName());
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Удаление пользователя удаляет запись из кэша")
+    public void deleteTest_evictsCache() {
+        userService.findUserById(1L);
+        userService.delete(1L);
+        userService.findUserById(1L);
+
+        verify(userRepository, times(2)).findById(1L);
+    }
+}
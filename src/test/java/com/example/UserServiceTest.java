@@ -0,0 +1,283 @@
+package com.example;
+
+import com.example.DTOs.UserDto;
+import com.example.DTOs.UserEvent;
+import com.example.configuration.CacheConfiguration;
+import com.example.configuration.UserBatchProperties;
+import com.example.controllers.ValidationResponse.Violation;
+import com.example.mappers.UserMapper;
+import com.example.models.OutboxEvent;
+import com.example.models.User;
+import com.example.repositories.OutboxEventRepository;
+import com.example.repositories.UserRepository;
+import com.example.services.DuplicateEmailException;
+import com.example.services.UserEmailFilter;
+import com.example.services.UserEventCodec;
+import com.example.services.UserService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.OptimisticLockException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class UserServiceTest {
+
+    private UserRepository userRepository;
+
+    private OutboxEventRepository outboxEventRepository;
+
+    private UserService userService;
+
+    private UserEmailFilter emailFilter;
+
+    private EntityManager entityManager;
+
+    private final UserEventCodec userEventCodec = new UserEventCodec();
+
+    private List<OutboxEvent> savedEvents(String topic, int total) {
+        ArgumentCaptor<OutboxEvent> captor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository, times(total)).save(captor.capture());
+        return captor.getAllValues().stream().filter(event -> event.getTopic().equals(topic)).toList();
+    }
+
+    private static String text(OutboxEvent event) {
+        return new String(event.getPayload(), StandardCharsets.UTF_8);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        userRepository = mock(UserRepository.class);
+        outboxEventRepository = mock(OutboxEventRepository.class);
+        emailFilter = mock(UserEmailFilter.class);
+        entityManager = mock(EntityManager.class);
+        userService = new UserService(userRepository, outboxEventRepository, entityManager,
+                new ConcurrentMapCacheManager(CacheConfiguration.USERS_CACHE), new UserBatchProperties(2), new UserMapper(),
+                userEventCodec, mock(ObjectProvider.class), emailFilter, mock(ObjectProvider.class));
+    }
+
+    private static UserRepository.UpdatedUser updated(long id, String name, String email, int age, long version,
+                                                      String previousEmail) {
+        return new SpelAwareProxyProjectionFactory().createProjection(UserRepository.UpdatedUser.class, Map.of(
+                "id", id, "name", name, "email", email, "age", age, "version", version,
+                "previousEmail", previousEmail));
+    }
+
+    @Test
+    @DisplayName("Создание пользователя записывает событие в outbox")
+    public void createTest_writesOutboxEvent() {
+        when(userRepository.save(any(User.class)))
+                .thenReturn(new User(1L, "Vasya", "vasya@gmail.com", 20, LocalDate.now(), 0));
+
+        userService.create(new UserDto(null, "Vasya", "vasya@gmail.com", 20));
+
+        OutboxEvent action = savedEvents("actions", 2).getFirst();
+        assertEquals("1", action.getMessageKey());
+        assertEquals("CREATE vasya@gmail.com", text(action));
+        OutboxEvent userEvent = savedEvents("user-events", 2).getFirst();
+        assertEquals("1", userEvent.getMessageKey());
+        assertEquals(new UserEvent(1L, UserEvent.Op.CREATE, 0, "Vasya", "vasya@gmail.com", 20,
+                List.of("name", "email", "age")), userEventCodec.decode(userEvent.getPayload()));
+    }
+
+    @Test
+    @DisplayName("Новый email (отрицательный ответ фильтра) не проверяется запросом к БД")
+    public void createTest_newEmailSkipsLookup() {
+        when(userRepository.save(any(User.class)))
+                .thenReturn(new User(1L, "Vasya", "vasya@gmail.com", 20, LocalDate.now(), 0));
+
+        userService.create(new UserDto(null, "Vasya", "vasya@gmail.com", 20));
+
+        verify(userRepository, never()).existsByEmail(any());
+        verify(emailFilter).add("vasya@gmail.com");
+    }
+
+    @Test
+    @DisplayName("Занятый email отклоняется до записи")
+    public void createTest_duplicateEmail() {
+        when(emailFilter.mightContain("vasya@gmail.com")).thenReturn(true);
+        when(userRepository.existsByEmail("vasya@gmail.com")).thenReturn(true);
+
+        DuplicateEmailException e = assertThrows(DuplicateEmailException.class,
+                () -> userService.create(new UserDto(null, "Vasya", "vasya@gmail.com", 20)));
+
+        assertEquals("email", e.getViolations().getFirst().getFieldName());
+        verify(userRepository, never()).save(any());
+        verifyNoInteractions(outboxEventRepository);
+    }
+
+    @Test
+    @DisplayName("Пакетное создание отклоняется с индексами повторяющихся и занятых email")
+    public void createAllTest_duplicateEmails() {
+        when(emailFilter.mightContain(any())).thenReturn(true);
+        UserRepository.EmailOwner owner = mock(UserRepository.EmailOwner.class);
+        when(owner.getId()).thenReturn(7L);
+        when(owner.getEmail()).thenReturn("taken@gmail.com");
+        when(userRepository.findByEmailIn(List.of("vasya@gmail.com", "taken@gmail.com"))).thenReturn(List.of(owner));
+
+        DuplicateEmailException e = assertThrows(DuplicateEmailException.class, () -> userService.createAll(List.of(
+                new UserDto(null, "Vasya", "vasya@gmail.com", 20),
+                new UserDto(null, "Vasya again", "vasya@gmail.com", 21),
+                new UserDto(null, "Dima", "taken@gmail.com", 25))));
+
+        assertEquals(List.of("[1].email", "[2].email"),
+                e.getViolations().stream().map(Violation::getFieldName).toList());
+        verify(userRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Удаление пользователя записывает событие в outbox без предварительного чтения")
+    public void deleteTest_writesOutboxEvent() {
+        UserRepository.DeletedUser deleted = mock(UserRepository.DeletedUser.class);
+        when(deleted.getEmail()).thenReturn("vasya@gmail.com");
+        when(deleted.getVersion()).thenReturn(3L);
+        when(userRepository.deleteReturning(1L)).thenReturn(Optional.of(deleted));
+
+        userService.delete(1L);
+
+        OutboxEvent action = savedEvents("actions", 2).getFirst();
+        assertEquals("1", action.getMessageKey());
+        assertEquals("DELETE vasya@gmail.com", text(action));
+        assertEquals(UserEvent.deleted(1L, 3L),
+                userEventCodec.decode(savedEvents("user-events", 2).getFirst().getPayload()));
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Удаление несуществующего пользователя не отправляет событие")
+    public void deleteTest_userNotFound() {
+        when(userRepository.deleteReturning(1L)).thenReturn(Optional.empty());
+
+        userService.delete(1L);
+
+        verifyNoInteractions(outboxEventRepository);
+    }
+
+    @Test
+    @DisplayName("Пакетное создание пишет по одному событию на порцию")
+    public void createAllTest_oneEventPerChunk() {
+        AtomicLong ids = new AtomicLong();
+        when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.forEach(user -> user.setId(ids.incrementAndGet()));
+            return users;
+        });
+
+        userService.createAll(List.of(
+                new UserDto(null, "Vasya", "vasya@gmail.com", 20),
+                new UserDto(null, "Dima", "dima@gmail.com", 25),
+                new UserDto(null, "Vlad", "vlad@gmail.com", 21)));
+
+        verify(userRepository, times(2)).saveAll(anyList());
+        List<OutboxEvent> actions = savedEvents("actions", 5);
+        assertEquals(2, actions.size());
+        assertEquals("CREATE_BATCH vasya@gmail.com,dima@gmail.com", text(actions.get(0)));
+        assertEquals("CREATE_BATCH vlad@gmail.com", text(actions.get(1)));
+        assertEquals(3, savedEvents("user-events", 5).size());
+    }
+
+    @Test
+    @DisplayName("Пакетное обновление отклоняется, если пользователь не найден")
+    public void updateAllTest_userNotFound() {
+        when(userRepository.findAllById(List.of(1L, 2L)))
+                .thenReturn(List.of(new User(1L, "Vasya", "vasya@gmail.com", 20, LocalDate.now(), 0)));
+
+        assertThrows(EntityNotFoundException.class, () -> userService.updateAll(List.of(
+                new UserDto(1L, "Vasya", "vasya@gmail.com", 20),
+                new UserDto(2L, "Dima", "dima@gmail.com", 25))));
+        verifyNoInteractions(outboxEventRepository);
+    }
+
+    @Test
+    @DisplayName("Пакетное обновление пользователя, измененного другим запросом, отклоняется как конфликт версий")
+    public void updateAllTest_staleVersion() {
+        User user = new User(1L, "Vasya", "vasya@gmail.com", 20, LocalDate.now(), 0);
+        when(userRepository.findAllById(List.of(1L))).thenReturn(List.of(user));
+        doThrow(new OptimisticLockException("version", null, user)).when(entityManager).flush();
+
+        ObjectOptimisticLockingFailureException e = assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> userService.updateAll(List.of(new UserDto(1L, "Vasya update", null, 21))));
+
+        assertEquals(1L, e.getIdentifier());
+        assertEquals(User.class, e.getPersistentClass());
+    }
+
+    @Test
+    @DisplayName("Обновление выполняется одним запросом и записывает событие в outbox")
+    public void updateTest_singleStatement() {
+        when(userRepository.updatePartially(1L, "Vasya update", null, 21, null))
+                .thenReturn(Optional.of(updated(1L, "Vasya update", "vasya@gmail.com", 21, 1, "vasya@gmail.com")));
+
+        UserDto userDto = userService.update(1L, new UserDto(null, "Vasya update", null, 21), null);
+
+        assertEquals(new UserDto(1L, "Vasya update", "vasya@gmail.com", 21, 1L), userDto);
+        assertEquals("UPDATE vasya@gmail.com", text(savedEvents("actions", 2).getFirst()));
+        assertEquals(new UserEvent(1L, UserEvent.Op.UPDATE, 1, "Vasya update", "vasya@gmail.com", 21,
+                List.of("name", "age")), userEventCodec.decode(savedEvents("user-events", 2).getFirst().getPayload()));
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Фильтр email меняется, только если email изменился: новый добавляется, прежний удаляется")
+    public void updateTest_emailFilter() {
+        when(userRepository.updatePartially(eq(1L), any(), any(), eq(21), isNull()))
+                .thenReturn(Optional.of(updated(1L, "Vasya", "vasya@gmail.com", 21, 1, "vasya@gmail.com")));
+
+        userService.update(1L, new UserDto(null, null, "vasya@gmail.com", 21), null);
+        userService.update(1L, new UserDto(null, "Vasya", null, 21), null);
+
+        verify(emailFilter, never()).add(any());
+        verify(emailFilter, never()).removeAfterCommit(any());
+
+        when(userRepository.updatePartially(eq(1L), any(), any(), eq(21), isNull()))
+                .thenReturn(Optional.of(updated(1L, "Vasya", "vasya.new@gmail.com", 21, 2, "vasya@gmail.com")));
+        userService.update(1L, new UserDto(null, null, "vasya.new@gmail.com", 21), null);
+
+        verify(emailFilter).add("vasya.new@gmail.com");
+        verify(emailFilter).removeAfterCommit("vasya@gmail.com");
+        // Занятость email проверяет уникальный индекс в самом UPDATE
+        verify(userRepository, never()).existsByEmail(any());
+        verify(emailFilter, never()).mightContain(any());
+    }
+
+    @Test
+    @DisplayName("Обновление с устаревшей версией отклоняется")
+    public void updateTest_staleVersion() {
+        when(userRepository.updatePartially(1L, "Vasya update", null, 21, 2L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> userService.update(1L, new UserDto(null, "Vasya update", null, 21), 2L));
+        verifyNoInteractions(outboxEventRepository);
+    }
+
+    @Test
+    @DisplayName("Обновление несуществующего пользователя")
+    public void updateTest_userNotFound() {
+        when(userRepository.updatePartially(1L, "Vasya update", null, 21, 2L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class,
+                () -> userService.update(1L, new UserDto(null, "Vasya update", null, 21), 2L));
+        verifyNoInteractions(outboxEventRepository);
+    }
+}